@@ -0,0 +1,35 @@
+package org.tinkerhub.offgo.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口：接受 JMH 的全部命令行参数，默认附加 gc 分析器并把结果写成 JSON。
+ * 对比需手工进行：保留改动前的结果文件，与改动后的结果逐项比较吞吐量（ops/s）
+ * 和每次操作的分配量（gc.alloc.rate.norm）。
+ */
+public final class BenchmarkMain {
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        builder.addProfiler(GCProfiler.class);
+        if (!commandLine.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
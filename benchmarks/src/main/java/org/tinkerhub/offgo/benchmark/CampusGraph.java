@@ -0,0 +1,139 @@
+package org.tinkerhub.offgo.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.Polyline;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.LandmarkManager;
+import org.tinkerhub.offgo.service.routing.ContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+import org.tinkerhub.offgo.util.OsmParser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试共用的校园路网：按与 RoadGraphService 相同的方式构建快照、线段索引、地标与距离收缩层次，
+ * 并用固定种子生成查询点。
+ * 默认使用固定种子生成的合成方格路网，不依赖仓库外的数据，各次运行的结果可以直接对比；
+ * 用 -Doffgo.bench.osm=路径 可改为用 OsmParser 读取一份 OSM 文件。
+ */
+@State(Scope.Benchmark)
+public class CampusGraph {
+    public static final String OSM_PROPERTY = "offgo.bench.osm";
+    private static final long SEED = 20240501L;
+    // 合成路网：GRID_SIZE x GRID_SIZE 个路口，间距约 80 米，每隔 PRIMARY_EVERY 条为主干道
+    private static final int GRID_SIZE = 80;
+    private static final double GRID_STEP = 0.0007;
+    private static final int PRIMARY_EVERY = 8;
+    private static final double KEEP = 0.85;
+    private static final String[] MINOR_ROAD_TYPES = {"secondary", "residential", "footway", "path"};
+    public static final int POINT_COUNT = 1024;
+
+    public List<MapRoad> roads;
+    public RoadGraph graph;
+    public SegmentIndex segmentIndex;
+    public LandmarkManager landmarks;
+    public ContractionHierarchy hierarchy;
+    // 路网范围内的随机坐标 {纬度, 经度} 及其吸附结果
+    public double[][] points;
+    public GraphLocation[] locations;
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        roads = loadRoads();
+        graph = RoadGraph.build(roads, 1);
+        if (graph.getEdgeCount() == 0) {
+            throw new IllegalStateException("Road network contains no roads");
+        }
+        segmentIndex = SegmentIndex.build(graph);
+        landmarks = new LandmarkManager(graph);
+        hierarchy = ContractionHierarchy.build(graph, graph.getEdgeWeights(TravelMetric.DISTANCE));
+
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            minLat = Math.min(minLat, graph.getLatitude(v));
+            maxLat = Math.max(maxLat, graph.getLatitude(v));
+            minLon = Math.min(minLon, graph.getLongitude(v));
+            maxLon = Math.max(maxLon, graph.getLongitude(v));
+        }
+        Random random = new Random(SEED);
+        points = new double[POINT_COUNT][];
+        locations = new GraphLocation[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            points[i] = new double[]{minLat + random.nextDouble() * (maxLat - minLat),
+                minLon + random.nextDouble() * (maxLon - minLon)};
+            locations[i] = segmentIndex.nearest(graph, points[i][0], points[i][1]);
+        }
+    }
+
+    // 按道路编号排序，与 RoadGraphService 重建快照时的顺序一致
+    public static List<MapRoad> loadRoads() throws Exception {
+        String path = System.getProperty(OSM_PROPERTY);
+        if (path == null || path.isBlank()) {
+            return syntheticRoads();
+        }
+        if (!new File(path).isFile()) {
+            throw new IllegalStateException("OSM extract not found: " + path + " (set -D" + OSM_PROPERTY + ")");
+        }
+        OsmParser parser = new OsmParser();
+        parser.parseOsmFile(path);
+        List<MapRoad> roads = new ArrayList<>(parser.getRoads());
+        roads.sort(Comparator.comparing(MapRoad::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return roads;
+    }
+
+    /**
+     * 带随机抖动的方格路网，每个街段是一条道路，次要街段按 KEEP 的概率保留，形成绕行与死胡同；
+     * 主干道全部保留，保证电动车可达。道路编号按生成顺序递增。
+     */
+    static List<MapRoad> syntheticRoads() {
+        Random random = new Random(SEED);
+        double[][] latitudes = new double[GRID_SIZE][GRID_SIZE];
+        double[][] longitudes = new double[GRID_SIZE][GRID_SIZE];
+        for (int i = 0; i < GRID_SIZE; i++) {
+            for (int j = 0; j < GRID_SIZE; j++) {
+                latitudes[i][j] = 40.0 + i * GRID_STEP + (random.nextDouble() - 0.5) * GRID_STEP * 0.4;
+                longitudes[i][j] = 116.3 + j * GRID_STEP + (random.nextDouble() - 0.5) * GRID_STEP * 0.4;
+            }
+        }
+        List<MapRoad> roads = new ArrayList<>();
+        for (int i = 0; i < GRID_SIZE; i++) {
+            for (int j = 0; j < GRID_SIZE; j++) {
+                if (j + 1 < GRID_SIZE) {
+                    addStreet(roads, random, i % PRIMARY_EVERY == 0, latitudes[i][j], longitudes[i][j],
+                        latitudes[i][j + 1], longitudes[i][j + 1]);
+                }
+                if (i + 1 < GRID_SIZE) {
+                    addStreet(roads, random, j % PRIMARY_EVERY == 0, latitudes[i][j], longitudes[i][j],
+                        latitudes[i + 1][j], longitudes[i + 1][j]);
+                }
+            }
+        }
+        return roads;
+    }
+
+    private static void addStreet(List<MapRoad> roads, Random random, boolean primary,
+                                  double lat1, double lon1, double lat2, double lon2) {
+        String roadType = primary ? "primary" : MINOR_ROAD_TYPES[random.nextInt(MINOR_ROAD_TYPES.length)];
+        double crowdLevel = 0.1 + 0.9 * random.nextDouble();
+        if (!primary && random.nextDouble() >= KEEP) {
+            return;
+        }
+        MapRoad road = new MapRoad();
+        road.setId((long) roads.size() + 1);
+        road.setRoadType(roadType);
+        road.setCrowdLevel(crowdLevel);
+        road.setGeometry(Polyline.of(new double[]{lat1, lat2}, new double[]{lon1, lon2}));
+        roads.add(road);
+    }
+}
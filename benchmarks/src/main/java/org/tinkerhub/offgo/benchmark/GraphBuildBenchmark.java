@@ -0,0 +1,47 @@
+package org.tinkerhub.offgo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.LandmarkManager;
+import org.tinkerhub.offgo.service.routing.ContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动与路网刷新时的预处理：快照构建、线段索引、地标距离表与收缩层次。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBuildBenchmark {
+
+    @Benchmark
+    public RoadGraph buildGraph(CampusGraph campus) {
+        return RoadGraph.build(campus.roads, 1);
+    }
+
+    @Benchmark
+    public SegmentIndex buildSegmentIndex(CampusGraph campus) {
+        return SegmentIndex.build(campus.graph);
+    }
+
+    @Benchmark
+    public LandmarkManager buildLandmarks(CampusGraph campus) {
+        return new LandmarkManager(campus.graph);
+    }
+
+    @Benchmark
+    public ContractionHierarchy buildHierarchy(CampusGraph campus) {
+        return ContractionHierarchy.build(campus.graph, campus.graph.getEdgeWeights(TravelMetric.DISTANCE));
+    }
+}
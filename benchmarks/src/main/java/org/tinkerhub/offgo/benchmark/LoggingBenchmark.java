@@ -0,0 +1,152 @@
+package org.tinkerhub.offgo.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求线程上写一条路线摘要日志的开销：同步写文件与经 AsyncAppender 写文件两种配置，
+ * 布局与 logback-spring.xml 的控制台格式一致。多个线程同时记录，以体现同步输出的锁竞争。
+ * <p>
+ * 异步配置不丢弃事件（discardingThreshold 为 0），队列满时请求线程等待写出，
+ * 因此稳定状态下的结果是写到文件的端到端开销，而不是只把事件放入队列、随后丢弃的开销。
+ * 每轮迭代结束时输出已记录、已写出、仍在队列中与丢弃的事件数，用于核对。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final String PATTERN =
+        "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    private LoggerContext context;
+    private Logger logger;
+    private Path file;
+    private AsyncAppender async;
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    // 记录实际写出的事件数
+    private final class CountingFileAppender extends FileAppender<ILoggingEvent> {
+        @Override
+        protected void append(ILoggingEvent event) {
+            super.append(event);
+            written.increment();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("offgo-logging", ".log");
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> target = new CountingFileAppender();
+        target.setContext(context);
+        target.setName("FILE");
+        target.setFile(file.toString());
+        target.setEncoder(encoder);
+        target.start();
+
+        Appender<ILoggingEvent> root = target;
+        if ("async".equals(appender)) {
+            async = new AsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC_FILE");
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(false);
+            async.setIncludeCallerData(false);
+            async.addAppender(target);
+            async.start();
+            root = async;
+        }
+
+        logger = context.getLogger("org.tinkerhub.offgo.service.RouteService");
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(root);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        logged.reset();
+        written.reset();
+    }
+
+    /**
+     * 迭代结束时队列中尚未写出的事件不计入本轮耗时：先输出其数量，再等待写完（最多 10 秒），
+     * 此后已记录与已写出之差即丢弃的事件数，应为 0。
+     */
+    @TearDown(Level.Iteration)
+    public void reportCounts() throws InterruptedException {
+        long loggedCount = logged.sum();
+        int queued = async == null ? 0 : async.getNumberOfElementsInQueue();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (written.sum() < loggedCount && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        long writtenCount = written.sum();
+        System.out.printf("%n%s: logged %d, queued at end %d, written %d, dropped %d%n", appender, loggedCount,
+            queued, writtenCount, loggedCount - writtenCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(file);
+    }
+
+    // 与 RouteService.toResponse 的摘要行相同的参数个数与类型
+    @Benchmark
+    public void routeSummary() {
+        if (logger.isInfoEnabled()) {
+            logger.info("{} mode - {} points, {} roads, total distance {}m, estimated time {} min, access {}m / {}m",
+                "walking", 128, 17, 1523.47, 18.28, 12.5, 8.03);
+            logged.increment();
+        }
+    }
+
+    // 级别关闭时守卫后的调用只剩一次级别判断
+    @Benchmark
+    public void disabledDebug() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Processing point {}: lat={}, lon={}", 42, 40.0001, 116.3265);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.tinkerhub.offgo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.AStarRouter;
+import org.tinkerhub.offgo.service.routing.BidirectionalRouter;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.GraphPath;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两点间最短距离路径，与 RouteService 对各引擎的调用方式一致（A* 与双向 A* 使用 ALT 估价）。
+ * 每次调用依次取下一对随机起终点，不经过路段缓存。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final TravelMetric METRIC = TravelMetric.DISTANCE;
+
+    @Param({"astar", "bidirectional", "ch"})
+    public String engine;
+
+    private int next;
+
+    @Benchmark
+    public GraphPath route(CampusGraph campus) {
+        int i = next++ & (CampusGraph.POINT_COUNT - 1);
+        GraphLocation from = campus.locations[i];
+        GraphLocation to = campus.locations[(i + CampusGraph.POINT_COUNT / 2) & (CampusGraph.POINT_COUNT - 1)];
+        switch (engine) {
+            case "ch":
+                return campus.hierarchy.route(from, to);
+            case "bidirectional":
+                return BidirectionalRouter.route(campus.graph, METRIC, from, to,
+                    campus.landmarks.heuristicTo(campus.graph, to, METRIC),
+                    campus.landmarks.heuristicTo(campus.graph, from, METRIC));
+            default:
+                return AStarRouter.route(campus.graph, METRIC, from, to,
+                    campus.landmarks.heuristicTo(campus.graph, to, METRIC));
+        }
+    }
+}
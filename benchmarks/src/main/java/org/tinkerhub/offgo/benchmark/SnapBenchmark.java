@@ -0,0 +1,33 @@
+package org.tinkerhub.offgo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 坐标吸附到最近道路线段，每次调用依次取下一个随机坐标。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapBenchmark {
+    private int next;
+
+    @Benchmark
+    public GraphLocation nearestSegment(CampusGraph campus) {
+        double[] point = campus.points[next++ & (CampusGraph.POINT_COUNT - 1)];
+        return campus.segmentIndex.nearest(campus.graph, point[0], point[1]);
+    }
+}
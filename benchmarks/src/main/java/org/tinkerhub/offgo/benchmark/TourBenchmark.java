@@ -0,0 +1,59 @@
+package org.tinkerhub.offgo.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.DistanceMatrixService;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.GraphPath;
+import org.tinkerhub.offgo.service.routing.TourRouter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多途经点路线，调用 RouteService.findOptimalPath 使用的同一组 TourRouter 步骤：
+ * 代价矩阵（DistanceMatrixService.matrix，不需要 Spring 装配）、访问顺序、逐段收缩层次查询并拼接。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TourBenchmark {
+    @Param({"3", "5", "8", "10"})
+    public int waypoints;
+
+    @Param({"false", "true"})
+    public boolean roundTrip;
+
+    private final DistanceMatrixService matrixService = new DistanceMatrixService();
+    private int next;
+
+    @Benchmark
+    public GraphPath optimalPath(CampusGraph campus) {
+        GraphLocation[] locations = new GraphLocation[waypoints + 1];
+        for (int i = 0; i <= waypoints; i++) {
+            locations[i] = campus.locations[next++ & (CampusGraph.POINT_COUNT - 1)];
+        }
+        double[][] cost = TourRouter.costMatrix(locations,
+            matrixService.matrix(campus.graph, TravelMetric.DISTANCE, locations, locations), TravelMetric.DISTANCE);
+        int[] order = TourRouter.order(cost, roundTrip);
+        return TourRouter.stitch(TourRouter.sequence(locations, order, roundTrip), (from, to, elapsed, path) -> {
+            GraphPath leg = campus.hierarchy.route(from, to);
+            if (leg == null) {
+                return 0;
+            }
+            path.append(leg);
+            return leg.getCost();
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package org.tinkerhub.offgo.config;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.tinkerhub.offgo.util.BoundedCache;
+
+import java.util.concurrent.Callable;
+import java.util.function.ToIntFunction;
+
+/**
+ * 以 {@link BoundedCache} 为后端的 Spring Cache，不缓存 null。
+ */
+public class BoundedSpringCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final BoundedCache<Object, Object> cache;
+
+    public BoundedSpringCache(String name, long maximumWeight, ToIntFunction<Object> weigher,
+                              long expireAfterWriteNanos) {
+        super(false);
+        this.name = name;
+        this.cache = new BoundedCache<>(maximumWeight, weigher, expireAfterWriteNanos);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BoundedCache<Object, Object> getNativeCache() {
+        return cache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return cache.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = cache.get(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            T loaded = valueLoader.call();
+            if (loaded != null) {
+                cache.put(key, loaded);
+            }
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value != null) {
+            cache.put(key, value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -1,22 +1,50 @@
 package org.tinkerhub.offgo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.tinkerhub.offgo.model.RouteResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
+    // 路径规划结果缓存的总权重（路径点数）与写入后的存活时间
+    @Value("${offgo.cache.route.maximum-weight:200000}")
+    private long routeCacheMaximumWeight;
+
+    @Value("${offgo.cache.route.expire-after-write-seconds:600}")
+    private long routeCacheExpireSeconds;
+
     @Bean
     public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "routeCache",      // 路径规划结果缓存
-            "heuristicCache"   // 启发式值缓存
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+            new BoundedSpringCache("routeCache", routeCacheMaximumWeight, CacheConfig::weigh, // 路径规划结果缓存
+                TimeUnit.SECONDS.toNanos(routeCacheExpireSeconds))
         ));
         return cacheManager;
     }
-} 
\ No newline at end of file
+
+    // 按响应中的路径点数计权重
+    private static int weigh(Object value) {
+        if (value instanceof RouteResponse response) {
+            return Math.max(1, response.getRoute() != null ? response.getRoute().size() : 0);
+        }
+        if (value instanceof Map<?, ?> map) {
+            int weight = 0;
+            for (Object item : map.values()) {
+                weight += weigh(item);
+            }
+            return weight;
+        }
+        return 1;
+    }
+}
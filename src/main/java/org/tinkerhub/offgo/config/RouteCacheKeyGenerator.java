@@ -0,0 +1,48 @@
+package org.tinkerhub.offgo.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.RouteRequest;
+import org.tinkerhub.offgo.service.RoadGraphService;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 路径规划结果的缓存键。
+ * 坐标按路网坐标精度（1e-6 度）取整，地图上几乎重合的点击共享同一结果；
+ * 途经点保持原顺序，响应中的终点接驳距离取自最后一个输入点。
+ * 键中包含路网快照版本，拥挤度刷新后旧结果不再命中；
+ * 也包含实际使用的搜索引擎，便于对比不同引擎时互不命中，以及出发时刻和备选路线数。
+ */
+@Component("routeCacheKeyGenerator")
+public class RouteCacheKeyGenerator implements KeyGenerator {
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        RouteRequest request = (RouteRequest) params[0];
+        List<Long> waypoints = new ArrayList<>();
+        if (request.getPathPoints() != null) {
+            for (RouteRequest.Point point : request.getPathPoints()) {
+                waypoints.add(RoadGraph.coordinateKey(point.getLatitude(), point.getLongitude()));
+            }
+        }
+        RouteRequest.Point start = request.getStartPoint();
+        return List.of(
+            method.getName(),
+            String.valueOf(request.getTransportMode()),
+            request.isRoundTrip(),
+            start != null ? RoadGraph.coordinateKey(start.getLatitude(), start.getLongitude()) : 0L,
+            waypoints,
+            roadGraphService.resolveEngine(request.getRoutingEngine()),
+            String.valueOf(request.getDepartureTime()),
+            request.getAlternatives(),
+            roadGraphService.getGraph().getVersion());
+    }
+}
@@ -0,0 +1,36 @@
+package org.tinkerhub.offgo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class RoutingExecutorConfig {
+
+    // 同时进行的路径规划任务数，默认与 CPU 核数相同
+    @Value("${offgo.routing.executor.pool-size:0}")
+    private int poolSize;
+
+    @Value("${offgo.routing.executor.queue-capacity:64}")
+    private int queueCapacity;
+
+    /**
+     * 多方案路径规划使用的有界线程池。
+     * 队列满时由提交请求的线程自己执行，保证负载过高时退化为串行而不是拒绝请求。
+     */
+    @Bean
+    public ThreadPoolTaskExecutor routePlanExecutor() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("route-plan-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -26,7 +26,14 @@ public class OsmController {
             double longitude = Double.parseDouble(request.get("longitude").toString());
             double radius = Double.parseDouble(request.get("radius").toString());
 
-            List<Map<String, Object>> services = osmService.findNearbyServices(latitude, longitude, radius);
+            // mode 为 walking 时按路网步行距离返回最近的 limit 个，否则按直线距离返回半径内的全部
+            List<Map<String, Object>> services;
+            if ("walking".equalsIgnoreCase(String.valueOf(request.get("mode")))) {
+                int limit = request.get("limit") != null ? Integer.parseInt(request.get("limit").toString()) : 0;
+                services = osmService.findNearbyServicesByWalking(latitude, longitude, radius, limit);
+            } else {
+                services = osmService.findNearbyServices(latitude, longitude, radius);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("services", services);
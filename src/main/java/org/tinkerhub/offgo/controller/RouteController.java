@@ -1,24 +1,61 @@
 package org.tinkerhub.offgo.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.tinkerhub.offgo.model.IsochroneRequest;
+import org.tinkerhub.offgo.model.IsochroneResponse;
+import org.tinkerhub.offgo.model.MatrixRequest;
+import org.tinkerhub.offgo.model.MatrixResponse;
 import org.tinkerhub.offgo.model.RouteRequest;
 import org.tinkerhub.offgo.model.RouteResponse;
+import org.tinkerhub.offgo.service.DistanceMatrixService;
+import org.tinkerhub.offgo.service.IsochroneService;
 import org.tinkerhub.offgo.service.RouteService;
+import org.tinkerhub.offgo.service.routing.RoutingMetrics;
+import org.tinkerhub.offgo.util.BoundedCache;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/route")
 @CrossOrigin(origins = "*")
 public class RouteController {
 
+    // 多方案流式响应的超时时间
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+
     @Autowired
     private RouteService routeService;
 
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private IsochroneService isochroneService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private Executor routePlanExecutor;
+
+    // 规划耗时在缓存代理之外记录，命中缓存的请求也计入直方图
     @PostMapping("/plan")
     public ResponseEntity<RouteResponse> planRoute(@RequestBody RouteRequest request) {
         try {
-            RouteResponse response = routeService.planRoute(request);
+            RouteResponse response = RoutingMetrics.timePlan("planRoute", request.getTransportMode(),
+                () -> routeService.planRoute(request));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -28,9 +65,118 @@ public class RouteController {
     @PostMapping("/planMulti")
     public ResponseEntity<?> planRouteMulti(@RequestBody RouteRequest request) {
         try {
-            return ResponseEntity.ok(routeService.planRouteMulti(request));
+            return ResponseEntity.ok(RoutingMetrics.timePlan("planRouteMulti", request.getTransportMode(),
+                () -> routeService.planRouteMulti(request)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 以 SSE 推送多方案规划结果：先完成的方案先以 distancePath / timePath / alternatives 事件发送，
+     * 全部完成后再发送与 /planMulti 相同的合并结果（complete 事件）。
+     */
+    @PostMapping(value = "/planMulti/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter planRouteMultiStream(@RequestBody RouteRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        RouteService.MultiPlan plans;
+        try {
+            plans = routeService.planRouteMultiAsync(request);
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        CompletableFuture<RouteResponse> distancePath = plans.getDistancePath();
+        CompletableFuture<RouteResponse> timePath = plans.getTimePath();
+        CompletableFuture<List<RouteResponse>> alternatives = plans.getAlternatives();
+        // complete 事件挂在各个发送之后，保证客户端先收到单个方案
+        CompletableFuture.allOf(
+            distancePath.thenAccept(response -> send(emitter, "distancePath", response)),
+            timePath.thenAccept(response -> send(emitter, "timePath", response)),
+            alternatives.thenAccept(routes -> send(emitter, "alternatives", routes))
+        ).whenComplete((ignored, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            Map<String, Object> result = routeService.mergePlans(request, distancePath.join(), timePath.join());
+            result.put("alternatives", alternatives.join());
+            if (send(emitter, "complete", result)) {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    @PostMapping("/matrix")
+    public ResponseEntity<?> matrix(@RequestBody MatrixRequest request) {
+        try {
+            MatrixResponse response = distanceMatrixService.compute(request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/isochrone")
+    public ResponseEntity<?> isochrone(@RequestBody IsochroneRequest request) {
+        try {
+            return ResponseEntity.ok(isochroneService.compute(request));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * 以 SSE 推送可达范围：搜索每向外扩展一段用时就以 progress 事件发送新增的地点和网格，
+     * 最后一批（带已确定节点数与是否截断）以 complete 事件发送。
+     */
+    @PostMapping(value = "/isochrone/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter isochroneStream(@RequestBody IsochroneRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        routePlanExecutor.execute(() -> {
+            // 延后一批发送，保证最后一批以 complete 事件发出
+            AtomicReference<IsochroneResponse> previous = new AtomicReference<>();
+            try {
+                isochroneService.compute(request, batch -> {
+                    IsochroneResponse ready = previous.getAndSet(batch);
+                    if (ready != null && !send(emitter, "progress", ready)) {
+                        throw new IllegalStateException("Client disconnected");
+                    }
+                });
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                return;
+            }
+            if (send(emitter, "complete", previous.get())) {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    // 路段缓存与各 Spring 缓存的命中、未命中与淘汰统计
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pathCache", routeService.getCacheStats());
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof BoundedCache<?, ?> bounded) {
+                stats.put(name, bounded.stats());
+            }
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
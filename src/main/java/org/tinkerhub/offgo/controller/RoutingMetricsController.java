@@ -0,0 +1,40 @@
+package org.tinkerhub.offgo.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.tinkerhub.offgo.service.RouteService;
+import org.tinkerhub.offgo.service.routing.RoutingMetrics;
+import org.tinkerhub.offgo.util.BoundedCache;
+
+/**
+ * 路径规划统计的抓取端点，Prometheus 文本格式（0.0.4）。
+ */
+@RestController
+public class RoutingMetricsController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @GetMapping(value = "/actuator/routing", produces = PROMETHEUS_TEXT)
+    public ResponseEntity<String> metrics() {
+        StringBuilder out = new StringBuilder(8192);
+        RoutingMetrics.writeTo(out);
+        RoutingMetrics.writeCacheHeaders(out);
+        RoutingMetrics.writeCache(out, "pathCache", routeService.getCacheStats());
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof BoundedCache<?, ?> bounded) {
+                RoutingMetrics.writeCache(out, name, bounded.stats());
+            }
+        }
+        return ResponseEntity.ok(out.toString());
+    }
+}
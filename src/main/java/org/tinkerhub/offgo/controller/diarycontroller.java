@@ -6,6 +6,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.tinkerhub.offgo.entity.*;
+import org.tinkerhub.offgo.service.DiaryIndexService;
 import org.tinkerhub.offgo.service.DiaryService;
 import org.tinkerhub.offgo.service.VideoService;
 import org.tinkerhub.offgo.repository.DiaryRepository;
@@ -31,8 +32,7 @@ import java.util.Base64;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
+import org.tinkerhub.offgo.util.InvertedIndex;
 
 @RestController
 @RequestMapping("/api/diary")
@@ -46,6 +46,8 @@ public class DiaryController {
     @Autowired
     private DiaryService diaryService;
     @Autowired
+    private DiaryIndexService diaryIndexService;
+    @Autowired
     private DiaryRepository diaryRepository;
     @Autowired
     private ContentRepository contentRepository;
@@ -62,6 +64,8 @@ public class DiaryController {
 
     private static final String IMAGE_STORAGE_DIR = "src/main/resources/static/images/diary/";
     private static final String DEFAULT_IMAGE_PATH = "src/main/resources/static/images/default-image.jpg";
+    // getdiarys 的排序字段：按全文检索相关度排序，其他搜索类型按热度
+    private static final int SORT_BY_RELEVANCE = 0;
 
     @PostMapping("/savediary_withoutimage")
     public ResponseEntity<?> savediary_without(
@@ -114,7 +118,7 @@ public class DiaryController {
                 }
             }
 
-            diary = diaryRepository.save(diary);
+            diary = diaryService.saveDiary(diary);
             return ResponseEntity.ok(diary);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -597,6 +601,9 @@ public class DiaryController {
             logger.info("Received request for diaries with parameters: keyword={}, searchType={}, sortField={}, sortOrder={}, userId={}",
                 keyword, searchType, sortField, sortOrder, userId);
 
+            // 全文检索在选择“按相关度排序”（0）或未指定排序字段时按相关度排序
+            final boolean byRelevance = sortField == null || sortField == SORT_BY_RELEVANCE;
+
             // 设置默认值
             sortField = sortField != null ? sortField : 1;
             sortOrder = sortOrder != null ? sortOrder : "desc";
@@ -615,6 +622,15 @@ public class DiaryController {
                 finalUserRole = null;
             }
 
+            // 全文检索先查倒排索引，得到候选日记及其相关度
+            final Map<Integer, Double> relevance = new HashMap<>();
+            final boolean fullText = "full_text".equals(finalSearchType) && !finalKeyword.trim().isEmpty();
+            if (fullText) {
+                for (InvertedIndex.Hit hit : diaryIndexService.search(finalKeyword)) {
+                    relevance.put(hit.id(), hit.score());
+                }
+            }
+
             // 创建排序对象
             Sort sort;
             switch (sortField) {
@@ -645,18 +661,9 @@ public class DiaryController {
                             predicates.add(cb.like(root.get("destination"), "%" + finalKeyword + "%"));
                             break;
                         case "full_text":
-                            // 搜索标题
-                            Predicate titlePredicate = cb.like(root.get("title"), "%" + finalKeyword + "%");
-                            // 搜索简介
-                            Predicate descPredicate = cb.like(root.get("description"), "%" + finalKeyword + "%");
-                            // 搜索目的地
-                            Predicate destPredicate = cb.like(root.get("destination"), "%" + finalKeyword + "%");
-                            // 搜索正文内容
-                            Join<Diary, ContentEntity> contentJoin = root.join("content", JoinType.INNER);
-                            Predicate contentPredicate = cb.like(contentJoin.get("content"), "%" + finalKeyword + "%");
-                            
-                            // 组合所有条件（OR关系）
-                            predicates.add(cb.or(titlePredicate, descPredicate, destPredicate, contentPredicate));
+                            // 只取索引命中的日记（标题、简介、目的地、正文）
+                            predicates.add(relevance.isEmpty()
+                                ? cb.disjunction() : root.get("id").in(relevance.keySet()));
                             break;
                     }
                 }
@@ -673,6 +680,9 @@ public class DiaryController {
 
             // 执行查询，获取所有符合条件的日记
             List<Diary> diaries = diaryRepository.findAll(spec, sort);
+            if (fullText && byRelevance) {
+                diaries.sort(Comparator.comparing((Diary diary) -> relevance.get(diary.getId())).reversed());
+            }
             logger.info("Found {} diaries matching the criteria", diaries.size());
 
             Map<String, Object> response = new HashMap<>();
@@ -928,6 +938,7 @@ public class DiaryController {
                 try {
                     // 先删除日记
                     diaryRepository.delete(diary);
+                    diaryIndexService.remove(diary.getId());
                     logger.info("删除日记 ID: {}, 标题: {}", diary.getId(), diary.getTitle());
                     
                     // 然后删除关联的内容
@@ -0,0 +1,22 @@
+package org.tinkerhub.offgo.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.tinkerhub.offgo.model.CrowdProfile;
+
+/**
+ * map_road.crowd_profile 列与 {@link CrowdProfile} 之间的转换。
+ */
+@Converter
+public class CrowdProfileConverter implements AttributeConverter<CrowdProfile, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(CrowdProfile profile) {
+        return profile != null ? profile.toBytes() : null;
+    }
+
+    @Override
+    public CrowdProfile convertToEntityAttribute(byte[] bytes) {
+        return bytes != null ? CrowdProfile.wrap(bytes) : null;
+    }
+}
@@ -1,6 +1,9 @@
 package org.tinkerhub.offgo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.tinkerhub.offgo.model.CrowdProfile;
+import org.tinkerhub.offgo.model.Polyline;
 
 @Entity
 @Table(name = "map_road")
@@ -24,12 +27,22 @@ public class MapRoad {
     @Column(name = "path_points", columnDefinition = "TEXT")
     private String pathPoints;
 
+    // 路径点的二进制编码，加载时不需要解析文本
+    @Convert(converter = PolylineConverter.class)
+    @Column(name = "geometry", columnDefinition = "MEDIUMBLOB")
+    private Polyline geometry;
+
     @Column(name = "description")
     private String description;
 
     @Column(name = "crowd_level")
     private Double crowdLevel;
 
+    // 全天拥挤度曲线，为空时全天使用 crowdLevel
+    @Convert(converter = CrowdProfileConverter.class)
+    @Column(name = "crowd_profile", columnDefinition = "BLOB")
+    private CrowdProfile crowdProfile;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -75,8 +88,25 @@ public class MapRoad {
         return pathPoints;
     }
 
+    // 同时更新二进制几何，两列保持一致
     public void setPathPoints(String pathPoints) {
         this.pathPoints = pathPoints;
+        this.geometry = pathPoints != null ? Polyline.parse(pathPoints) : null;
+    }
+
+    // 尚未迁移的旧数据只有 path_points，此时临时解析
+    @JsonIgnore
+    public Polyline getGeometry() {
+        if (geometry == null && pathPoints != null) {
+            return Polyline.parse(pathPoints);
+        }
+        return geometry;
+    }
+
+    // path_points 由几何派生，同时更新，两列保持一致
+    public void setGeometry(Polyline geometry) {
+        this.geometry = geometry;
+        this.pathPoints = geometry != null ? geometry.toPathPoints() : null;
     }
 
     public String getDescription() {
@@ -94,4 +124,13 @@ public class MapRoad {
     public void setCrowdLevel(Double crowdLevel) {
         this.crowdLevel = crowdLevel;
     }
-} 
\ No newline at end of file
+
+    @JsonIgnore
+    public CrowdProfile getCrowdProfile() {
+        return crowdProfile;
+    }
+
+    public void setCrowdProfile(CrowdProfile crowdProfile) {
+        this.crowdProfile = crowdProfile;
+    }
+}
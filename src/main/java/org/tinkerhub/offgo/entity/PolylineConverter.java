@@ -0,0 +1,23 @@
+package org.tinkerhub.offgo.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.tinkerhub.offgo.model.Polyline;
+
+/**
+ * map_road.geometry 列与 {@link Polyline} 之间的转换。
+ * 读取时只包装字节数组，坐标在使用时才按下标换算。
+ */
+@Converter
+public class PolylineConverter implements AttributeConverter<Polyline, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(Polyline polyline) {
+        return polyline != null ? polyline.toBytes() : null;
+    }
+
+    @Override
+    public Polyline convertToEntityAttribute(byte[] bytes) {
+        return bytes != null ? Polyline.wrap(bytes) : null;
+    }
+}
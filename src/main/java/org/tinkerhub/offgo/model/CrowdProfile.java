@@ -0,0 +1,111 @@
+package org.tinkerhub.offgo.model;
+
+import java.util.Arrays;
+
+/**
+ * 道路一天内的拥挤度曲线。
+ * 以 15 分钟为间隔记录 96 个取值，每个取值量化为 1 字节（0 最拥挤，255 最不拥挤），
+ * 相邻取值之间线性插值，23:45 之后与次日 00:00 相接。每条道路固定 96 字节。
+ */
+public final class CrowdProfile {
+    public static final int SLOT_SECONDS = 15 * 60;
+    public static final int SLOTS = 24 * 60 * 60 / SLOT_SECONDS;
+    public static final int DAY_SECONDS = SLOTS * SLOT_SECONDS;
+
+    // 与 TravelMetric 一致，拥挤度下限，保证速度为正
+    private static final double MIN_LEVEL = 0.05;
+
+    private final byte[] bytes;
+
+    private CrowdProfile(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    // 包装已编码的字节，不复制
+    public static CrowdProfile wrap(byte[] bytes) {
+        if (bytes.length != SLOTS) {
+            throw new IllegalArgumentException("Invalid crowd profile length: " + bytes.length);
+        }
+        return new CrowdProfile(bytes);
+    }
+
+    /**
+     * @param levels 从 00:00 起每 15 分钟的拥挤度，取值 0 到 1
+     */
+    public static CrowdProfile of(double[] levels) {
+        if (levels.length != SLOTS) {
+            throw new IllegalArgumentException("Crowd profile needs " + SLOTS + " levels, got " + levels.length);
+        }
+        byte[] bytes = new byte[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            bytes[i] = (byte) Math.round(Math.max(0, Math.min(1, levels[i])) * 255);
+        }
+        return new CrowdProfile(bytes);
+    }
+
+    // 第 slot 个时间点的拥挤度，已按下限截断
+    public double getLevel(int slot) {
+        return Math.max(MIN_LEVEL, (bytes[Math.floorMod(slot, SLOTS)] & 0xff) / 255.0);
+    }
+
+    /**
+     * 给定时刻的拥挤度。
+     * @param second 从当天 00:00 起的秒数，超出一天的部分按次日计算
+     */
+    public double levelAt(double second) {
+        double dayTime = floorMod(second);
+        int slot = (int) (dayTime / SLOT_SECONDS);
+        double ratio = (dayTime - slot * (double) SLOT_SECONDS) / SLOT_SECONDS;
+        return getLevel(slot) + (getLevel(slot + 1) - getLevel(slot)) * ratio;
+    }
+
+    /**
+     * 从 departure 时刻出发、以 maxSpeed × 拥挤度的瞬时速度走完 length 米所需的秒数。
+     * 按速度对时间积分求解，而不是用出发时刻的速度估算整段，
+     * 因此晚出发的不会早到达（FIFO），时间依赖的最短路搜索可以按标签设定方式进行。
+     */
+    public double traverse(double length, double maxSpeed, double departure) {
+        double time = departure;
+        double remaining = length;
+        while (remaining > 0) {
+            double dayTime = floorMod(time);
+            int slot = (int) (dayTime / SLOT_SECONDS);
+            double duration = (slot + 1) * (double) SLOT_SECONDS - dayTime;
+            double startSpeed = maxSpeed * levelAt(time);
+            double endSpeed = maxSpeed * getLevel(slot + 1);
+            double covered = (startSpeed + endSpeed) / 2 * duration;
+            if (covered >= remaining) {
+                // 时段内速度线性变化：a / 2 · t² + v0 · t = remaining
+                double acceleration = (endSpeed - startSpeed) / duration;
+                double root = Math.sqrt(Math.max(0, startSpeed * startSpeed + 2 * acceleration * remaining));
+                time += 2 * remaining / (startSpeed + root);
+                break;
+            }
+            remaining -= covered;
+            time += duration;
+        }
+        return time - departure;
+    }
+
+    private static double floorMod(double second) {
+        double dayTime = second % DAY_SECONDS;
+        return dayTime < 0 ? dayTime + DAY_SECONDS : dayTime;
+    }
+
+    // 编码后的字节，调用方不应修改
+    public byte[] toBytes() {
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(bytes, ((CrowdProfile) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+}
@@ -0,0 +1,40 @@
+package org.tinkerhub.offgo.model;
+
+public class IsochroneRequest {
+    private RouteRequest.Point startPoint;
+    private String transportMode; // 交通方式：walking、bicycle 或 electric
+    private int timeBudget; // 时间上限（秒）
+    private double cellSize; // 可达网格的边长（米），为 0 时使用默认值
+
+    public RouteRequest.Point getStartPoint() {
+        return startPoint;
+    }
+
+    public void setStartPoint(RouteRequest.Point startPoint) {
+        this.startPoint = startPoint;
+    }
+
+    public String getTransportMode() {
+        return transportMode;
+    }
+
+    public void setTransportMode(String transportMode) {
+        this.transportMode = transportMode;
+    }
+
+    public int getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(int timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(double cellSize) {
+        this.cellSize = cellSize;
+    }
+}
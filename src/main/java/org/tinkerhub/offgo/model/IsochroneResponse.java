@@ -0,0 +1,115 @@
+package org.tinkerhub.offgo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可达范围查询的结果。流式输出时每批只包含新增的地点与网格，最后一批带有统计信息。
+ */
+public class IsochroneResponse {
+    private List<ReachableLocation> locations = new ArrayList<>(); // 按到达用时升序
+    private List<RouteResponse.Point> cells = new ArrayList<>(); // 可达网格的中心点
+    private double cellSize; // 网格边长（米）
+    private double reachedTime; // 本批结果已覆盖到的用时（秒）
+    private int settledNodes; // 已确定的路网节点数
+    private boolean truncated; // 是否因节点数上限提前结束
+    private long graphVersion; // 计算所用的路网快照版本
+
+    public static class ReachableLocation {
+        private Long id;
+        private String name;
+        private String type;
+        private double latitude;
+        private double longitude;
+        private double time; // 到达用时（秒），含两端步行接驳
+
+        public ReachableLocation(Long id, String name, String type, double latitude, double longitude, double time) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.time = time;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double getTime() {
+            return time;
+        }
+    }
+
+    public List<ReachableLocation> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<ReachableLocation> locations) {
+        this.locations = locations;
+    }
+
+    public List<RouteResponse.Point> getCells() {
+        return cells;
+    }
+
+    public void setCells(List<RouteResponse.Point> cells) {
+        this.cells = cells;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public double getReachedTime() {
+        return reachedTime;
+    }
+
+    public void setReachedTime(double reachedTime) {
+        this.reachedTime = reachedTime;
+    }
+
+    public int getSettledNodes() {
+        return settledNodes;
+    }
+
+    public void setSettledNodes(int settledNodes) {
+        this.settledNodes = settledNodes;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+
+    public void setGraphVersion(long graphVersion) {
+        this.graphVersion = graphVersion;
+    }
+}
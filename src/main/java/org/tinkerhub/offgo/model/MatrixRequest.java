@@ -0,0 +1,42 @@
+package org.tinkerhub.offgo.model;
+
+import java.util.List;
+
+public class MatrixRequest {
+    private List<RouteRequest.Point> sources;
+    private List<RouteRequest.Point> targets; // 为空时与 sources 相同
+    private String metric; // distance（米）或 time（秒）
+    private String transportMode; // time 度量下的交通方式：walking、bicycle 或 electric
+
+    public List<RouteRequest.Point> getSources() {
+        return sources;
+    }
+
+    public void setSources(List<RouteRequest.Point> sources) {
+        this.sources = sources;
+    }
+
+    public List<RouteRequest.Point> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<RouteRequest.Point> targets) {
+        this.targets = targets;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public String getTransportMode() {
+        return transportMode;
+    }
+
+    public void setTransportMode(String transportMode) {
+        this.transportMode = transportMode;
+    }
+}
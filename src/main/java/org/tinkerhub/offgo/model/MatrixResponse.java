@@ -0,0 +1,58 @@
+package org.tinkerhub.offgo.model;
+
+public class MatrixResponse {
+    private int rows;
+    private int columns;
+    private String metric; // distance 或 time
+    private String unit; // meter 或 second
+    private double[] values; // 按行存放，第 i 行第 j 列为 values[i * columns + j]；不可达为 -1
+    private long graphVersion; // 计算所用的路网快照版本
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int columns) {
+        this.columns = columns;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public void setValues(double[] values) {
+        this.values = values;
+    }
+
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+
+    public void setGraphVersion(long graphVersion) {
+        this.graphVersion = graphVersion;
+    }
+}
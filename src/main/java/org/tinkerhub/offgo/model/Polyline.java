@@ -0,0 +1,118 @@
+package org.tinkerhub.offgo.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * 道路几何的紧凑二进制表示。
+ * 每个点占 8 字节：小端 int32 纬度、经度，单位 1e-7 度（约 1 厘米）。
+ * 从数据库读出的字节数组直接包装为只读视图，按下标取坐标时才换算，不做任何文本解析。
+ */
+public final class Polyline {
+    private static final double SCALE = 1e7;
+    private static final int BYTES_PER_POINT = 8;
+
+    private final byte[] bytes;
+    private final ByteBuffer buffer;
+
+    private Polyline(byte[] bytes) {
+        this.bytes = bytes;
+        this.buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // 包装已编码的字节，不复制
+    public static Polyline wrap(byte[] bytes) {
+        if (bytes.length % BYTES_PER_POINT != 0) {
+            throw new IllegalArgumentException("Invalid polyline length: " + bytes.length);
+        }
+        return new Polyline(bytes);
+    }
+
+    public static Polyline of(double[] latitudes, double[] longitudes) {
+        ByteBuffer buffer = ByteBuffer.allocate(latitudes.length * BYTES_PER_POINT).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < latitudes.length; i++) {
+            buffer.putInt(toE7(latitudes[i]));
+            buffer.putInt(toE7(longitudes[i]));
+        }
+        return new Polyline(buffer.array());
+    }
+
+    /**
+     * 解析旧的 "纬度,经度;纬度,经度;..." 文本格式，跳过缺少逗号或数值无法解析的点。
+     */
+    public static Polyline parse(String pathPoints) {
+        ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        int start = 0;
+        while (start < pathPoints.length()) {
+            int end = pathPoints.indexOf(';', start);
+            if (end < 0) end = pathPoints.length();
+            int comma = pathPoints.indexOf(',', start);
+            if (comma > start && comma < end) {
+                double lat;
+                double lon;
+                try {
+                    lat = Double.parseDouble(pathPoints.substring(start, comma).trim());
+                    lon = Double.parseDouble(pathPoints.substring(comma + 1, end).trim());
+                } catch (NumberFormatException e) {
+                    start = end + 1;
+                    continue;
+                }
+                if (buffer.remaining() < BYTES_PER_POINT) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN)
+                        .put(buffer.flip());
+                }
+                buffer.putInt(toE7(lat));
+                buffer.putInt(toE7(lon));
+            }
+            start = end + 1;
+        }
+        return new Polyline(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    public int size() {
+        return bytes.length / BYTES_PER_POINT;
+    }
+
+    public boolean isEmpty() {
+        return bytes.length == 0;
+    }
+
+    public double getLatitude(int index) {
+        return buffer.getInt(index * BYTES_PER_POINT) / SCALE;
+    }
+
+    public double getLongitude(int index) {
+        return buffer.getInt(index * BYTES_PER_POINT + 4) / SCALE;
+    }
+
+    // 编码后的字节，调用方不应修改
+    public byte[] toBytes() {
+        return bytes;
+    }
+
+    // 转回文本格式，供仍使用 path_points 的接口
+    public String toPathPoints() {
+        StringBuilder builder = new StringBuilder(size() * 24);
+        for (int i = 0; i < size(); i++) {
+            builder.append(getLatitude(i)).append(',').append(getLongitude(i)).append(';');
+        }
+        return builder.toString();
+    }
+
+    private static int toE7(double degrees) {
+        return (int) Math.round(degrees * SCALE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(bytes, ((Polyline) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+}
@@ -0,0 +1,384 @@
+package org.tinkerhub.offgo.model;
+
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 道路网络的只读快照。
+ * 节点使用连续的 int 编号，邻接关系以 CSR（压缩稀疏行）数组存储，
+ * 构建完成后不再修改，可被所有路径规划请求并发共享。
+ */
+public final class RoadGraph {
+    // 与原先 "%.6f,%.6f" 字符串键保持相同的坐标精度
+    private static final double COORDINATE_SCALE = 1e6;
+
+    private final long version;
+    private final long topologyVersion;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] nodeKeys;      // 按坐标键排序，用于二分查找节点
+    private final int[] nodeKeyIds;     // nodeKeys 对应的节点编号
+
+    private final int[] firstEdge;      // 节点 u 的出边为 [firstEdge[u], firstEdge[u + 1])
+    private final int[] edgeTargets;
+    private final double[] edgeLengths; // 单位：米
+    private final int[] edgeRoads;      // 边所属道路在 roads 中的下标
+
+    private final int[] roadFirstNode;  // 道路 r 的折线节点为 roadNodes[roadFirstNode[r] .. roadFirstNode[r + 1])
+    private final int[] roadNodes;
+    private final double[] roadLengths;
+    private final List<MapRoad> roads;
+    private final double[] roadCrowdLevels;
+    private final CrowdProfile[] roadCrowdProfiles; // 没有全天曲线的道路为 null
+
+    // 各度量下的边权，首次使用时计算
+    private final AtomicReferenceArray<double[]> edgeWeights =
+        new AtomicReferenceArray<>(TravelMetric.values().length);
+
+    private RoadGraph(long version, long topologyVersion,
+                      double[] latitudes, double[] longitudes, long[] nodeKeys, int[] nodeKeyIds,
+                      int[] firstEdge, int[] edgeTargets, double[] edgeLengths, int[] edgeRoads,
+                      int[] roadFirstNode, int[] roadNodes, double[] roadLengths,
+                      List<MapRoad> roads, double[] roadCrowdLevels, CrowdProfile[] roadCrowdProfiles) {
+        this.version = version;
+        this.topologyVersion = topologyVersion;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.nodeKeys = nodeKeys;
+        this.nodeKeyIds = nodeKeyIds;
+        this.firstEdge = firstEdge;
+        this.edgeTargets = edgeTargets;
+        this.edgeLengths = edgeLengths;
+        this.edgeRoads = edgeRoads;
+        this.roadFirstNode = roadFirstNode;
+        this.roadNodes = roadNodes;
+        this.roadLengths = roadLengths;
+        this.roads = roads;
+        this.roadCrowdLevels = roadCrowdLevels;
+        this.roadCrowdProfiles = roadCrowdProfiles;
+    }
+
+    public static RoadGraph empty() {
+        return build(Collections.emptyList(), 0);
+    }
+
+    /**
+     * 解析 map_road 表的全部道路，构建新的图快照。
+     * 相邻折线点之间建立双向边，同一对节点之间只保留一条边。
+     */
+    public static RoadGraph build(List<MapRoad> mapRoads, long version) {
+        Map<Long, Integer> nodeIds = new HashMap<>();
+        List<double[]> coordinates = new ArrayList<>();
+        int[] polyline = new int[16];
+        int[] roadFirstNode = new int[mapRoads.size() + 1];
+        int[] roadNodes = new int[64];
+        int roadNodeCount = 0;
+
+        // 每条无向边只记录一次，之后再展开为两个方向
+        Map<Long, Integer> edgeIds = new HashMap<>();
+        int[] edgeFrom = new int[64];
+        int[] edgeTo = new int[64];
+        int[] edgeRoad = new int[64];
+        int undirectedCount = 0;
+
+        for (int r = 0; r < mapRoads.size(); r++) {
+            roadFirstNode[r] = roadNodeCount;
+            Polyline geometry = mapRoads.get(r).getGeometry();
+            if (geometry == null || geometry.isEmpty()) {
+                continue;
+            }
+
+            int length = 0;
+            for (int p = 0; p < geometry.size(); p++) {
+                double lat = geometry.getLatitude(p);
+                double lon = geometry.getLongitude(p);
+                Integer id = nodeIds.get(coordinateKey(lat, lon));
+                if (id == null) {
+                    id = coordinates.size();
+                    nodeIds.put(coordinateKey(lat, lon), id);
+                    coordinates.add(new double[]{lat, lon});
+                }
+                // 跳过连续重复的点，避免产生自环
+                if (length == 0 || polyline[length - 1] != id) {
+                    if (length == polyline.length) polyline = Arrays.copyOf(polyline, length * 2);
+                    polyline[length++] = id;
+                }
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (roadNodeCount == roadNodes.length) roadNodes = Arrays.copyOf(roadNodes, roadNodeCount * 2);
+                roadNodes[roadNodeCount++] = polyline[i];
+                if (i == 0) continue;
+
+                int u = polyline[i - 1];
+                int v = polyline[i];
+                long pairKey = ((long) Math.min(u, v) << 32) | Math.max(u, v);
+                if (edgeIds.putIfAbsent(pairKey, undirectedCount) == null) {
+                    if (undirectedCount == edgeFrom.length) {
+                        edgeFrom = Arrays.copyOf(edgeFrom, undirectedCount * 2);
+                        edgeTo = Arrays.copyOf(edgeTo, undirectedCount * 2);
+                        edgeRoad = Arrays.copyOf(edgeRoad, undirectedCount * 2);
+                    }
+                    edgeFrom[undirectedCount] = u;
+                    edgeTo[undirectedCount] = v;
+                    edgeRoad[undirectedCount] = r;
+                    undirectedCount++;
+                }
+            }
+        }
+        roadFirstNode[mapRoads.size()] = roadNodeCount;
+
+        int nodeCount = coordinates.size();
+        double[] latitudes = new double[nodeCount];
+        double[] longitudes = new double[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            latitudes[i] = coordinates.get(i)[0];
+            longitudes[i] = coordinates.get(i)[1];
+        }
+
+        // 按源节点计数后填充 CSR 数组
+        int[] firstEdge = new int[nodeCount + 1];
+        for (int i = 0; i < undirectedCount; i++) {
+            firstEdge[edgeFrom[i] + 1]++;
+            firstEdge[edgeTo[i] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            firstEdge[i + 1] += firstEdge[i];
+        }
+        int[] cursor = Arrays.copyOf(firstEdge, nodeCount);
+        int[] edgeTargets = new int[undirectedCount * 2];
+        double[] edgeLengths = new double[undirectedCount * 2];
+        int[] edgeRoads = new int[undirectedCount * 2];
+        for (int i = 0; i < undirectedCount; i++) {
+            int u = edgeFrom[i];
+            int v = edgeTo[i];
+            double length = DistanceUtil.calculateDistance(latitudes[u], longitudes[u], latitudes[v], longitudes[v]);
+            int forward = cursor[u]++;
+            edgeTargets[forward] = v;
+            edgeLengths[forward] = length;
+            edgeRoads[forward] = edgeRoad[i];
+            int backward = cursor[v]++;
+            edgeTargets[backward] = u;
+            edgeLengths[backward] = length;
+            edgeRoads[backward] = edgeRoad[i];
+        }
+
+        double[] roadLengths = new double[mapRoads.size()];
+        double[] roadCrowdLevels = new double[mapRoads.size()];
+        CrowdProfile[] roadCrowdProfiles = new CrowdProfile[mapRoads.size()];
+        for (int r = 0; r < mapRoads.size(); r++) {
+            for (int i = roadFirstNode[r] + 1; i < roadFirstNode[r + 1]; i++) {
+                int u = roadNodes[i - 1];
+                int v = roadNodes[i];
+                roadLengths[r] += DistanceUtil.calculateDistance(latitudes[u], longitudes[u], latitudes[v], longitudes[v]);
+            }
+            roadCrowdLevels[r] = crowdLevelOf(mapRoads.get(r));
+            roadCrowdProfiles[r] = mapRoads.get(r).getCrowdProfile();
+        }
+
+        long[] nodeKeys = new long[nodeCount];
+        int[] nodeKeyIds = new int[nodeCount];
+        Integer[] order = new Integer[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(
+            coordinateKey(latitudes[a], longitudes[a]), coordinateKey(latitudes[b], longitudes[b])));
+        for (int i = 0; i < nodeCount; i++) {
+            nodeKeyIds[i] = order[i];
+            nodeKeys[i] = coordinateKey(latitudes[order[i]], longitudes[order[i]]);
+        }
+
+        return new RoadGraph(version, version, latitudes, longitudes, nodeKeys, nodeKeyIds,
+            firstEdge, edgeTargets, edgeLengths, edgeRoads,
+            roadFirstNode, Arrays.copyOf(roadNodes, roadNodeCount), roadLengths,
+            Collections.unmodifiableList(new ArrayList<>(mapRoads)), roadCrowdLevels, roadCrowdProfiles);
+    }
+
+    /**
+     * 以新的道路属性（如拥挤度）生成快照，拓扑数组与当前快照共享。
+     * 如果道路集合、几何或道路类型发生变化则返回 null，调用方应重新完整构建；
+     * 线段索引按道路类型剪枝，类型变化后不能沿用。
+     */
+    public RoadGraph withRoadAttributes(List<MapRoad> updatedRoads, long newVersion) {
+        if (updatedRoads.size() != roads.size()) {
+            return null;
+        }
+        Map<Long, MapRoad> byId = new HashMap<>();
+        for (MapRoad road : updatedRoads) {
+            byId.put(road.getId(), road);
+        }
+        List<MapRoad> mergedRoads = new ArrayList<>(roads.size());
+        double[] crowdLevels = new double[roads.size()];
+        CrowdProfile[] crowdProfiles = new CrowdProfile[roads.size()];
+        for (int r = 0; r < roads.size(); r++) {
+            MapRoad updated = byId.get(roads.get(r).getId());
+            if (updated == null || !sameGeometry(roads.get(r), updated)
+                || !Objects.equals(roads.get(r).getRoadType(), updated.getRoadType())) {
+                return null;
+            }
+            mergedRoads.add(updated);
+            crowdLevels[r] = crowdLevelOf(updated);
+            crowdProfiles[r] = updated.getCrowdProfile();
+        }
+        return new RoadGraph(newVersion, topologyVersion, latitudes, longitudes, nodeKeys, nodeKeyIds,
+            firstEdge, edgeTargets, edgeLengths, edgeRoads,
+            roadFirstNode, roadNodes, roadLengths,
+            Collections.unmodifiableList(mergedRoads), crowdLevels, crowdProfiles);
+    }
+
+    private static boolean sameGeometry(MapRoad a, MapRoad b) {
+        return Objects.equals(a.getGeometry(), b.getGeometry());
+    }
+
+    private static double crowdLevelOf(MapRoad road) {
+        return road.getCrowdLevel() != null ? road.getCrowdLevel() : 1.0;
+    }
+
+    public static long coordinateKey(double latitude, double longitude) {
+        long lat = Math.round(latitude * COORDINATE_SCALE);
+        long lon = Math.round(longitude * COORDINATE_SCALE);
+        return (lat << 32) ^ (lon & 0xffffffffL);
+    }
+
+    // 查找坐标完全重合（6 位小数精度）的节点，不存在时返回 -1
+    public int findNode(double latitude, double longitude) {
+        int index = Arrays.binarySearch(nodeKeys, coordinateKey(latitude, longitude));
+        return index >= 0 ? nodeKeyIds[index] : -1;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    public int getNodeCount() {
+        return latitudes.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    public double getLatitude(int node) {
+        return latitudes[node];
+    }
+
+    public double getLongitude(int node) {
+        return longitudes[node];
+    }
+
+    public int edgeBegin(int node) {
+        return firstEdge[node];
+    }
+
+    public int edgeEnd(int node) {
+        return firstEdge[node + 1];
+    }
+
+    // 边的起点：在 firstEdge 上二分查找第一个边区间结束位置大于 edge 的节点
+    public int getEdgeSource(int edge) {
+        int low = 0, high = getNodeCount() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (firstEdge[mid + 1] > edge) high = mid; else low = mid + 1;
+        }
+        return low;
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public double getEdgeLength(int edge) {
+        return edgeLengths[edge];
+    }
+
+    public int getEdgeRoad(int edge) {
+        return edgeRoads[edge];
+    }
+
+    // 边所属道路的数据库 id
+    public Long getEdgeRoadId(int edge) {
+        return roads.get(edgeRoads[edge]).getId();
+    }
+
+    // 边所属道路的类型，如 primary
+    public String getEdgeRoadType(int edge) {
+        return roads.get(edgeRoads[edge]).getRoadType();
+    }
+
+    // 查找 from -> to 的边，不存在时返回 -1
+    public int findEdge(int from, int to) {
+        for (int e = firstEdge[from]; e < firstEdge[from + 1]; e++) {
+            if (edgeTargets[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    // 指定度量下所有边的权重，下标与边编号一致
+    public double[] getEdgeWeights(TravelMetric metric) {
+        double[] weights = edgeWeights.get(metric.ordinal());
+        if (weights == null) {
+            weights = new double[edgeTargets.length];
+            for (int e = 0; e < weights.length; e++) {
+                weights[e] = metric.edgeWeight(this, e);
+            }
+            edgeWeights.compareAndSet(metric.ordinal(), null, weights);
+            weights = edgeWeights.get(metric.ordinal());
+        }
+        return weights;
+    }
+
+    public int getRoadCount() {
+        return roads.size();
+    }
+
+    public List<MapRoad> getRoads() {
+        return roads;
+    }
+
+    public MapRoad getRoad(int road) {
+        return roads.get(road);
+    }
+
+    public double getRoadLength(int road) {
+        return roadLengths[road];
+    }
+
+    public double getCrowdLevel(int road) {
+        return roadCrowdLevels[road];
+    }
+
+    // 道路的全天拥挤度曲线；没有曲线时返回 null，全天按 getCrowdLevel 计
+    public CrowdProfile getCrowdProfile(int road) {
+        return roadCrowdProfiles[road];
+    }
+
+    public int roadNodeBegin(int road) {
+        return roadFirstNode[road];
+    }
+
+    public int roadNodeEnd(int road) {
+        return roadFirstNode[road + 1];
+    }
+
+    public int getRoadNode(int index) {
+        return roadNodes[index];
+    }
+}
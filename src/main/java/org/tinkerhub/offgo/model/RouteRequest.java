@@ -1,12 +1,17 @@
 package org.tinkerhub.offgo.model;
 
+import java.time.LocalTime;
 import java.util.List;
 
 public class RouteRequest {
     private Point startPoint;
     private List<Point> pathPoints;
     private boolean allowReturn; // 是否允许路径折返
+    private boolean roundTrip; // 是否在访问完所有途经点后回到起点
     private String transportMode; // 交通方式：walking 或 bicycle
+    private String routingEngine; // 搜索引擎：astar、bidirectional 或 ch，为空时使用服务端配置
+    private LocalTime departureTime; // 出发时刻（如 "12:00"），指定时按道路的全天拥挤度曲线规划
+    private int alternatives; // planMulti 额外返回的备选路线数（含最短路径），0 表示不返回
 
     public static class Point {
         private double latitude;
@@ -53,6 +58,14 @@ public class RouteRequest {
         this.allowReturn = allowReturn;
     }
 
+    public boolean isRoundTrip() {
+        return roundTrip;
+    }
+
+    public void setRoundTrip(boolean roundTrip) {
+        this.roundTrip = roundTrip;
+    }
+
     public String getTransportMode() {
         return transportMode;
     }
@@ -60,4 +73,28 @@ public class RouteRequest {
     public void setTransportMode(String transportMode) {
         this.transportMode = transportMode;
     }
-} 
\ No newline at end of file
+
+    public String getRoutingEngine() {
+        return routingEngine;
+    }
+
+    public void setRoutingEngine(String routingEngine) {
+        this.routingEngine = routingEngine;
+    }
+
+    public LocalTime getDepartureTime() {
+        return departureTime;
+    }
+
+    public void setDepartureTime(LocalTime departureTime) {
+        this.departureTime = departureTime;
+    }
+
+    public int getAlternatives() {
+        return alternatives;
+    }
+
+    public void setAlternatives(int alternatives) {
+        this.alternatives = alternatives;
+    }
+}
@@ -0,0 +1,84 @@
+package org.tinkerhub.offgo.model;
+
+/**
+ * 路网边权的度量方式。
+ * DISTANCE 以米为单位，其余按交通方式以秒为单位，速度模型与 RouteService 的用时估算一致。
+ */
+public enum TravelMetric {
+    DISTANCE,
+    WALKING,
+    BICYCLE,
+    ELECTRIC;
+
+    public static final double WALKING_SPEED = 1.4; // 步行速度：1.4米/秒
+    public static final double BICYCLE_SPEED = 4.2; // 自行车速度：4.2米/秒
+    public static final double ELECTRIC_SPEED = 8.0; // 电动车速度：8米/秒
+
+    // 按交通方式选择用时度量
+    public static TravelMetric forMode(String transportMode) {
+        if ("bicycle".equals(transportMode)) {
+            return BICYCLE;
+        }
+        if ("electric".equals(transportMode)) {
+            return ELECTRIC;
+        }
+        return WALKING;
+    }
+
+    public boolean isTimeBased() {
+        return this != DISTANCE;
+    }
+
+    // 该度量下可能达到的最大速度，用于把直线距离换算为可采纳的下界
+    public double getMaxSpeed() {
+        switch (this) {
+            case WALKING:
+                return WALKING_SPEED;
+            case BICYCLE:
+                return BICYCLE_SPEED;
+            case ELECTRIC:
+                return ELECTRIC_SPEED;
+            default:
+                return 1.0;
+        }
+    }
+
+    public double edgeWeight(RoadGraph graph, int edge) {
+        double length = graph.getEdgeLength(edge);
+        if (this == DISTANCE) {
+            return length;
+        }
+        int road = graph.getEdgeRoad(edge);
+        double crowdLevel = Math.max(0.05, Math.min(1.0, graph.getCrowdLevel(road)));
+        switch (this) {
+            case BICYCLE:
+                return length / (BICYCLE_SPEED * crowdLevel);
+            case ELECTRIC:
+                // 电动车只在主干道上行驶，其余道路按步行计算
+                if ("primary".equals(graph.getEdgeRoadType(edge))) {
+                    return length / (ELECTRIC_SPEED * crowdLevel);
+                }
+                return length / WALKING_SPEED;
+            default:
+                return length / WALKING_SPEED;
+        }
+    }
+
+    /**
+     * 从 departure 时刻（当天秒数）进入边 edge、沿其所在道路行驶 length 米的用时。
+     * 道路有全天拥挤度曲线且该度量受拥挤度影响时按曲线积分，否则按快照拥挤度与边权等比例折算。
+     */
+    public double travelTime(RoadGraph graph, int edge, double length, double departure) {
+        if (this == DISTANCE) {
+            return length;
+        }
+        CrowdProfile profile = graph.getCrowdProfile(graph.getEdgeRoad(edge));
+        boolean crowdSensitive = this == BICYCLE
+            || this == ELECTRIC && "primary".equals(graph.getEdgeRoadType(edge));
+        if (profile == null || !crowdSensitive) {
+            double edgeLength = graph.getEdgeLength(edge);
+            return edgeLength > 0 ? edgeWeight(graph, edge) * length / edgeLength : length / WALKING_SPEED;
+        }
+        return profile.traverse(length, this == BICYCLE ? BICYCLE_SPEED : ELECTRIC_SPEED, departure);
+    }
+}
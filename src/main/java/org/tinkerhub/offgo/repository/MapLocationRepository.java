@@ -4,12 +4,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.tinkerhub.offgo.entity.MapLocation;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MapLocationRepository extends JpaRepository<MapLocation, Long> {
     List<MapLocation> findByNameIsNotNull();
     List<MapLocation> findByType(String type);
+    List<MapLocation> findByTypeIn(Collection<String> types);
     List<MapLocation> findByNameIsNull();
     List<MapLocation> findByName(String name);
     List<MapLocation> findByLatitudeAndLongitude(Double latitude, Double longitude);
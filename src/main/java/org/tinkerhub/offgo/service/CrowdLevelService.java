@@ -10,6 +10,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.Transactional;
 import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.CrowdProfile;
 import org.tinkerhub.offgo.repository.MapRoadRepository;
 
 import java.util.List;
@@ -28,6 +29,9 @@ public class CrowdLevelService {
     @Autowired
     private LocationClassificationService locationClassificationService;
 
+    @Autowired
+    private RoadGraphService roadGraphService;
+
     private final Random random = new Random();
 
     // 在应用启动时初始化
@@ -55,7 +59,6 @@ public class CrowdLevelService {
             // 随机初始化拥挤度（0-2）
             int crowdLevel = random.nextInt(3);
             location.setCrowdLevel(crowdLevel);
-            logger.info("位置点 {} 初始化拥挤度为: {}", location.getName(), crowdLevel);
         }
 
         mapLocationRepository.saveAll(locations);
@@ -69,6 +72,7 @@ public class CrowdLevelService {
         List<MapLocation> locations = mapLocationRepository.findByNameIsNotNull();
         logger.info("找到 {} 个命名位置点", locations.size());
 
+        int changedLocations = 0;
         for (MapLocation location : locations) {
             int currentLevel = location.getCrowdLevel();
             // 随机决定是否改变拥挤度（50%概率）
@@ -83,16 +87,14 @@ public class CrowdLevelService {
                 // 只有当变化后的等级与当前等级不同时才更新
                 if (newLevel != currentLevel) {
                     location.setCrowdLevel(newLevel);
-                    logger.info("位置点 {} 拥挤度从 {} 更新为 {}", 
-                        location.getName(), currentLevel, newLevel);
+                    changedLocations++;
                 }
-            } else {
-                logger.info("位置点 {} 拥挤度保持不变: {}", location.getName(), currentLevel);
             }
         }
 
         mapLocationRepository.saveAll(locations);
-        logger.info("拥挤度更新完成");
+        // 逐条记录会在位置点较多时淹没日志，只输出汇总
+        logger.info("拥挤度更新完成，{} 个位置点中 {} 个发生变化", locations.size(), changedLocations);
 
         // 更新道路拥挤度
         List<MapRoad> roads = mapRoadRepository.findAll();
@@ -109,11 +111,9 @@ public class CrowdLevelService {
             newLevel = Math.max(0, Math.min(1, newLevel));
             
             road.setCrowdLevel(newLevel);
-            logger.info("道路 {} 拥挤度从 {} 更新为 {}", 
-                road.getName(), currentLevel, newLevel);
         }
 
-        mapRoadRepository.saveAll(roads);
+        roadGraphService.publishRoads(mapRoadRepository.saveAll(roads));
         logger.info("道路拥挤度更新完成");
     }
 
@@ -128,10 +128,32 @@ public class CrowdLevelService {
             // 随机初始化拥挤度（0-1），0表示最拥挤，1表示最不拥挤
             double crowdLevel = random.nextDouble();
             road.setCrowdLevel(crowdLevel);
-            logger.info("道路 {} 初始化拥挤度为: {}", road.getName(), crowdLevel);
+            if (road.getCrowdProfile() == null) {
+                road.setCrowdProfile(randomProfile(crowdLevel));
+            }
         }
 
-        mapRoadRepository.saveAll(roads);
+        roadGraphService.publishRoads(mapRoadRepository.saveAll(roads));
         logger.info("道路拥挤度初始化完成");
     }
-} 
\ No newline at end of file
+
+    /**
+     * 生成道路的全天拥挤度曲线：上课前、午饭和傍晚三个高峰，
+     * 高峰时拥挤度降到该道路的随机基准值，其余时段接近畅通，并叠加少量随机波动。
+     */
+    private CrowdProfile randomProfile(double crowdLevel) {
+        double[] peaks = {7.75, 12.0, 17.5};
+        double[] levels = new double[CrowdProfile.SLOTS];
+        for (int slot = 0; slot < levels.length; slot++) {
+            double hour = slot * CrowdProfile.SLOT_SECONDS / 3600.0;
+            double peak = 0;
+            for (double center : peaks) {
+                double offset = (hour - center) / 0.75;
+                peak = Math.max(peak, Math.exp(-offset * offset));
+            }
+            double noise = (random.nextDouble() - 0.5) * 0.1;
+            levels[slot] = 1 - (1 - crowdLevel) * peak + noise;
+        }
+        return CrowdProfile.of(levels);
+    }
+}
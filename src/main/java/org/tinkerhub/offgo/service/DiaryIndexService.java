@@ -0,0 +1,136 @@
+package org.tinkerhub.offgo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.tinkerhub.offgo.entity.ContentEntity;
+import org.tinkerhub.offgo.entity.Diary;
+import org.tinkerhub.offgo.repository.ContentRepository;
+import org.tinkerhub.offgo.repository.DiaryRepository;
+import org.tinkerhub.offgo.util.InvertedIndex;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日记全文检索。标题、目的地、简介与正文建一个内存倒排索引，按 BM25 排序，
+ * 启动时从数据库全量构建，之后随日记的保存与删除增量更新。
+ * 在事务中调用 update / remove 时，改动推迟到事务提交之后才应用，事务回滚则不改索引；
+ * 不在事务中时立即应用（此时数据库的写入已自动提交）。
+ */
+@Service
+public class DiaryIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiaryIndexService.class);
+
+    // 字段权重：标题、目的地、简介、正文
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESTINATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 2;
+    private static final int CONTENT_WEIGHT = 1;
+
+    @Autowired
+    private DiaryRepository diaryRepository;
+
+    @Autowired
+    private ContentRepository contentRepository;
+
+    private final InvertedIndex index =
+        new InvertedIndex(TITLE_WEIGHT, DESTINATION_WEIGHT, DESCRIPTION_WEIGHT, CONTENT_WEIGHT);
+    // 已索引的字段，评分、热度等不影响检索的保存不必重新分词
+    private final Map<Integer, Indexed> indexed = new ConcurrentHashMap<>();
+
+    // 正文只记长度与哈希：同一 contentId 的正文被改写时也能发现，又不必在内存中再存一份正文
+    private record Indexed(String title, String destination, String description, Integer contentId,
+                           int contentLength, int contentHash) {
+        static Indexed of(Diary diary, String content) {
+            return new Indexed(diary.getTitle(), diary.getDestination(), diary.getDescription(),
+                diary.getContentId(), content != null ? content.length() : -1, Objects.hashCode(content));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        long start = System.nanoTime();
+        Map<Integer, String> contents = new HashMap<>();
+        for (ContentEntity content : contentRepository.findAll()) {
+            contents.put(content.getId(), content.getContent());
+        }
+        List<Diary> diaries = diaryRepository.findAll();
+        for (Diary diary : diaries) {
+            put(diary, diary.getContentId() != null ? contents.get(diary.getContentId()) : null);
+        }
+        logger.info("日记全文索引构建完成，{} 篇日记，耗时 {} ms", diaries.size(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 按关键词检索，结果按相关度降序；关键词中的每个词（汉字按相邻两字）都须出现。
+     */
+    public List<InvertedIndex.Hit> search(String keyword) {
+        return index.search(keyword);
+    }
+
+    // 日记保存后调用；正文按 contentId 读取，各字段与正文都未变时不重新分词
+    public void update(Diary diary) {
+        if (diary == null || diary.getId() == null) {
+            return;
+        }
+        afterCommit(() -> apply(diary));
+    }
+
+    public void remove(Integer diaryId) {
+        if (diaryId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                indexed.remove(diaryId);
+                index.remove(diaryId);
+            }
+        });
+    }
+
+    // 有活动事务时在提交后执行，否则立即执行
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+            || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private synchronized void apply(Diary diary) {
+        String content = null;
+        if (diary.getContentId() != null) {
+            ContentEntity entity = contentRepository.findById(diary.getContentId().intValue());
+            content = entity != null ? entity.getContent() : null;
+        }
+        if (Indexed.of(diary, content).equals(indexed.get(diary.getId()))) {
+            return;
+        }
+        put(diary, content);
+    }
+
+    private void put(Diary diary, String content) {
+        index.put(diary.getId(), diary.getTitle(), diary.getDestination(), diary.getDescription(), content);
+        indexed.put(diary.getId(), Indexed.of(diary, content));
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -33,6 +33,8 @@ public class DiaryService {
     private final VideoService videoService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private DiaryIndexService diaryIndexService;
 
     public DiaryService(DiaryRepository diaryRepository, ImageRepository imageRepository, 
                        ContentRepository contentRepository, VideoService videoService) {
@@ -61,7 +63,7 @@ public class DiaryService {
         if (tags != null && !tags.isEmpty()) {
             diary.setTags(String.join(",", tags));
         }
-        return diaryRepository.save(diary);
+        return saveDiary(diary);
     }
 
     public int findContentMaxId() {
@@ -77,7 +79,9 @@ public class DiaryService {
     }
 
     public Diary saveDiary(Diary diary) {
-        return diaryRepository.save(diary);
+        Diary saved = diaryRepository.save(diary);
+        diaryIndexService.update(saved);
+        return saved;
     }
 
     public Diary findById(int id) {
@@ -234,6 +238,7 @@ public class DiaryService {
         
         // 删除日记
         diaryRepository.deleteById(id);
+        diaryIndexService.remove(id);
         
         // 如果日记有关联的内容，也删除内容
         if (diary.getContentId() != null) {
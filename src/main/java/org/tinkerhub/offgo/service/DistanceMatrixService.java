@@ -0,0 +1,111 @@
+package org.tinkerhub.offgo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.tinkerhub.offgo.model.MatrixRequest;
+import org.tinkerhub.offgo.model.MatrixResponse;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.RouteRequest;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.DijkstraSearch;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 多对多代价矩阵。
+ * 每个起点只做一次一对多 Dijkstra，所有终点的代价在同一次搜索中得到；
+ * 起点较多时在多个核上并行计算，结果以按行存放的 double 数组返回。
+ */
+@Service
+public class DistanceMatrixService {
+    private static final Logger logger = LoggerFactory.getLogger(DistanceMatrixService.class);
+
+    // 起点数不少于该值时并行计算各行
+    private static final int PARALLEL_THRESHOLD = 4;
+    // 单次请求的矩阵规模上限
+    private static final int MAX_CELLS = 250_000;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    public MatrixResponse compute(MatrixRequest request) {
+        List<RouteRequest.Point> sourcePoints = request.getSources();
+        List<RouteRequest.Point> targetPoints = request.getTargets() == null || request.getTargets().isEmpty()
+            ? sourcePoints
+            : request.getTargets();
+        if (sourcePoints == null || sourcePoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one source is required");
+        }
+        if ((long) sourcePoints.size() * targetPoints.size() > MAX_CELLS) {
+            throw new IllegalArgumentException("Matrix too large: " + sourcePoints.size() + "x" + targetPoints.size());
+        }
+        boolean byTime = "time".equalsIgnoreCase(request.getMetric());
+        TravelMetric metric = byTime ? TravelMetric.forMode(request.getTransportMode()) : TravelMetric.DISTANCE;
+
+        // 整个矩阵使用同一个路网快照
+        RoadGraph graph = roadGraphService.getGraph();
+        GraphLocation[] sources = locateAll(graph, sourcePoints);
+        GraphLocation[] targets = targetPoints == sourcePoints ? sources : locateAll(graph, targetPoints);
+
+        long start = System.nanoTime();
+        double[] values = matrix(graph, metric, sources, targets);
+        logger.info("Computed {}x{} {} matrix on graph v{} in {} ms", sources.length, targets.length,
+            metric, graph.getVersion(), (System.nanoTime() - start) / 1_000_000);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == Double.POSITIVE_INFINITY) {
+                values[i] = -1;
+            }
+        }
+
+        MatrixResponse response = new MatrixResponse();
+        response.setRows(sources.length);
+        response.setColumns(targets.length);
+        response.setMetric(byTime ? "time" : "distance");
+        response.setUnit(byTime ? "second" : "meter");
+        response.setValues(values);
+        response.setGraphVersion(graph.getVersion());
+        return response;
+    }
+
+    /**
+     * 计算起点到终点的门到门代价：路网代价加上两端接驳段
+     * （时间度量下接驳段按步行速度计）。
+     * @return 按行存放的 sources.length × targets.length 矩阵，不可达为正无穷
+     */
+    public double[] matrix(RoadGraph graph, TravelMetric metric, GraphLocation[] sources, GraphLocation[] targets) {
+        double[] weights = graph.getEdgeWeights(metric);
+        double accessSpeed = metric.isTimeBased() ? TravelMetric.WALKING_SPEED : 1;
+        int columns = targets.length;
+        double[] values = new double[sources.length * columns];
+        IntStream rows = IntStream.range(0, sources.length);
+        if (sources.length >= PARALLEL_THRESHOLD) {
+            rows = rows.parallel();
+        }
+        rows.forEach(i -> {
+            GraphLocation source = sources[i];
+            double[] row = DijkstraSearch.oneToMany(graph, weights, source, targets);
+            for (int j = 0; j < columns; j++) {
+                if (targets[j] == source) {
+                    row[j] = 0;
+                } else if (row[j] != Double.POSITIVE_INFINITY) {
+                    row[j] += (source.getAccessDistance() + targets[j].getAccessDistance()) / accessSpeed;
+                }
+            }
+            System.arraycopy(row, 0, values, i * columns, columns);
+        });
+        return values;
+    }
+
+    private GraphLocation[] locateAll(RoadGraph graph, List<RouteRequest.Point> points) {
+        GraphLocation[] locations = new GraphLocation[points.size()];
+        for (int i = 0; i < locations.length; i++) {
+            RouteRequest.Point point = points.get(i);
+            locations[i] = roadGraphService.locate(graph, point.getLatitude(), point.getLongitude());
+        }
+        return locations;
+    }
+}
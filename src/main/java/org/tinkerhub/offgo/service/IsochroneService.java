@@ -0,0 +1,222 @@
+package org.tinkerhub.offgo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.tinkerhub.offgo.entity.MapLocation;
+import org.tinkerhub.offgo.model.IsochroneRequest;
+import org.tinkerhub.offgo.model.IsochroneResponse;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.RouteResponse;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.repository.MapLocationRepository;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.IsochroneSearch;
+import org.tinkerhub.offgo.service.routing.TargetFrontier;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 可达范围查询：给定起点、交通方式和时间上限，返回可到达的命名地点与可达网格。
+ * 只做一次有界 Dijkstra，节点确定后立即转换为地点与网格，按用时分批输出；
+ * 内存占用由已确定节点数上限约束。
+ */
+@Service
+public class IsochroneService {
+    private static final Logger logger = LoggerFactory.getLogger(IsochroneService.class);
+
+    // 单次查询的时间上限与已确定节点数上限
+    private static final int MAX_TIME_BUDGET = 3600;
+    private static final int MAX_SETTLED_NODES = 200_000;
+    private static final double DEFAULT_CELL_SIZE = 50;
+    private static final double MIN_CELL_SIZE = 10;
+    // 流式输出时每多覆盖这么多秒的用时推送一批
+    private static final double BATCH_SECONDS = 30;
+    // 地点的吸附结果按拓扑缓存，并定期刷新以反映地点表的修改
+    private static final long LOCATION_INDEX_TTL_NANOS = 60_000_000_000L;
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    @Autowired
+    private RoadGraphService roadGraphService;
+
+    @Autowired
+    private MapLocationRepository mapLocationRepository;
+
+    private volatile LocationIndex locationIndex;
+
+    // 一次性返回完整结果
+    public IsochroneResponse compute(IsochroneRequest request) {
+        IsochroneResponse result = new IsochroneResponse();
+        compute(request, batch -> {
+            result.getLocations().addAll(batch.getLocations());
+            result.getCells().addAll(batch.getCells());
+            result.setCellSize(batch.getCellSize());
+            result.setReachedTime(batch.getReachedTime());
+            result.setSettledNodes(batch.getSettledNodes());
+            result.setTruncated(batch.isTruncated());
+            result.setGraphVersion(batch.getGraphVersion());
+        });
+        return result;
+    }
+
+    /**
+     * 边搜索边把新增结果交给 sink，最后一批带有已确定节点数与是否截断。
+     * @throws IllegalArgumentException 起点缺失或时间上限不在 (0, 3600] 秒内时
+     */
+    public void compute(IsochroneRequest request, Consumer<IsochroneResponse> sink) {
+        if (request.getStartPoint() == null) {
+            throw new IllegalArgumentException("Start point is required");
+        }
+        if (request.getTimeBudget() <= 0 || request.getTimeBudget() > MAX_TIME_BUDGET) {
+            throw new IllegalArgumentException("Time budget must be between 1 and " + MAX_TIME_BUDGET + " seconds");
+        }
+        double cellSize = request.getCellSize() > 0 ? Math.max(MIN_CELL_SIZE, request.getCellSize()) : DEFAULT_CELL_SIZE;
+        TravelMetric metric = TravelMetric.forMode(request.getTransportMode());
+
+        RoadGraph graph = roadGraphService.getGraph();
+        GraphLocation start = roadGraphService.locate(graph,
+            request.getStartPoint().getLatitude(), request.getStartPoint().getLongitude());
+        long begin = System.nanoTime();
+        Frontier frontier = new Frontier(graph, graph.getEdgeWeights(metric), start, locationIndex(graph),
+            request.getTimeBudget(), cellSize, sink);
+        boolean complete = frontier.limit < 0 || IsochroneSearch.run(graph, frontier.weights, start,
+            frontier.limit, MAX_SETTLED_NODES, frontier);
+        frontier.finish(!complete);
+        logger.info("Isochrone of {} s by {} reached {} locations and {} cells over {} nodes in {} ms",
+            request.getTimeBudget(), metric, frontier.locationCount, frontier.cells.size(), frontier.settledNodes,
+            (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    // 与快照拓扑一致、且未过期的地点索引
+    private LocationIndex locationIndex(RoadGraph graph) {
+        LocationIndex index = locationIndex;
+        if (index == null || index.topologyVersion != graph.getTopologyVersion()
+            || System.nanoTime() - index.builtAt > LOCATION_INDEX_TTL_NANOS) {
+            index = new LocationIndex(graph, mapLocationRepository.findByNameIsNotNull());
+            locationIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * 命名地点到路网的吸附结果，按所在边的端点分组，节点确定时直接取出相关地点。
+     */
+    private final class LocationIndex {
+        final long topologyVersion;
+        final long builtAt = System.nanoTime();
+        final List<MapLocation> locations;
+        final TargetFrontier.Targets targets;
+
+        LocationIndex(RoadGraph graph, List<MapLocation> all) {
+            topologyVersion = graph.getTopologyVersion();
+            locations = new ArrayList<>();
+            List<GraphLocation> located = new ArrayList<>();
+            for (MapLocation location : all) {
+                if (location.getLatitude() == null || location.getLongitude() == null || graph.getEdgeCount() == 0) {
+                    continue;
+                }
+                locations.add(location);
+                located.add(roadGraphService.locate(graph, location.getLatitude(), location.getLongitude()));
+            }
+            targets = new TargetFrontier.Targets(located.toArray(new GraphLocation[0]));
+        }
+    }
+
+    /**
+     * 搜索监听器：把确定的节点转换为可达网格，地点由 {@link TargetFrontier} 按用时顺序输出。
+     */
+    private static final class Frontier implements IsochroneSearch.Listener {
+        final RoadGraph graph;
+        final double[] weights;
+        final List<MapLocation> locations;
+        final TargetFrontier targets;
+        final double budget;
+        final double startAccess; // 起点步行接驳用时
+        final double limit; // 路网上可用的时间
+        final double cellSize;
+        final double latStep;
+        final double lonStep;
+        final Consumer<IsochroneResponse> sink;
+
+        final Set<Long> cells = new HashSet<>();
+        IsochroneResponse batch = new IsochroneResponse();
+        double nextFlush = BATCH_SECONDS;
+        int settledNodes;
+        int locationCount;
+
+        Frontier(RoadGraph graph, double[] weights, GraphLocation start, LocationIndex index, double budget,
+                 double cellSize, Consumer<IsochroneResponse> sink) {
+            this.graph = graph;
+            this.weights = weights;
+            this.locations = index.locations;
+            this.targets = new TargetFrontier(index.targets, weights, start, budget, this::emit);
+            this.budget = budget;
+            this.startAccess = targets.getStartAccess();
+            this.limit = targets.getNetworkLimit();
+            this.cellSize = cellSize;
+            this.latStep = cellSize / METERS_PER_DEGREE;
+            this.lonStep = cellSize / (METERS_PER_DEGREE * Math.cos(Math.toRadians(start.getSnappedLatitude())));
+            this.sink = sink;
+            if (limit >= 0) {
+                markCell(start.getSnappedLatitude(), start.getSnappedLongitude());
+            }
+        }
+
+        @Override
+        public boolean settled(int node, double cost) {
+            settledNodes++;
+            targets.settled(node, cost);
+            markCell(graph.getLatitude(node), graph.getLongitude(node));
+            // 走不完的边标记能走到的最远点
+            for (int e = graph.edgeBegin(node); e < graph.edgeEnd(node); e++) {
+                if (cost + weights[e] > limit && weights[e] > 0) {
+                    int v = graph.getEdgeTarget(e);
+                    double fraction = (limit - cost) / weights[e];
+                    markCell(graph.getLatitude(node) + (graph.getLatitude(v) - graph.getLatitude(node)) * fraction,
+                        graph.getLongitude(node) + (graph.getLongitude(v) - graph.getLongitude(node)) * fraction);
+                }
+            }
+            if (cost + startAccess >= nextFlush) {
+                flush(cost + startAccess);
+                nextFlush = cost + startAccess + BATCH_SECONDS;
+            }
+            return true;
+        }
+
+        void finish(boolean truncated) {
+            targets.finish();
+            batch.setSettledNodes(settledNodes);
+            batch.setTruncated(truncated);
+            flush(budget);
+        }
+
+        private void emit(int i, double arrival) {
+            locationCount++;
+            MapLocation location = locations.get(i);
+            batch.getLocations().add(new IsochroneResponse.ReachableLocation(location.getId(),
+                location.getName(), location.getType(), location.getLatitude(), location.getLongitude(),
+                Math.round(arrival * 10) / 10.0));
+        }
+
+        private void markCell(double latitude, double longitude) {
+            long row = (long) Math.floor(latitude / latStep);
+            long column = (long) Math.floor(longitude / lonStep);
+            if (cells.add((row << 32) ^ (column & 0xffffffffL))) {
+                batch.getCells().add(new RouteResponse.Point((row + 0.5) * latStep, (column + 0.5) * lonStep));
+            }
+        }
+
+        private void flush(double reached) {
+            batch.setCellSize(cellSize);
+            batch.setReachedTime(Math.min(reached, budget));
+            batch.setGraphVersion(graph.getVersion());
+            sink.accept(batch);
+            batch = new IsochroneResponse();
+        }
+    }
+}
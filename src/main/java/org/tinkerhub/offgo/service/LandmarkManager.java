@@ -1,170 +1,217 @@
 package org.tinkerhub.offgo.service;
 
-import org.springframework.cache.annotation.Cacheable;
-import org.tinkerhub.offgo.model.Road;
-import org.tinkerhub.offgo.model.Intersection;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.ArtifactReader;
+import org.tinkerhub.offgo.service.routing.ArtifactWriter;
+import org.tinkerhub.offgo.service.routing.DijkstraSearch;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.Heuristic;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * ALT（A*、Landmark、三角不等式）启发式。
+ * 地标到各节点的最短距离按节点编号存放在 float[L][N] 数组中，
+ * 查询时只做数组读取，不再经过字符串键与缓存。
+ */
 public class LandmarkManager {
     private static final Logger logger = LoggerFactory.getLogger(LandmarkManager.class);
     private static final int NUM_LANDMARKS = 16; // 地标点数量
-    private final Map<Long, Map<Long, Double>> landmarkDistances; // 地标点到其他点的距离
-    private final List<Long> landmarks; // 地标点ID列表
-    private final Map<Long, Intersection> intersections; // 所有交叉口
-    private final Map<Long, Road> roads; // 所有道路
-    private final Map<String, Double> heuristicCache;
-
-    public LandmarkManager(Map<Long, Intersection> intersections, Map<Long, Road> roads) {
-        this.intersections = intersections;
-        this.roads = roads;
-        this.landmarks = new ArrayList<>();
-        this.landmarkDistances = new ConcurrentHashMap<>();
-        this.heuristicCache = new ConcurrentHashMap<>();
-        selectLandmarks();
-        precomputeDistances();
-        logger.info("Initialized LandmarkManager with {} landmarks", landmarks.size());
-    }
 
-    // 选择地标点（使用最大最小距离策略）
-    private void selectLandmarks() {
-        if (intersections.isEmpty()) return;
+    private final RoadGraph graph;
+    private final int[] landmarks; // 地标节点编号
+    private final float[][] fromLandmark; // fromLandmark[i][v]：地标 i 到 v 的距离（米）
+    private final float[][] toLandmark;   // toLandmark[i][v]：v 到地标 i 的距离（米）
 
-        // 随机选择第一个地标点
-        List<Long> allNodes = new ArrayList<>(intersections.keySet());
-        Random random = new Random();
-        landmarks.add(allNodes.get(random.nextInt(allNodes.size())));
-
-        // 使用最大最小距离策略选择剩余地标点
-        while (landmarks.size() < NUM_LANDMARKS) {
-            double maxMinDist = -1;
-            Long bestLandmark = null;
+    public LandmarkManager(RoadGraph graph) {
+        this(graph, NUM_LANDMARKS);
+    }
 
-            for (Long node : allNodes) {
-                if (landmarks.contains(node)) continue;
+    public LandmarkManager(RoadGraph graph, int landmarkCount) {
+        this.graph = graph;
+        this.landmarks = selectLandmarks(Math.min(landmarkCount, graph.getNodeCount()));
+        this.fromLandmark = new float[landmarks.length][];
+        precomputeDistances();
+        // 路网为无向图，正向与反向距离相同，两个方向共享同一组数组
+        this.toLandmark = fromLandmark;
+        logger.info("Initialized LandmarkManager with {} landmarks over {} nodes",
+            landmarks.length, graph.getNodeCount());
+    }
 
-                // 计算到已选地标点的最小距离
-                double minDist = Double.MAX_VALUE;
-                for (Long landmark : landmarks) {
-                    double dist = calculateDirectDistance(node, landmark);
-                    minDist = Math.min(minDist, dist);
-                }
+    private LandmarkManager(RoadGraph graph, int[] landmarks, float[][] distances) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = distances;
+        this.toLandmark = distances;
+    }
 
-                if (minDist > maxMinDist) {
-                    maxMinDist = minDist;
-                    bestLandmark = node;
-                }
+    /**
+     * 读取 {@link #writeTo} 写出的地标与距离表。
+     * @param graph 与写出时拓扑相同的路网快照
+     */
+    public static LandmarkManager readFrom(ArtifactReader in, RoadGraph graph) throws IOException {
+        int[] landmarks = in.readInts();
+        ArtifactReader.requireRange(landmarks, 0, graph.getNodeCount(), "Landmark");
+        float[][] distances = new float[landmarks.length][];
+        for (int i = 0; i < landmarks.length; i++) {
+            distances[i] = in.readFloats();
+            if (distances[i].length != graph.getNodeCount()) {
+                throw new IOException("Landmark distances do not match the road graph");
             }
+        }
+        logger.info("Loaded {} landmarks over {} nodes", landmarks.length, graph.getNodeCount());
+        return new LandmarkManager(graph, landmarks, distances);
+    }
 
-            if (bestLandmark != null) {
-                landmarks.add(bestLandmark);
-            }
+    public void writeTo(ArtifactWriter out) throws IOException {
+        out.writeInts(landmarks);
+        for (float[] distances : fromLandmark) {
+            out.writeFloats(distances);
         }
     }
 
-    // 预计算所有地标点到其他点的最短路径
-    private void precomputeDistances() {
-        landmarks.parallelStream().forEach(landmark -> {
-            Map<Long, Double> distances = new ConcurrentHashMap<>();
-            Map<Long, Double> tempDistances = new HashMap<>();
-            PriorityQueue<Map.Entry<Long, Double>> pq = new PriorityQueue<>(
-                Map.Entry.comparingByValue()
-            );
-
-            // 初始化距离
-            for (Long node : intersections.keySet()) {
-                tempDistances.put(node, Double.MAX_VALUE);
+    /**
+     * 平面（planar）地标选择：以路网中心为原点把平面均分为若干扇区，
+     * 每个扇区取距中心最远的节点，使地标均匀分布在路网外围。
+     * 只在最大连通分量内选择，避免地标落在孤立的小路段上。
+     */
+    private int[] selectLandmarks(int count) {
+        if (count == 0) return new int[0];
+
+        int n = graph.getNodeCount();
+        boolean[] candidate = largestComponent();
+        double centerLat = 0, centerLon = 0;
+        int members = 0;
+        for (int v = 0; v < n; v++) {
+            if (!candidate[v]) continue;
+            centerLat += graph.getLatitude(v);
+            centerLon += graph.getLongitude(v);
+            members++;
+        }
+        centerLat /= members;
+        centerLon /= members;
+        double lonScale = Math.cos(Math.toRadians(centerLat));
+
+        int[] best = new int[count];
+        double[] bestDistance = new double[count];
+        Arrays.fill(best, -1);
+        for (int v = 0; v < n; v++) {
+            if (!candidate[v]) continue;
+            double dy = graph.getLatitude(v) - centerLat;
+            double dx = (graph.getLongitude(v) - centerLon) * lonScale;
+            double angle = Math.atan2(dy, dx) + Math.PI;
+            int sector = Math.min(count - 1, (int) (angle / (2 * Math.PI) * count));
+            double distance = dx * dx + dy * dy;
+            if (best[sector] < 0 || distance > bestDistance[sector]) {
+                best[sector] = v;
+                bestDistance[sector] = distance;
             }
-            tempDistances.put(landmark, 0.0);
-            pq.offer(new AbstractMap.SimpleEntry<>(landmark, 0.0));
-
-            // Dijkstra算法
-            while (!pq.isEmpty()) {
-                Map.Entry<Long, Double> current = pq.poll();
-                Long node = current.getKey();
-                double dist = current.getValue();
-
-                if (dist > tempDistances.get(node)) continue;
-
-                Intersection intersection = intersections.get(node);
-                if (intersection == null) continue;
-
-                // 遍历所有相邻节点
-                for (Long roadId : intersection.getConnectedRoads()) {
-                    Road road = roads.get(roadId);
-                    if (road == null) continue;
-
-                    // 获取道路连接的另一个交叉口
-                    Long neighbor = road.getIntersections().stream()
-                        .filter(id -> !id.equals(node))
-                        .findFirst()
-                        .orElse(null);
-                    
-                    if (neighbor == null) continue;
-
-                    double newDist = dist + road.getLength();
-                    if (newDist < tempDistances.get(neighbor)) {
-                        tempDistances.put(neighbor, newDist);
-                        pq.offer(new AbstractMap.SimpleEntry<>(neighbor, newDist));
+        }
+        return Arrays.stream(best).filter(v -> v >= 0).toArray();
+    }
+
+    // 标记最大连通分量中的节点
+    private boolean[] largestComponent() {
+        int n = graph.getNodeCount();
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int[] stack = new int[n];
+        int bestComponent = -1, bestSize = 0, components = 0;
+        for (int root = 0; root < n; root++) {
+            if (component[root] >= 0) continue;
+            int size = 0, top = 0;
+            stack[top++] = root;
+            component[root] = components;
+            while (top > 0) {
+                int u = stack[--top];
+                size++;
+                for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                    int v = graph.getEdgeTarget(e);
+                    if (component[v] < 0) {
+                        component[v] = components;
+                        stack[top++] = v;
                     }
                 }
             }
+            if (size > bestSize) {
+                bestSize = size;
+                bestComponent = components;
+            }
+            components++;
+        }
+        boolean[] result = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            result[v] = component[v] == bestComponent;
+        }
+        return result;
+    }
 
-            // 保存计算结果
-            distances.putAll(tempDistances);
-            landmarkDistances.put(landmark, distances);
+    // 在真实的线段图上为每个地标运行 Dijkstra
+    private void precomputeDistances() {
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        IntStream.range(0, landmarks.length).parallel().forEach(i -> {
+            double[] distances = DijkstraSearch.oneToAll(graph, weights, landmarks[i]);
+            float[] compact = new float[distances.length];
+            for (int v = 0; v < distances.length; v++) {
+                compact[v] = (float) distances[v];
+            }
+            fromLandmark[i] = compact;
         });
-        
         logger.info("Precomputed distances for all landmarks");
     }
 
-    // 计算两点间的直线距离（用于选择地标点）
-    private double calculateDirectDistance(Long node1, Long node2) {
-        Intersection i1 = intersections.get(node1);
-        Intersection i2 = intersections.get(node2);
-        if (i1 == null || i2 == null) return Double.MAX_VALUE;
-
-        double dx = i1.getX() - i2.getX();
-        double dy = i1.getY() - i2.getY();
-        return Math.sqrt(dx * dx + dy * dy);
+    /**
+     * 利用三角不等式估计 from 到 to 的最短距离下界（米）：
+     * d(from, to) >= d(L, to) - d(L, from) 且 d(from, to) >= d(from, L) - d(to, L)。
+     * 距离以 float 存储，每个值的舍入误差不超过其 float ulp 的一半，
+     * 因此差值在 double 中精确计算后再减去较大操作数的一个 ulp，结果仍是下界。
+     */
+    public double getHeuristic(int from, int to) {
+        double maxDist = 0;
+        for (int i = 0; i < landmarks.length; i++) {
+            float fromFrom = fromLandmark[i][from];
+            float fromTo = fromLandmark[i][to];
+            float toFrom = toLandmark[i][from];
+            float toTo = toLandmark[i][to];
+            // 与地标不连通时该地标不提供信息
+            if (fromFrom == Float.POSITIVE_INFINITY || fromTo == Float.POSITIVE_INFINITY) continue;
+            maxDist = Math.max(maxDist, lowerBound(fromTo, fromFrom));
+            maxDist = Math.max(maxDist, lowerBound(toFrom, toTo));
+        }
+        return maxDist;
     }
 
-    // 获取Landmark启发式估计值，使用缓存
-    @Cacheable(value = "heuristicCache", key = "#from + '->' + #to")
-    public double getHeuristic(Long from, Long to) {
-        String cacheKey = from + "->" + to;
-        return heuristicCache.computeIfAbsent(cacheKey, k -> {
-            double maxDist = 0;
-            for (Long landmark : landmarks) {
-                Map<Long, Double> distances = landmarkDistances.get(landmark);
-                if (distances == null) continue;
-
-                Double distToLandmark = distances.get(from);
-                Double distFromLandmark = distances.get(to);
-                if (distToLandmark == null || distFromLandmark == null) continue;
-
-                // 使用三角不等式
-                maxDist = Math.max(maxDist, Math.abs(distToLandmark - distFromLandmark));
-            }
-            logger.debug("Calculated new heuristic for {}: {}", cacheKey, maxDist);
-            return maxDist;
-        });
+    // a - b 的下界，a、b 为舍入到 float 的非负距离
+    private static double lowerBound(float a, float b) {
+        return ((double) a - b) - Math.ulp(Math.max(a, b));
     }
 
-    // 获取所有地标点
-    public List<Long> getLandmarks() {
-        return Collections.unmodifiableList(landmarks);
+    /**
+     * 面向吸附位置的估价函数：目标为投影所在边的两个端点，
+     * 取两端估计值加上端点到投影点代价后的较小者；时间度量下按最大速度换算。
+     * queryGraph 须与地标所用快照拓扑相同，其拥挤度可以不同。
+     */
+    public Heuristic heuristicTo(RoadGraph queryGraph, GraphLocation target, TravelMetric metric) {
+        double[] weights = queryGraph.getEdgeWeights(metric);
+        int targetA = target.getFromNode();
+        int targetB = target.getToNode();
+        double offsetA = target.costToFrom(weights);
+        double offsetB = target.costToTo(weights);
+        double scale = 1 / metric.getMaxSpeed();
+        return node -> Math.min(getHeuristic(node, targetA) * scale + offsetA,
+            getHeuristic(node, targetB) * scale + offsetB);
     }
 
-    // 获取交叉口
-    public Intersection getIntersection(Long id) {
-        return intersections.get(id);
+    public RoadGraph getGraph() {
+        return graph;
     }
 
-    // 获取道路
-    public Road getRoad(Long id) {
-        return roads.get(id);
+    // 获取所有地标点
+    public int[] getLandmarks() {
+        return landmarks.clone();
     }
-} 
\ No newline at end of file
+}
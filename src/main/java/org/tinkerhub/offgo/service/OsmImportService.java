@@ -22,6 +22,9 @@ public class OsmImportService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private RoadGraphService roadGraphService;
+
     @Transactional
     public void importOsmData(String osmFilePath) throws ParserConfigurationException, IOException, SAXException {
         try {
@@ -69,13 +72,14 @@ public class OsmImportService {
                 try {
                     if (road.getRoadType() == null) {
                         jdbcTemplate.update(
-                            "INSERT INTO map_road (id, name, road_type, start_point_id, end_point_id, path_points) VALUES (?, ?, ?, ?, ?, ?)",
+                            "INSERT INTO map_road (id, name, road_type, start_point_id, end_point_id, path_points, geometry) VALUES (?, ?, ?, ?, ?, ?, ?)",
                             road.getId(),
                             road.getName(),
                             road.getRoadType(),
                             road.getStartPointId(),
                             road.getEndPointId(),
-                            road.getPathPoints()
+                            road.getPathPoints(),
+                            road.getGeometry() != null ? road.getGeometry().toBytes() : null
                         );
                     }
                 } catch (Exception e) {
@@ -84,6 +88,9 @@ public class OsmImportService {
                 }
             }
             logger.info("Road data imported successfully");
+
+            // 道路数据变化后重建路网快照
+            roadGraphService.rebuild();
             
         } catch (Exception e) {
             logger.error("Error during OSM data import", e);
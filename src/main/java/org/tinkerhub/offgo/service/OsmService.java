@@ -1,125 +1,191 @@
 package org.tinkerhub.offgo.service;
 
 import org.springframework.stereotype.Service;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tinkerhub.offgo.entity.MapLocation;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.repository.MapLocationRepository;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.IsochroneSearch;
+import org.tinkerhub.offgo.service.routing.TargetFrontier;
+import org.tinkerhub.offgo.util.DistanceUtil;
+import org.tinkerhub.offgo.util.KdTree;
 
 import java.util.*;
 
+/**
+ * 周边服务设施查询。
+ * 每种服务类型的地点建一棵 KD 树，按直线距离查询时只访问半径附近的点；
+ * 按步行距离查询时，从用户的吸附位置做一次有界 Dijkstra，按实际步行用时取最近的若干个。
+ * 索引按地点表定期重建，查询耗时与表的规模无关。
+ */
 @Service
 public class OsmService {
 
     private static final Logger logger = LoggerFactory.getLogger(OsmService.class);
 
+    // 服务类型
+    private static final List<String> SERVICE_TYPES = List.of(
+        "洗手间", "理发店", "快餐", "食堂", "药店", "咖啡厅",
+        "超市", "自动贩卖机", "小卖铺", "商店", "花店"
+    );
+    // 地点表的修改分散在多个服务中，索引过期后下次查询时重建
+    private static final long INDEX_TTL_NANOS = 60_000_000_000L;
+    private static final int DEFAULT_WALKING_LIMIT = 20;
+    private static final int MAX_SETTLED_NODES = 200_000;
+
     @Autowired
-    private JdbcTemplate jdbcTemplate;
+    private MapLocationRepository mapLocationRepository;
 
     @Autowired
-    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private RoadGraphService roadGraphService;
 
-    public List<Map<String, Object>> findNearbyServices(double latitude, double longitude, double radius) {
-        // 定义服务类型
-        List<String> serviceTypes = Arrays.asList(
-            "洗手间", "理发店", "快餐", "食堂", "药店", "咖啡厅",
-            "超市", "自动贩卖机", "小卖铺", "商店", "花店"
-        );
+    private volatile ServiceIndex serviceIndex;
 
+    /**
+     * 直线距离 radius 米以内的服务设施，按距离升序，distance 为直线距离（米）。
+     */
+    public List<Map<String, Object>> findNearbyServices(double latitude, double longitude, double radius) {
         logger.info("开始查询周边服务设施 - 位置: ({}, {}), 半径: {}米", latitude, longitude, radius);
-        logger.info("服务类型: {}", serviceTypes);
-
-        // 构建SQL查询（MySQL版本，使用Haversine公式计算距离）
-        String sql = """
-            SELECT 
-                id,
-                name,
-                type,
-                latitude,
-                longitude,
-                (
-                    6371000 * 2 * ASIN(
-                        SQRT(
-                            POWER(SIN((latitude - :latitude) * PI() / 180 / 2), 2) +
-                            COS(latitude * PI() / 180) * COS(:latitude * PI() / 180) *
-                            POWER(SIN((longitude - :longitude) * PI() / 180 / 2), 2)
-                        )
-                    )
-                ) AS distance
-            FROM map_location
-            WHERE type IN (:serviceTypes)
-            HAVING distance <= :radius
-            ORDER BY distance
-        """;
-        logger.info("SQL查询语句: {}", sql);
-        // 设置参数
-        MapSqlParameterSource params = new MapSqlParameterSource()
-            .addValue("latitude", latitude)
-            .addValue("longitude", longitude)
-            .addValue("serviceTypes", serviceTypes)
-            .addValue("radius", radius);
-        logger.info("查询参数: {}", params.getValues());
-        try {
-            // 执行查询
-            List<Map<String, Object>> results = namedParameterJdbcTemplate.queryForList(sql, params);
-            logger.info("查询成功，找到 {} 个服务设施", results.size());
-            for (Map<String, Object> service : results) {
-                String type = (String) service.get("type");
-                service.put("icon", generateServiceIcon(type));
+        List<Candidate> candidates = withinRadius(latitude, longitude, radius);
+        candidates.sort(Comparator.comparingDouble(candidate -> candidate.distance));
+        List<Map<String, Object>> results = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            results.add(toResult(candidate.location, candidate.distance, null));
+        }
+        logger.info("查询成功，找到 {} 个服务设施", results.size());
+        return results;
+    }
+
+    /**
+     * 步行距离 radius 米以内、步行用时最短的至多 limit 个服务设施，按用时升序。
+     * distance 为步行距离（米），walkingTime 为步行用时（秒），均包含起终点到道路的接驳。
+     * 步行距离不小于直线距离，因此只需考虑直线距离在半径内的设施。
+     */
+    public List<Map<String, Object>> findNearbyServicesByWalking(double latitude, double longitude, double radius,
+                                                                 int limit) {
+        logger.info("开始按步行距离查询周边服务设施 - 位置: ({}, {}), 半径: {}米", latitude, longitude, radius);
+        int wanted = limit > 0 ? limit : DEFAULT_WALKING_LIMIT;
+        List<Candidate> candidates = withinRadius(latitude, longitude, radius);
+        RoadGraph graph = roadGraphService.getGraph();
+        if (candidates.isEmpty() || graph.getEdgeCount() == 0) {
+            return new ArrayList<>();
+        }
+
+        GraphLocation start = roadGraphService.locate(graph, latitude, longitude);
+        double[] weights = graph.getEdgeWeights(TravelMetric.WALKING);
+        GraphLocation[] snapped = new GraphLocation[candidates.size()];
+        for (Candidate candidate : candidates) {
+            snapped[candidate.index] = roadGraphService.locate(graph,
+                candidate.location.getLatitude(), candidate.location.getLongitude());
+        }
+        // 按步行用时顺序输出，凑够 wanted 个即停止搜索
+        List<Map<String, Object>> results = new ArrayList<>();
+        TargetFrontier frontier = new TargetFrontier(new TargetFrontier.Targets(snapped), weights, start,
+            radius / TravelMetric.WALKING_SPEED, (index, time) -> {
+                if (results.size() < wanted) {
+                    results.add(toResult(candidates.get(index).location, time * TravelMetric.WALKING_SPEED, time));
+                }
+            });
+        if (frontier.getNetworkLimit() >= 0) {
+            IsochroneSearch.run(graph, weights, start, frontier.getNetworkLimit(), MAX_SETTLED_NODES,
+                (node, cost) -> {
+                    frontier.settled(node, cost);
+                    return results.size() < wanted;
+                });
+        }
+        frontier.finish();
+        logger.info("查询成功，{} 个候选中找到 {} 个步行可达的服务设施", candidates.size(), results.size());
+        return results;
+    }
+
+    // 各类型 KD 树中直线距离在半径内的设施
+    private List<Candidate> withinRadius(double latitude, double longitude, double radius) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (TypeBucket bucket : serviceIndex().buckets.values()) {
+            for (int i : bucket.tree.within(latitude, longitude, radius)) {
+                MapLocation location = bucket.locations.get(i);
+                double distance = DistanceUtil.calculateDistance(latitude, longitude,
+                    location.getLatitude(), location.getLongitude());
+                candidates.add(new Candidate(candidates.size(), location, distance));
             }
-            return results;
-        } catch (Exception e) {
-            logger.error("使用命名参数查询失败，错误信息: {}", e.getMessage());
-            logger.error("尝试使用传统方式查询");
-            // 如果使用命名参数失败，尝试使用传统方式
-            String placeholders = String.join(",", Collections.nCopies(serviceTypes.size(), "?"));
-            String fallbackSql = """
-                SELECT 
-                    id,
-                    name,
-                    type,
-                    latitude,
-                    longitude,
-                    (
-                        6371000 * 2 * ASIN(
-                            SQRT(
-                                POWER(SIN((latitude - ?) * PI() / 180 / 2), 2) +
-                                COS(latitude * PI() / 180) * COS(? * PI() / 180) *
-                                POWER(SIN((longitude - ?) * PI() / 180 / 2), 2)
-                            )
-                        )
-                    ) AS distance
-                FROM map_location
-                WHERE type IN (%s)
-                HAVING distance <= ?
-                ORDER BY distance
-            """.formatted(placeholders);
-            logger.info("备用SQL查询语句: {}", fallbackSql);
-            logger.info("备用查询参数: latitude={}, longitude={}, serviceTypes={}, radius={}", latitude, longitude, serviceTypes, radius);
-            try {
-                // 构建参数数组，顺序：latitude, longitude, longitude, [types...], latitude, longitude, radius
-                Object[] queryParams = new Object[3 + serviceTypes.size() + 1];
-                int paramIndex = 0;
-                queryParams[paramIndex++] = latitude;
-                queryParams[paramIndex++] = longitude;
-                queryParams[paramIndex++] = longitude;
-                for (String type : serviceTypes) {
-                    queryParams[paramIndex++] = type;
+        }
+        return candidates;
+    }
+
+    private ServiceIndex serviceIndex() {
+        ServiceIndex index = serviceIndex;
+        if (index == null || System.nanoTime() - index.builtAt > INDEX_TTL_NANOS) {
+            index = new ServiceIndex(mapLocationRepository.findByTypeIn(SERVICE_TYPES));
+            serviceIndex = index;
+            logger.info("服务设施索引已重建，共 {} 个设施", index.size);
+        }
+        return index;
+    }
+
+    private Map<String, Object> toResult(MapLocation location, double distance, Double walkingTime) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", location.getId());
+        result.put("name", location.getName());
+        result.put("type", location.getType());
+        result.put("latitude", location.getLatitude());
+        result.put("longitude", location.getLongitude());
+        result.put("distance", Math.round(distance * 10) / 10.0);
+        if (walkingTime != null) {
+            result.put("walkingTime", Math.round(walkingTime * 10) / 10.0);
+        }
+        result.put("icon", generateServiceIcon(location.getType()));
+        return result;
+    }
+
+    private static final class ServiceIndex {
+        final long builtAt = System.nanoTime();
+        final Map<String, TypeBucket> buckets = new HashMap<>();
+        final int size;
+
+        ServiceIndex(List<MapLocation> locations) {
+            Map<String, List<MapLocation>> byType = new HashMap<>();
+            int count = 0;
+            for (MapLocation location : locations) {
+                if (location.getLatitude() == null || location.getLongitude() == null) {
+                    continue;
                 }
-                queryParams[paramIndex] = radius;
-                List<Map<String, Object>> results = jdbcTemplate.queryForList(fallbackSql, queryParams);
-                logger.info("备用查询成功，找到 {} 个服务设施", results.size());
-            for (Map<String, Object> service : results) {
-                String type = (String) service.get("type");
-                service.put("icon", generateServiceIcon(type));
+                byType.computeIfAbsent(location.getType(), type -> new ArrayList<>()).add(location);
+                count++;
             }
-            return results;
-            } catch (Exception ex) {
-                logger.error("备用查询也失败，错误信息: {}", ex.getMessage());
-                throw ex;
+            byType.forEach((type, list) -> buckets.put(type, new TypeBucket(list)));
+            size = count;
+        }
+    }
+
+    private static final class TypeBucket {
+        final List<MapLocation> locations;
+        final KdTree tree;
+
+        TypeBucket(List<MapLocation> locations) {
+            this.locations = locations;
+            double[] latitudes = new double[locations.size()];
+            double[] longitudes = new double[locations.size()];
+            for (int i = 0; i < locations.size(); i++) {
+                latitudes[i] = locations.get(i).getLatitude();
+                longitudes[i] = locations.get(i).getLongitude();
             }
+            this.tree = KdTree.build(latitudes, longitudes);
+        }
+    }
+
+    private static final class Candidate {
+        final int index;
+        final MapLocation location;
+        final double distance;
+
+        Candidate(int index, MapLocation location, double distance) {
+            this.index = index;
+            this.location = location;
+            this.distance = distance;
         }
     }
 
@@ -0,0 +1,49 @@
+package org.tinkerhub.offgo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.tinkerhub.offgo.model.Polyline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把只有 path_points 文本的旧道路数据补写为二进制 geometry 列。
+ * 启动时在构建路网之前执行一次，已迁移的行不会重复处理。
+ */
+@Service
+public class RoadGeometryMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(RoadGeometryMigrationService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 返回补写的行数；失败时只记录日志，读取时仍可回退到解析文本
+    public int migrate() {
+        try {
+            List<Object[]> updates = new ArrayList<>();
+            jdbcTemplate.query(
+                "SELECT id, path_points FROM map_road WHERE geometry IS NULL AND path_points IS NOT NULL",
+                rs -> {
+                    Polyline geometry = Polyline.parse(rs.getString("path_points"));
+                    updates.add(new Object[]{geometry.toBytes(), rs.getLong("id")});
+                });
+            for (int i = 0; i < updates.size(); i += BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("UPDATE map_road SET geometry = ? WHERE id = ?",
+                    updates.subList(i, Math.min(i + BATCH_SIZE, updates.size())));
+            }
+            if (!updates.isEmpty()) {
+                logger.info("Migrated geometry of {} roads to binary encoding", updates.size());
+            }
+            return updates.size();
+        } catch (Exception e) {
+            logger.warn("Road geometry migration failed, falling back to path_points", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.tinkerhub.offgo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.repository.MapRoadRepository;
+import org.tinkerhub.offgo.service.routing.ContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.CustomizableContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.RoutingMetrics;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 持有道路网络快照。
+ * map_road 表只在启动、导入或拥挤度刷新时解析一次，
+ * 所有路径规划请求读取同一个不可变快照，更新时整体原子替换。
+ * 拥挤度刷新只替换属性并重新定制时间度量的收缩层次，不重建拓扑。
+ * 只依赖拓扑的预处理结果持久化在本地磁盘上，拓扑未变时重启直接读取。
+ */
+@Service
+public class RoadGraphService {
+    private static final Logger logger = LoggerFactory.getLogger(RoadGraphService.class);
+    private static final Set<String> ROUTING_ENGINES = Set.of("astar", "bidirectional", "ch");
+
+    @Autowired
+    private MapRoadRepository mapRoadRepository;
+
+    @Autowired
+    private RoadGeometryMigrationService roadGeometryMigrationService;
+
+    @Autowired
+    private RoutingArtifactStore routingArtifactStore;
+
+    // 路径搜索引擎：astar、bidirectional（双向搜索）或 ch（收缩层次）
+    @Value("${offgo.routing.engine:astar}")
+    private String routingEngine;
+
+    private final AtomicReference<RoadGraph> current = new AtomicReference<>(RoadGraph.empty());
+    private final AtomicLong versionSequence = new AtomicLong();
+    private volatile LandmarkManager landmarkManager;
+    private volatile SegmentIndex segmentIndex;
+    private volatile ContractionHierarchy distanceHierarchy;
+    // 时间度量的权重随拥挤度变化，使用可定制层次，按快照版本定制
+    private volatile CustomizableContractionHierarchy customizableHierarchy;
+    private volatile ContractionHierarchy[] timeHierarchies = new ContractionHierarchy[TravelMetric.values().length];
+
+    @PostConstruct
+    public void init() {
+        roadGeometryMigrationService.migrate();
+        rebuild();
+    }
+
+    public RoadGraph getGraph() {
+        return current.get();
+    }
+
+    /**
+     * 返回与给定快照拓扑一致的地标；拓扑刚变化、地标尚未就绪时返回 null。
+     * 地标只依赖道路几何，拥挤度刷新不会使其失效。
+     */
+    public LandmarkManager getLandmarks(RoadGraph graph) {
+        LandmarkManager landmarks = landmarkManager;
+        if (landmarks == null || landmarks.getGraph().getTopologyVersion() != graph.getTopologyVersion()) {
+            return null;
+        }
+        return landmarks;
+    }
+
+    /**
+     * 将坐标吸附到快照中最近的道路线段上。
+     * @throws RuntimeException 路网中没有任何道路时
+     */
+    public GraphLocation locate(RoadGraph graph, double latitude, double longitude) {
+        if (graph.getEdgeCount() == 0) {
+            throw new RuntimeException("No map nodes available for path planning");
+        }
+        long start = System.nanoTime();
+        GraphLocation location = getSegmentIndex(graph).nearest(graph, latitude, longitude);
+        RoutingMetrics.recordSnap(System.nanoTime() - start);
+        return location;
+    }
+
+    // 与给定快照拓扑一致的线段索引；持有旧拓扑快照的调用方临时构建一个
+    public SegmentIndex getSegmentIndex(RoadGraph graph) {
+        SegmentIndex index = segmentIndex;
+        if (index == null || index.getTopology().getTopologyVersion() != graph.getTopologyVersion()) {
+            return SegmentIndex.build(graph);
+        }
+        return index;
+    }
+
+    public boolean isContractionHierarchyEnabled() {
+        return "ch".equalsIgnoreCase(routingEngine);
+    }
+
+    /**
+     * 请求指定的搜索引擎，未指定时使用配置。
+     * 请求 ch 但服务端未做收缩层次预处理时，路径搜索退回 A*。
+     * @throws IllegalArgumentException 引擎名称未知时
+     */
+    public String resolveEngine(String requested) {
+        String engine = requested == null || requested.isBlank() ? routingEngine : requested;
+        engine = engine.trim().toLowerCase(Locale.ROOT);
+        if (!ROUTING_ENGINES.contains(engine)) {
+            throw new IllegalArgumentException("Unknown routing engine: " + requested);
+        }
+        return engine;
+    }
+
+    /**
+     * 返回与给定快照一致的收缩层次；未启用或尚未就绪时返回 null。
+     * 距离权重只取决于道路几何，拓扑不变即可复用；时间度量要求快照版本完全一致。
+     */
+    public ContractionHierarchy getHierarchy(RoadGraph graph, TravelMetric metric) {
+        if (metric == TravelMetric.DISTANCE) {
+            ContractionHierarchy hierarchy = distanceHierarchy;
+            if (hierarchy == null || hierarchy.getGraph().getTopologyVersion() != graph.getTopologyVersion()) {
+                return null;
+            }
+            return hierarchy;
+        }
+        ContractionHierarchy hierarchy = timeHierarchies[metric.ordinal()];
+        if (hierarchy == null || hierarchy.getGraph().getVersion() != graph.getVersion()) {
+            return null;
+        }
+        return hierarchy;
+    }
+
+    // 从数据库重新加载全部道路并构建新快照
+    public synchronized RoadGraph rebuild() {
+        return rebuild(mapRoadRepository.findAll());
+    }
+
+    // 预处理全部完成后再发布快照，查询不会看到尚未就绪的加速结构
+    private RoadGraph rebuild(List<MapRoad> roads) {
+        long start = System.nanoTime();
+        // 按道路编号排序，使同一份道路数据总是得到相同的节点编号与预处理结果
+        List<MapRoad> ordered = new ArrayList<>(roads);
+        ordered.sort(Comparator.comparing(MapRoad::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        RoadGraph graph = RoadGraph.build(ordered, versionSequence.incrementAndGet());
+        logger.info("Built road graph v{} with {} nodes, {} edges and {} roads in {} ms",
+            graph.getVersion(), graph.getNodeCount(), graph.getEdgeCount(), graph.getRoadCount(),
+            (System.nanoTime() - start) / 1_000_000);
+        segmentIndex = SegmentIndex.build(graph);
+        boolean contract = isContractionHierarchyEnabled();
+        RoutingArtifactStore.Artifact artifact = routingArtifactStore.load(graph, contract);
+        if (artifact == null) {
+            artifact = preprocess(graph, contract);
+            routingArtifactStore.save(graph, artifact);
+        }
+        landmarkManager = artifact.getLandmarks();
+        if (contract) {
+            distanceHierarchy = artifact.getDistanceHierarchy();
+            customizableHierarchy = artifact.getCustomizableHierarchy();
+            customize(graph);
+        }
+        current.set(graph);
+        RoutingMetrics.recordGraphBuild(System.nanoTime() - start, graph.getNodeCount(), graph.getEdgeCount());
+        return graph;
+    }
+
+    // 只依赖拓扑的预处理：地标距离表，以及启用时的距离收缩层次与可定制层次
+    private RoutingArtifactStore.Artifact preprocess(RoadGraph graph, boolean contract) {
+        LandmarkManager landmarks = new LandmarkManager(graph);
+        if (!contract) {
+            return new RoutingArtifactStore.Artifact(landmarks, null, null);
+        }
+        long chStart = System.nanoTime();
+        ContractionHierarchy hierarchy =
+            ContractionHierarchy.build(graph, graph.getEdgeWeights(TravelMetric.DISTANCE));
+        logger.info("Contracted road graph v{} with {} shortcuts in {} ms", graph.getVersion(),
+            hierarchy.getShortcutCount(), (System.nanoTime() - chStart) / 1_000_000);
+
+        long cchStart = System.nanoTime();
+        CustomizableContractionHierarchy customizable = CustomizableContractionHierarchy.prepare(graph);
+        logger.info("Prepared customizable hierarchy for v{} with {} shortcuts and {} triangles in {} ms",
+            graph.getVersion(), customizable.getShortcutCount(), customizable.getTriangleCount(),
+            (System.nanoTime() - cchStart) / 1_000_000);
+        return new RoutingArtifactStore.Artifact(landmarks, hierarchy, customizable);
+    }
+
+    // 按快照的拥挤度为各时间度量定制层次
+    private void customize(RoadGraph graph) {
+        long start = System.nanoTime();
+        ContractionHierarchy[] hierarchies = new ContractionHierarchy[TravelMetric.values().length];
+        for (TravelMetric metric : TravelMetric.values()) {
+            if (metric.isTimeBased()) {
+                hierarchies[metric.ordinal()] =
+                    customizableHierarchy.customize(graph, graph.getEdgeWeights(metric));
+            }
+        }
+        timeHierarchies = hierarchies;
+        logger.info("Customized time hierarchies for graph v{} in {} ms", graph.getVersion(),
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 发布道路属性变化（如拥挤度刷新）。
+     * 道路几何不变时复用现有拓扑，只替换属性数组；否则完整重建。
+     */
+    public synchronized RoadGraph publishRoads(List<MapRoad> roads) {
+        RoadGraph graph = current.get().withRoadAttributes(roads, versionSequence.incrementAndGet());
+        if (graph == null) {
+            logger.info("Road geometry changed, rebuilding road graph");
+            return rebuild(roads);
+        }
+        if (isContractionHierarchyEnabled()) {
+            customize(graph);
+        }
+        current.set(graph);
+        logger.info("Published road attributes as graph v{}", graph.getVersion());
+        return graph;
+    }
+}
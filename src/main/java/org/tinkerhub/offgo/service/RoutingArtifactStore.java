@@ -0,0 +1,227 @@
+package org.tinkerhub.offgo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.ArtifactReader;
+import org.tinkerhub.offgo.service.routing.ArtifactWriter;
+import org.tinkerhub.offgo.service.routing.ContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.CustomizableContractionHierarchy;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * 路由预处理产物（地标距离表与收缩层次）的本地磁盘存储。
+ * 产物文件按路网拓扑指纹命名：指纹是解析 map_road 后的节点坐标、邻接表与边长的 SHA-256，
+ * 正是预处理所依赖的全部输入，拥挤度等属性的变化不会使其失效。
+ * 启动或重建时指纹一致则内存映射读取、跳过预处理，否则重新计算并写出，
+ * 因此同一份道路数据在每次重启后得到完全相同的地标与层次。
+ */
+@Component
+public class RoutingArtifactStore {
+    private static final Logger logger = LoggerFactory.getLogger(RoutingArtifactStore.class);
+    private static final int MAGIC = 0x4f47524f; // "OGRO"
+    // 产物格式或预处理算法变化时递增，旧文件随之失效
+    private static final int FORMAT_VERSION = 2;
+    private static final int END_MARKER = 0x454e4421; // "END!"
+    private static final String FILE_PREFIX = "routing-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    // 产物目录，为空时不读写磁盘
+    @Value("${offgo.routing.artifact-dir:}")
+    private String artifactDir;
+
+    /**
+     * 一组与同一拓扑对应的预处理结果；未启用收缩层次时两个层次为 null。
+     */
+    public static final class Artifact {
+        private final LandmarkManager landmarks;
+        private final ContractionHierarchy distanceHierarchy;
+        private final CustomizableContractionHierarchy customizableHierarchy;
+
+        public Artifact(LandmarkManager landmarks, ContractionHierarchy distanceHierarchy,
+                        CustomizableContractionHierarchy customizableHierarchy) {
+            this.landmarks = landmarks;
+            this.distanceHierarchy = distanceHierarchy;
+            this.customizableHierarchy = customizableHierarchy;
+        }
+
+        public LandmarkManager getLandmarks() {
+            return landmarks;
+        }
+
+        public ContractionHierarchy getDistanceHierarchy() {
+            return distanceHierarchy;
+        }
+
+        public CustomizableContractionHierarchy getCustomizableHierarchy() {
+            return customizableHierarchy;
+        }
+
+        public boolean hasHierarchies() {
+            return distanceHierarchy != null && customizableHierarchy != null;
+        }
+    }
+
+    /**
+     * 读取与快照拓扑一致的产物。
+     * @param requireHierarchies 为 true 时产物中必须包含收缩层次
+     * @return 未启用、文件不存在、指纹不符或文件损坏时返回 null
+     */
+    public Artifact load(RoadGraph graph, boolean requireHierarchies) {
+        if (artifactDir == null || artifactDir.isBlank()) {
+            return null;
+        }
+        byte[] fingerprint = fingerprint(graph);
+        Path file = artifactPath(fingerprint);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // 先校验整个文件的 CRC32，再信任其中的数组
+            ArtifactReader in = ArtifactReader.verified(buffer);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                || !Arrays.equals(in.readBytes(), fingerprint)
+                || in.readInt() != graph.getNodeCount() || in.readInt() != graph.getEdgeCount()) {
+                logger.warn("Ignoring routing artifact {} written for another road graph or format", file);
+                return null;
+            }
+            LandmarkManager landmarks = LandmarkManager.readFrom(in, graph);
+            ContractionHierarchy distanceHierarchy = null;
+            CustomizableContractionHierarchy customizableHierarchy = null;
+            if (in.readInt() != 0) {
+                distanceHierarchy = ContractionHierarchy.readFrom(in, graph,
+                    graph.getEdgeWeights(TravelMetric.DISTANCE));
+                customizableHierarchy = CustomizableContractionHierarchy.readFrom(in, graph);
+            } else if (requireHierarchies) {
+                return null;
+            }
+            if (in.readInt() != END_MARKER) {
+                throw new IOException("Missing end marker");
+            }
+            logger.info("Loaded routing artifact {} in {} ms", file.getFileName(),
+                (System.nanoTime() - start) / 1_000_000);
+            return new Artifact(landmarks, distanceHierarchy, customizableHierarchy);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read routing artifact {}, preprocessing again: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写出产物：先写临时文件再原子替换，并删除旧格式的产物。写出失败只记录日志。
+     */
+    public void save(RoadGraph graph, Artifact artifact) {
+        if (artifactDir == null || artifactDir.isBlank()) {
+            return;
+        }
+        byte[] fingerprint = fingerprint(graph);
+        Path file = artifactPath(fingerprint);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), FILE_PREFIX, ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 ArtifactWriter out = new ArtifactWriter(stream)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeBytes(fingerprint);
+                out.writeInt(graph.getNodeCount());
+                out.writeInt(graph.getEdgeCount());
+                artifact.getLandmarks().writeTo(out);
+                out.writeInt(artifact.hasHierarchies() ? 1 : 0);
+                if (artifact.hasHierarchies()) {
+                    artifact.getDistanceHierarchy().writeTo(out);
+                    artifact.getCustomizableHierarchy().writeTo(out);
+                }
+                out.writeInt(END_MARKER);
+                out.writeChecksum();
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote routing artifact {} ({} KB)", file, Files.size(file) / 1024);
+            removeOutdatedFormats(file);
+        } catch (IOException e) {
+            logger.warn("Failed to write routing artifact {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path artifactPath(byte[] fingerprint) {
+        String name = HexFormat.of().formatHex(fingerprint, 0, 8);
+        return Paths.get(artifactDir).resolve(FILE_PREFIX + name + FILE_SUFFIX);
+    }
+
+    // 其他拓扑的产物保留：共用目录的其他实例或恢复后的道路数据仍会用到；
+    // 只删除格式版本不同、当前版本不会再读取的文件
+    private void removeOutdatedFormats(Path current) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(current.getParent(),
+            FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (!file.getFileName().equals(current.getFileName()) && !isCurrentFormat(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static boolean isCurrentFormat(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // 路网拓扑指纹：节点坐标、各节点的出边目标与边长
+    static byte[] fingerprint(RoadGraph graph) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        buffer.putInt(FORMAT_VERSION).putInt(graph.getNodeCount()).putInt(graph.getEdgeCount());
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            if (buffer.remaining() < 20) {
+                flush(digest, buffer);
+            }
+            buffer.putDouble(graph.getLatitude(v)).putDouble(graph.getLongitude(v)).putInt(graph.edgeEnd(v));
+            for (int e = graph.edgeBegin(v); e < graph.edgeEnd(v); e++) {
+                if (buffer.remaining() < 12) {
+                    flush(digest, buffer);
+                }
+                buffer.putInt(graph.getEdgeTarget(e)).putDouble(graph.getEdgeLength(e));
+            }
+        }
+        flush(digest, buffer);
+        return digest.digest();
+    }
+
+    private static void flush(MessageDigest digest, ByteBuffer buffer) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+    }
+}
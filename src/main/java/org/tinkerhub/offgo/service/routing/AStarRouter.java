@@ -0,0 +1,98 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+/**
+ * 基于路网快照的 A* 搜索。
+ * 距离、前驱均存放在按线程复用的基本类型数组中，不修改任何共享状态，
+ * 因此多个请求可以并发执行。
+ */
+public final class AStarRouter {
+
+    private AStarRouter() {
+    }
+
+    // 以到目标投影点的直线距离除以最大速度作为估价
+    public static Heuristic straightLine(RoadGraph graph, TravelMetric metric, GraphLocation to) {
+        double latitude = to.getSnappedLatitude();
+        double longitude = to.getSnappedLongitude();
+        double maxSpeed = metric.getMaxSpeed();
+        return node -> DistanceUtil.calculateDistance(
+            graph.getLatitude(node), graph.getLongitude(node), latitude, longitude) / maxSpeed;
+    }
+
+    public static GraphPath route(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to) {
+        return route(graph, metric, from, to, straightLine(graph, metric, to));
+    }
+
+    /**
+     * 计算两个吸附位置之间的最短路径。
+     * @return 最短路径；两点不连通时返回 null
+     */
+    public static GraphPath route(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to,
+                                  Heuristic heuristic) {
+        double[] weights = graph.getEdgeWeights(metric);
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        workspace.reset(graph.getNodeCount());
+        IndexedMinHeap heap = workspace.getHeap();
+
+        // 起点所在边的两个端点作为搜索起点
+        int sourceA = from.getFromNode();
+        int sourceB = from.getToNode();
+        workspace.update(sourceA, from.costToFrom(weights), -1, -1,
+            from.costToFrom(weights) + heuristic.estimate(sourceA));
+        double costB = from.costToTo(weights);
+        if (costB < workspace.getDistance(sourceB)) {
+            workspace.update(sourceB, costB, -1, -1, costB + heuristic.estimate(sourceB));
+        }
+
+        int targetA = to.getFromNode();
+        int targetB = to.getToNode();
+        double offsetA = to.costToFrom(weights);
+        double offsetB = to.costToTo(weights);
+
+        double best = Double.POSITIVE_INFINITY;
+        int bestNode = -1;
+        // 起终点在同一条边上时可以直接沿边到达
+        if (from.isOnSameSegment(to)) {
+            best = from.costAlongSegmentTo(to, weights);
+        }
+
+        while (!heap.isEmpty() && heap.peekKey() < best) {
+            int u = heap.pop();
+            workspace.settle(u);
+            double distance = workspace.getDistance(u);
+
+            if (u == targetA && distance + offsetA < best) {
+                best = distance + offsetA;
+                bestNode = u;
+            }
+            if (u == targetB && distance + offsetB < best) {
+                best = distance + offsetB;
+                bestNode = u;
+            }
+
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                if (workspace.isSettled(v)) {
+                    continue;
+                }
+                double tentative = distance + weights[e];
+                if (tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative + heuristic.estimate(v));
+                }
+            }
+        }
+        workspace.finish();
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (bestNode < 0) {
+            return PathAssembler.direct(from, to, best);
+        }
+        return PathAssembler.fromTree(graph, workspace, from, to, bestNode, best);
+    }
+}
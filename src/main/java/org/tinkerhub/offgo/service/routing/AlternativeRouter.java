@@ -0,0 +1,209 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 平台法（plateau）备选路线。
+ * 从起点做一次正向 Dijkstra、从终点做一次反向 Dijkstra，都扩展到最短代价的 maxStretch 倍。
+ * 两棵最短路径树重合的连续边称为平台：经过平台上任一点的“起点 -> 平台 -> 终点”路径
+ * 在平台两侧都是最短路径，平台越长，路线越自然。
+ * 按平台长度从长到短依次取路线，代价超过上限或与已选路线重合过多的跳过。
+ */
+public final class AlternativeRouter {
+    // 最多评估的平台数，避免大量短平台拖慢查询
+    private static final int MAX_CANDIDATES = 64;
+
+    private AlternativeRouter() {
+    }
+
+    /**
+     * @param k 最多返回的路线数（含最短路径）
+     * @param maxStretch 备选路线代价相对最短路径的倍数上限
+     * @param maxOverlap 与已选路线重合的长度占本路线长度的比例上限
+     * @return 第一条为最短路径，其余按平台长度排序；两点不连通时返回空列表
+     */
+    public static List<GraphPath> route(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to,
+                                        int k, double maxStretch, double maxOverlap) {
+        double[] weights = graph.getEdgeWeights(metric);
+        SearchWorkspace forward = SearchWorkspace.forCurrentThread();
+        SearchWorkspace backward = SearchWorkspace.backwardForCurrentThread();
+        forward.reset(graph.getNodeCount());
+        backward.reset(graph.getNodeCount());
+        seed(forward, from.getFromNode(), from.costToFrom(weights));
+        seed(forward, from.getToNode(), from.costToTo(weights));
+        seed(backward, to.getFromNode(), to.costToFrom(weights));
+        seed(backward, to.getToNode(), to.costToTo(weights));
+
+        // 起终点在同一条边上时可以直接沿边到达
+        double direct = from.isOnSameSegment(to) ? from.costAlongSegmentTo(to, weights) : Double.POSITIVE_INFINITY;
+        NodeList settled = new NodeList();
+        double best = grow(graph, weights, forward, to, direct, maxStretch, settled);
+        forward.finish();
+        if (best == Double.POSITIVE_INFINITY) {
+            backward.finish();
+            return new ArrayList<>();
+        }
+        grow(graph, weights, backward, null, best, maxStretch, null);
+        backward.finish();
+
+        double limit = best * maxStretch;
+        int meeting = -1;
+        double meetingCost = Double.POSITIVE_INFINITY;
+        List<double[]> plateaus = new ArrayList<>(); // {平台起点, 平台长度, 路线代价}
+        for (int i = 0; i < settled.size; i++) {
+            int v = settled.nodes[i];
+            if (!backward.isSettled(v)) {
+                continue;
+            }
+            double cost = forward.getDistance(v) + backward.getDistance(v);
+            if (cost < meetingCost) {
+                meetingCost = cost;
+                meeting = v;
+            }
+            if (cost > limit || !onPlateau(forward, backward, v) || startsInsidePlateau(forward, backward, v)) {
+                continue;
+            }
+            int end = v;
+            while (onPlateau(forward, backward, end)) {
+                end = backward.getParentNode(end);
+            }
+            plateaus.add(new double[]{v, forward.getDistance(end) - forward.getDistance(v), cost});
+        }
+        plateaus.sort((a, b) -> Double.compare(b[1], a[1]));
+
+        List<GraphPath> result = new ArrayList<>();
+        Set<Long> chosen = new HashSet<>();
+        GraphPath shortest = direct <= meetingCost
+            ? PathAssembler.direct(from, to, direct)
+            : PathAssembler.fromTrees(graph, forward, backward, from, to, meeting, meetingCost);
+        result.add(shortest);
+        overlap(graph, shortest, chosen, true);
+
+        BitSet visited = new BitSet(graph.getNodeCount());
+        for (int i = 0; i < Math.min(plateaus.size(), MAX_CANDIDATES) && result.size() < k; i++) {
+            int via = (int) plateaus.get(i)[0];
+            if (!isSimple(forward, backward, via, visited)) {
+                continue;
+            }
+            GraphPath path = PathAssembler.fromTrees(graph, forward, backward, from, to, via, plateaus.get(i)[2]);
+            if (overlap(graph, path, chosen, false) <= maxOverlap) {
+                overlap(graph, path, chosen, true);
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    private static void seed(SearchWorkspace workspace, int node, double cost) {
+        if (cost < workspace.getDistance(node)) {
+            workspace.update(node, cost, -1, -1, cost);
+        }
+    }
+
+    /**
+     * Dijkstra 扩展到代价超过 best 的 maxStretch 倍为止。
+     * 正向搜索传入 target，在终点所在边的端点确定时更新最短代价 best，并记录确定的节点。
+     */
+    private static double grow(RoadGraph graph, double[] weights, SearchWorkspace workspace, GraphLocation target,
+                               double best, double maxStretch, NodeList settled) {
+        IndexedMinHeap heap = workspace.getHeap();
+        while (!heap.isEmpty() && heap.peekKey() <= best * maxStretch) {
+            int u = heap.pop();
+            workspace.settle(u);
+            double distance = workspace.getDistance(u);
+            if (target != null) {
+                settled.add(u);
+                if (u == target.getFromNode()) {
+                    best = Math.min(best, distance + target.costToFrom(weights));
+                }
+                if (u == target.getToNode()) {
+                    best = Math.min(best, distance + target.costToTo(weights));
+                }
+            }
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                double tentative = distance + weights[e];
+                if (!workspace.isSettled(v) && tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative);
+                }
+            }
+        }
+        return best;
+    }
+
+    // v 到反向树父节点 w 的边也是正向树中 w 的父边，即两棵树在该边上重合
+    private static boolean onPlateau(SearchWorkspace forward, SearchWorkspace backward, int v) {
+        int w = backward.getParentNode(v);
+        return w >= 0 && forward.isSettled(w) && forward.getParentNode(w) == v;
+    }
+
+    // v 的正向父节点与 v 之间的边也是平台边（父节点在反向树中的父节点是 v），v 不是平台的起点；
+    // 父节点只在另一个平台上时 v 仍是起点
+    private static boolean startsInsidePlateau(SearchWorkspace forward, SearchWorkspace backward, int v) {
+        int parent = forward.getParentNode(v);
+        return parent >= 0 && backward.getParentNode(parent) == v;
+    }
+
+    // 正向树中根到 via 与反向树中 via 到根两段不能有公共节点，否则路线绕圈
+    private static boolean isSimple(SearchWorkspace forward, SearchWorkspace backward, int via, BitSet visited) {
+        visited.clear();
+        for (int v = via; v >= 0; v = forward.getParentNode(v)) {
+            visited.set(v);
+        }
+        for (int v = backward.getParentNode(via); v >= 0; v = backward.getParentNode(v)) {
+            if (visited.get(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 路线中与已选路线经过同一路网边的长度占比；record 为 true 时把路线的边加入已选集合。
+     * 边按两个端点（不分方向）比较。
+     */
+    private static double overlap(RoadGraph graph, GraphPath path, Set<Long> chosen, boolean record) {
+        double total = 0;
+        double shared = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int edge = path.getSegmentEdge(i);
+            if (edge < 0) {
+                continue;
+            }
+            double length = DistanceUtil.calculateDistance(path.getLatitude(i), path.getLongitude(i),
+                path.getLatitude(i + 1), path.getLongitude(i + 1));
+            int u = graph.getEdgeSource(edge);
+            int v = graph.getEdgeTarget(edge);
+            long key = (long) Math.min(u, v) * graph.getNodeCount() + Math.max(u, v);
+            total += length;
+            if (record) {
+                chosen.add(key);
+            } else if (chosen.contains(key)) {
+                shared += length;
+            }
+        }
+        return total > 0 ? shared / total : 1;
+    }
+
+    // 正向搜索确定的节点，用于只在两棵树的交集上枚举平台
+    private static final class NodeList {
+        int[] nodes = new int[256];
+        int size;
+
+        void add(int node) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size++] = node;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.tinkerhub.offgo.service.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * 从内存映射的预处理产物中读取数组。
+ * 数组整体从映射区批量复制到堆上，查询代码仍然只访问普通数组。
+ * 长度不合理、越界或校验和不符时抛出 IOException，调用方应丢弃该产物并重新预处理。
+ * 校验和只能发现损坏，不能代替对数组内容的检查：各 readFrom 仍须校验下标范围，
+ * 保证查询代码不会因产物内容而越界。
+ */
+public final class ArtifactReader {
+    private final ByteBuffer buffer;
+
+    public ArtifactReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 校验末尾由 {@link ArtifactWriter#writeChecksum} 写出的 CRC32，通过后返回只覆盖其之前内容的读取器。
+     */
+    public static ArtifactReader verified(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new IOException("Routing artifact is truncated");
+        }
+        ByteBuffer payload = buffer.slice(buffer.position(), buffer.remaining() - 4);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Routing artifact checksum mismatch");
+        }
+        return new ArtifactReader(payload);
+    }
+
+    // 压缩邻接表的偏移数组：首项为 0、单调不减、末项为 total
+    public static void requireOffsets(int[] first, long total, String name) throws IOException {
+        if (first.length == 0 || first[0] != 0 || first[first.length - 1] != total) {
+            throw new IOException("Invalid " + name + " offsets");
+        }
+        for (int i = 1; i < first.length; i++) {
+            if (first[i] < first[i - 1]) {
+                throw new IOException("Invalid " + name + " offsets");
+            }
+        }
+    }
+
+    // 各元素均在 [min, max) 内
+    public static void requireRange(int[] values, int min, int max, String name) throws IOException {
+        for (int value : values) {
+            if (value < min || value >= max) {
+                throw new IOException(name + " out of range: " + value);
+            }
+        }
+    }
+
+    // 0..n-1 的一个排列
+    public static void requirePermutation(int[] values, String name) throws IOException {
+        boolean[] seen = new boolean[values.length];
+        for (int value : values) {
+            if (value < 0 || value >= values.length || seen[value]) {
+                throw new IOException(name + " is not a permutation");
+            }
+            seen[value] = true;
+        }
+    }
+
+    public int readInt() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    public byte[] readBytes() throws IOException {
+        byte[] values = new byte[readLength(1)];
+        buffer.get(values);
+        return values;
+    }
+
+    public int[] readInts() throws IOException {
+        int[] values = new int[readLength(4)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    public float[] readFloats() throws IOException {
+        float[] values = new float[readLength(4)];
+        buffer.asFloatBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return values;
+    }
+
+    public double[] readDoubles() throws IOException {
+        double[] values = new double[readLength(8)];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 8);
+        return values;
+    }
+
+    private int readLength(int elementSize) throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("Negative array length " + length);
+        }
+        require((long) length * elementSize);
+        return length;
+    }
+
+    private void require(long bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            throw new IOException("Routing artifact is truncated");
+        }
+    }
+}
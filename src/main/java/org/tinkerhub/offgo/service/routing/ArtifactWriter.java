@@ -0,0 +1,62 @@
+package org.tinkerhub.offgo.service.routing;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 预处理产物的顺序写入器。数组带长度前缀，按大端序写出，与 {@link ArtifactReader} 对应。
+ */
+public final class ArtifactWriter implements Closeable {
+    private final DataOutputStream out;
+    private final CRC32 checksum = new CRC32();
+
+    public ArtifactWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(out, checksum), 1 << 16));
+    }
+
+    // 写出此前全部内容的 CRC32，须为最后一次写入
+    public void writeChecksum() throws IOException {
+        out.flush();
+        out.writeInt((int) checksum.getValue());
+    }
+
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    public void writeBytes(byte[] values) throws IOException {
+        out.writeInt(values.length);
+        out.write(values);
+    }
+
+    public void writeInts(int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public void writeFloats(float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    public void writeDoubles(double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
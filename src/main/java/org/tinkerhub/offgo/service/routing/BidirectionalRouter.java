@@ -0,0 +1,105 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+/**
+ * 双向 Dijkstra / A* 搜索。
+ * 正向从起点、反向从终点同时扩展，每次扩展堆顶键值较小的一侧。
+ * 路网是无向的，反向搜索直接沿正向邻接表扩展。
+ * 带估价时使用平均势函数 p(v) = (h_t(v) - h_s(v)) / 2，正向键值为 d_f + p，反向为 d_r - p，
+ * 两侧势函数之和恒为零，因此两侧堆顶键值之和不小于已知最优代价时即可停止。
+ */
+public final class BidirectionalRouter {
+
+    private BidirectionalRouter() {
+    }
+
+    // 不带估价的双向 Dijkstra
+    public static GraphPath route(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to) {
+        return route(graph, metric, from, to, Heuristic.ZERO, Heuristic.ZERO);
+    }
+
+    /**
+     * 计算两个吸附位置之间的最短路径。
+     * @param toTarget 到终点代价的下界，必须满足一致性
+     * @param toSource 到起点代价的下界，必须满足一致性
+     * @return 最短路径；两点不连通时返回 null
+     */
+    public static GraphPath route(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to,
+                                  Heuristic toTarget, Heuristic toSource) {
+        double[] weights = graph.getEdgeWeights(metric);
+        SearchWorkspace forward = SearchWorkspace.forCurrentThread();
+        SearchWorkspace backward = SearchWorkspace.backwardForCurrentThread();
+        forward.reset(graph.getNodeCount());
+        backward.reset(graph.getNodeCount());
+        IndexedMinHeap forwardHeap = forward.getHeap();
+        IndexedMinHeap backwardHeap = backward.getHeap();
+
+        // 正向以起点所在边的两个端点为根，反向以终点所在边的两个端点为根
+        seed(forward, from.getFromNode(), from.costToFrom(weights), toTarget, toSource, 1);
+        seed(forward, from.getToNode(), from.costToTo(weights), toTarget, toSource, 1);
+        seed(backward, to.getFromNode(), to.costToFrom(weights), toTarget, toSource, -1);
+        seed(backward, to.getToNode(), to.costToTo(weights), toTarget, toSource, -1);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        // 起终点在同一条边上时可以直接沿边到达
+        if (from.isOnSameSegment(to)) {
+            best = from.costAlongSegmentTo(to, weights);
+        }
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+            && forwardHeap.peekKey() + backwardHeap.peekKey() < best) {
+            boolean forwardStep = forwardHeap.peekKey() <= backwardHeap.peekKey();
+            SearchWorkspace workspace = forwardStep ? forward : backward;
+            SearchWorkspace opposite = forwardStep ? backward : forward;
+            int sign = forwardStep ? 1 : -1;
+
+            int u = workspace.getHeap().pop();
+            workspace.settle(u);
+            double distance = workspace.getDistance(u);
+            if (opposite.isReached(u) && distance + opposite.getDistance(u) < best) {
+                best = distance + opposite.getDistance(u);
+                meeting = u;
+            }
+
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                if (workspace.isSettled(v)) {
+                    continue;
+                }
+                double tentative = distance + weights[e];
+                if (tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative + potential(v, toTarget, toSource, sign));
+                    if (opposite.isReached(v) && tentative + opposite.getDistance(v) < best) {
+                        best = tentative + opposite.getDistance(v);
+                        meeting = v;
+                    }
+                }
+            }
+        }
+        forward.finish();
+        backward.finish();
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (meeting < 0) {
+            return PathAssembler.direct(from, to, best);
+        }
+        return PathAssembler.fromTrees(graph, forward, backward, from, to, meeting, best);
+    }
+
+    private static void seed(SearchWorkspace workspace, int node, double cost,
+                             Heuristic toTarget, Heuristic toSource, int sign) {
+        if (cost < workspace.getDistance(node)) {
+            workspace.update(node, cost, -1, -1, cost + potential(node, toTarget, toSource, sign));
+        }
+    }
+
+    // sign 为 1 时是正向势函数，为 -1 时是反向势函数
+    private static double potential(int node, Heuristic toTarget, Heuristic toSource, int sign) {
+        return sign * (toTarget.estimate(node) - toSource.estimate(node)) / 2;
+    }
+}
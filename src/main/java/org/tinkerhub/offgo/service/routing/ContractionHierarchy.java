@@ -0,0 +1,242 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 收缩层次（Contraction Hierarchies）。
+ * 预处理阶段按重要性给节点排序并添加捷径边；查询时起终点两侧都只沿
+ * 排名升高的边搜索，在层次顶端相遇，搜索空间远小于 A*。
+ * 路网为无向图，向上边只需存一份，正反两个方向共用。
+ */
+public final class ContractionHierarchy {
+    private final RoadGraph graph;
+    private final double[] weights;
+    private final int[] rank;
+    private final int[] firstUp;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles; // 捷径跳过的中间节点，原始边为 -1
+    private final int shortcutCount;
+
+    ContractionHierarchy(RoadGraph graph, double[] weights, int[] rank, int[] firstUp,
+                         int[] upTargets, double[] upWeights, int[] upMiddles, int shortcutCount) {
+        this.graph = graph;
+        this.weights = weights;
+        this.rank = rank;
+        this.firstUp = firstUp;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.shortcutCount = shortcutCount;
+    }
+
+    /**
+     * 对路网快照做收缩预处理。
+     * @param weights 边权重，下标与路网边编号一致
+     */
+    public static ContractionHierarchy build(RoadGraph graph, double[] weights) {
+        return new ContractionHierarchyBuilder(graph, weights).build();
+    }
+
+    /**
+     * 读取 {@link #writeTo} 写出的层次。
+     * @param graph 与写出时拓扑相同的路网快照
+     * @param weights 写出时使用的边权重
+     */
+    public static ContractionHierarchy readFrom(ArtifactReader in, RoadGraph graph, double[] weights)
+        throws IOException {
+        int[] rank = in.readInts();
+        int[] firstUp = in.readInts();
+        int[] upTargets = in.readInts();
+        double[] upWeights = in.readDoubles();
+        int[] upMiddles = in.readInts();
+        int shortcutCount = in.readInt();
+        int n = graph.getNodeCount();
+        if (rank.length != n || firstUp.length != n + 1
+            || upWeights.length != upTargets.length || upMiddles.length != upTargets.length
+            || shortcutCount < 0 || shortcutCount > upTargets.length) {
+            throw new IOException("Contraction hierarchy does not match the road graph");
+        }
+        ArtifactReader.requirePermutation(rank, "Hierarchy rank");
+        ArtifactReader.requireOffsets(firstUp, upTargets.length, "upward arc");
+        ArtifactReader.requireRange(upTargets, 0, n, "Upward arc target");
+        ArtifactReader.requireRange(upMiddles, -1, n, "Shortcut middle node");
+        for (double weight : upWeights) {
+            if (!(weight >= 0)) {
+                throw new IOException("Invalid upward arc weight " + weight);
+            }
+        }
+        return new ContractionHierarchy(graph, weights, rank, firstUp, upTargets, upWeights, upMiddles,
+            shortcutCount);
+    }
+
+    // 写出预处理结果；路网与边权重不写出，读取时由调用方提供
+    public void writeTo(ArtifactWriter out) throws IOException {
+        out.writeInts(rank);
+        out.writeInts(firstUp);
+        out.writeInts(upTargets);
+        out.writeDoubles(upWeights);
+        out.writeInts(upMiddles);
+        out.writeInt(shortcutCount);
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    // 节点在层次中的排名，越大越重要
+    public int getRank(int node) {
+        return rank[node];
+    }
+
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * 计算两个吸附位置之间的最短路径，并把捷径展开为原始路网节点。
+     * @return 最短路径；两点不连通时返回 null
+     */
+    public GraphPath route(GraphLocation from, GraphLocation to) {
+        SearchWorkspace forward = SearchWorkspace.forCurrentThread();
+        SearchWorkspace backward = SearchWorkspace.backwardForCurrentThread();
+        double best = from.isOnSameSegment(to)
+            ? from.costAlongSegmentTo(to, weights)
+            : Double.POSITIVE_INFINITY;
+        int meeting = -1;
+
+        forward.reset(graph.getNodeCount());
+        backward.reset(graph.getNodeCount());
+        seed(forward, from.getFromNode(), from.costToFrom(weights));
+        seed(forward, from.getToNode(), from.costToTo(weights));
+        seed(backward, to.getFromNode(), to.costToFrom(weights));
+        seed(backward, to.getToNode(), to.costToTo(weights));
+
+        IndexedMinHeap forwardHeap = forward.getHeap();
+        IndexedMinHeap backwardHeap = backward.getHeap();
+        while (true) {
+            boolean forwardActive = !forwardHeap.isEmpty() && forwardHeap.peekKey() < best;
+            boolean backwardActive = !backwardHeap.isEmpty() && backwardHeap.peekKey() < best;
+            if (!forwardActive && !backwardActive) {
+                break;
+            }
+            // 每次推进当前最小键值较小的一侧
+            boolean forwardTurn = forwardActive
+                && (!backwardActive || forwardHeap.peekKey() <= backwardHeap.peekKey());
+            SearchWorkspace self = forwardTurn ? forward : backward;
+            SearchWorkspace other = forwardTurn ? backward : forward;
+
+            int u = self.getHeap().pop();
+            self.settle(u);
+            double distance = self.getDistance(u);
+            double total = distance + other.getDistance(u);
+            if (total < best) {
+                best = total;
+                meeting = u;
+            }
+            if (isStalled(self, u, distance)) {
+                continue;
+            }
+            for (int e = firstUp[u]; e < firstUp[u + 1]; e++) {
+                int v = upTargets[e];
+                double tentative = distance + upWeights[e];
+                if (tentative < self.getDistance(v)) {
+                    self.update(v, tentative, u, e, tentative);
+                }
+            }
+        }
+        forward.finish();
+        backward.finish();
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (meeting < 0) {
+            return PathAssembler.direct(from, to, best);
+        }
+        return unpack(forward, backward, from, to, meeting, best);
+    }
+
+    private static void seed(SearchWorkspace workspace, int node, double cost) {
+        if (cost < workspace.getDistance(node)) {
+            workspace.update(node, cost, -1, -1, cost);
+        }
+    }
+
+    // stall-on-demand：若经更高层邻居可以更短地到达 u，则 u 不可能位于最短路径上，无需继续扩展
+    private boolean isStalled(SearchWorkspace workspace, int u, double distance) {
+        for (int e = firstUp[u]; e < firstUp[u + 1]; e++) {
+            if (workspace.getDistance(upTargets[e]) + upWeights[e] < distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private GraphPath unpack(SearchWorkspace forward, SearchWorkspace backward,
+                             GraphLocation from, GraphLocation to, int meeting, double cost) {
+        NodeSequence sequence = new NodeSequence();
+        // 正向搜索树：从起点一侧到相遇点，需要倒序展开
+        int forwardEdges = 0;
+        for (int v = meeting; forward.getParentNode(v) >= 0; v = forward.getParentNode(v)) {
+            forwardEdges++;
+        }
+        int[] chain = new int[forwardEdges];
+        int index = forwardEdges;
+        int root = meeting;
+        for (int v = meeting; forward.getParentNode(v) >= 0; v = forward.getParentNode(v)) {
+            chain[--index] = v;
+            root = forward.getParentNode(v);
+        }
+        sequence.add(root, -1);
+        for (int v : chain) {
+            int parent = forward.getParentNode(v);
+            unpackEdge(parent, v, upMiddles[forward.getParentEdge(v)], sequence);
+        }
+        // 反向搜索树：从相遇点顺着父指针走到终点一侧
+        for (int v = meeting; backward.getParentNode(v) >= 0; v = backward.getParentNode(v)) {
+            int next = backward.getParentNode(v);
+            unpackEdge(v, next, upMiddles[backward.getParentEdge(v)], sequence);
+        }
+        return PathAssembler.assemble(graph, from, to, sequence.nodes, sequence.edges, sequence.size, cost);
+    }
+
+    // 递归展开 a 到 b 的边，依次追加 b 一侧的原始节点（不含 a）
+    private void unpackEdge(int a, int b, int middle, NodeSequence sequence) {
+        if (middle < 0) {
+            sequence.add(b, graph.findEdge(a, b));
+            return;
+        }
+        unpackEdge(a, middle, upMiddles[findUpEdge(middle, a)], sequence);
+        unpackEdge(middle, b, upMiddles[findUpEdge(middle, b)], sequence);
+    }
+
+    private int findUpEdge(int lower, int higher) {
+        for (int e = firstUp[lower]; e < firstUp[lower + 1]; e++) {
+            if (upTargets[e] == higher) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Missing hierarchy edge " + lower + " -> " + higher);
+    }
+
+    // 展开过程中累积的节点与进入各节点的原始边
+    private static final class NodeSequence {
+        private int[] nodes = new int[32];
+        private int[] edges = new int[32];
+        private int size;
+
+        void add(int node, int edge) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                edges = Arrays.copyOf(edges, size * 2);
+            }
+            nodes[size] = node;
+            edges[size] = edge;
+            size++;
+        }
+    }
+}
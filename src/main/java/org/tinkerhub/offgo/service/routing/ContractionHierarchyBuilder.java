@@ -0,0 +1,224 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+import java.util.Arrays;
+
+/**
+ * 收缩层次的离线预处理：按边差（edge difference）确定节点顺序，
+ * 依次收缩节点，并在见证搜索找不到更短绕行路径时添加捷径边。
+ */
+final class ContractionHierarchyBuilder {
+    // 见证搜索最多确定的节点数，超出后保守地添加捷径；估算优先级时使用更小的上限
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    private final RoadGraph graph;
+    private final double[] weights;
+    private final int nodeCount;
+
+    // 收缩过程中的动态邻接表（无向，每条边在两端各存一份，只含未收缩的节点）
+    private final int[][] neighbors;
+    private final double[][] neighborWeights;
+    private final int[][] neighborMiddles; // 捷径跳过的中间节点，原始边为 -1
+    private final int[] degrees;
+
+    private final int[] contractedNeighbors;
+    private final int[] levels; // 节点在层次中的深度，用于使收缩在路网上均匀推进
+    private final int[] rank;
+    private final SearchWorkspace witness = new SearchWorkspace();
+
+    // 每个节点收缩时记录的向上边
+    private final int[][] upTargets;
+    private final double[][] upWeights;
+    private final int[][] upMiddles;
+    private int shortcutCount;
+
+    ContractionHierarchyBuilder(RoadGraph graph, double[] weights) {
+        this.graph = graph;
+        this.weights = weights;
+        this.nodeCount = graph.getNodeCount();
+        this.neighbors = new int[nodeCount][];
+        this.neighborWeights = new double[nodeCount][];
+        this.neighborMiddles = new int[nodeCount][];
+        this.degrees = new int[nodeCount];
+        this.contractedNeighbors = new int[nodeCount];
+        this.levels = new int[nodeCount];
+        this.rank = new int[nodeCount];
+        this.upTargets = new int[nodeCount][];
+        this.upWeights = new double[nodeCount][];
+        this.upMiddles = new int[nodeCount][];
+
+        for (int v = 0; v < nodeCount; v++) {
+            int degree = graph.edgeEnd(v) - graph.edgeBegin(v);
+            neighbors[v] = new int[Math.max(degree, 2)];
+            neighborWeights[v] = new double[neighbors[v].length];
+            neighborMiddles[v] = new int[neighbors[v].length];
+            for (int e = graph.edgeBegin(v); e < graph.edgeEnd(v); e++) {
+                append(v, graph.getEdgeTarget(e), weights[e], -1);
+            }
+        }
+    }
+
+    ContractionHierarchy build() {
+        IndexedMinHeap queue = new IndexedMinHeap(nodeCount);
+        queue.ensureCapacity(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            queue.push(v, priority(v));
+        }
+
+        int order = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.pop();
+            // 惰性更新：优先级变差时重新入队
+            double current = priority(v);
+            if (!queue.isEmpty() && current > queue.peekKey()) {
+                queue.push(v, current);
+                continue;
+            }
+            contract(v);
+            rank[v] = order++;
+        }
+        return toHierarchy();
+    }
+
+    // 优先级 = 边差（需要的捷径数 - 剩余度数）+ 已收缩邻居数 + 层次深度
+    private double priority(int v) {
+        return processNeighbors(v, false) - degrees[v] + contractedNeighbors[v] + levels[v];
+    }
+
+    private void contract(int v) {
+        processNeighbors(v, true);
+
+        int degree = degrees[v];
+        upTargets[v] = Arrays.copyOf(neighbors[v], degree);
+        upWeights[v] = Arrays.copyOf(neighborWeights[v], degree);
+        upMiddles[v] = Arrays.copyOf(neighborMiddles[v], degree);
+        for (int i = 0; i < degree; i++) {
+            int u = neighbors[v][i];
+            contractedNeighbors[u]++;
+            levels[u] = Math.max(levels[u], levels[v] + 1);
+            // 已收缩的节点从邻居的邻接表中移除，后续见证搜索不再遍历
+            remove(u, indexOf(u, v));
+        }
+        neighbors[v] = null;
+        neighborWeights[v] = null;
+        neighborMiddles[v] = null;
+        degrees[v] = 0;
+    }
+
+    /**
+     * 枚举 v 的每对剩余邻居，判断去掉 v 后是否仍存在不长于经过 v 的路径。
+     * @param apply 为 true 时实际添加捷径
+     * @return 需要的捷径数
+     */
+    private int processNeighbors(int v, boolean apply) {
+        int shortcuts = 0;
+        for (int i = 0; i + 1 < degrees[v]; i++) {
+            int source = neighbors[v][i];
+            double toSource = neighborWeights[v][i];
+
+            double maxVia = 0;
+            for (int j = i + 1; j < degrees[v]; j++) {
+                maxVia = Math.max(maxVia, toSource + neighborWeights[v][j]);
+            }
+            witnessSearch(source, v, maxVia, apply ? WITNESS_SETTLE_LIMIT : SIMULATION_SETTLE_LIMIT);
+
+            for (int j = i + 1; j < degrees[v]; j++) {
+                int target = neighbors[v][j];
+                double via = toSource + neighborWeights[v][j];
+                if (witness.getDistance(target) > via) {
+                    shortcuts++;
+                    if (apply) {
+                        addShortcut(source, target, via, v);
+                    }
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    // 在未收缩的节点上做受限 Dijkstra，跳过正在收缩的节点
+    private void witnessSearch(int source, int skipped, double maxDistance, int settleLimit) {
+        witness.reset(nodeCount);
+        witness.update(source, 0, -1, -1, 0);
+        IndexedMinHeap heap = witness.getHeap();
+        int settled = 0;
+        while (!heap.isEmpty() && heap.peekKey() <= maxDistance && settled < settleLimit) {
+            int u = heap.pop();
+            witness.settle(u);
+            settled++;
+            double distance = witness.getDistance(u);
+            for (int i = 0; i < degrees[u]; i++) {
+                int w = neighbors[u][i];
+                if (w == skipped || witness.isSettled(w)) continue;
+                double tentative = distance + neighborWeights[u][i];
+                if (tentative < witness.getDistance(w)) {
+                    witness.update(w, tentative, u, -1, tentative);
+                }
+            }
+        }
+    }
+
+    private void addShortcut(int a, int b, double weight, int middle) {
+        int index = indexOf(a, b);
+        if (index >= 0) {
+            if (weight < neighborWeights[a][index]) {
+                neighborWeights[a][index] = weight;
+                neighborMiddles[a][index] = middle;
+                int reverse = indexOf(b, a);
+                neighborWeights[b][reverse] = weight;
+                neighborMiddles[b][reverse] = middle;
+            }
+            return;
+        }
+        append(a, b, weight, middle);
+        append(b, a, weight, middle);
+        shortcutCount++;
+    }
+
+    private int indexOf(int from, int to) {
+        for (int i = 0; i < degrees[from]; i++) {
+            if (neighbors[from][i] == to) return i;
+        }
+        return -1;
+    }
+
+    private void remove(int from, int index) {
+        int last = --degrees[from];
+        neighbors[from][index] = neighbors[from][last];
+        neighborWeights[from][index] = neighborWeights[from][last];
+        neighborMiddles[from][index] = neighborMiddles[from][last];
+    }
+
+    private void append(int from, int to, double weight, int middle) {
+        int size = degrees[from];
+        if (size == neighbors[from].length) {
+            neighbors[from] = Arrays.copyOf(neighbors[from], size * 2);
+            neighborWeights[from] = Arrays.copyOf(neighborWeights[from], size * 2);
+            neighborMiddles[from] = Arrays.copyOf(neighborMiddles[from], size * 2);
+        }
+        neighbors[from][size] = to;
+        neighborWeights[from][size] = weight;
+        neighborMiddles[from][size] = middle;
+        degrees[from] = size + 1;
+    }
+
+    // 把每个节点的向上边压缩为 CSR 数组
+    private ContractionHierarchy toHierarchy() {
+        int[] firstUp = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            firstUp[v + 1] = firstUp[v] + upTargets[v].length;
+        }
+        int total = firstUp[nodeCount];
+        int[] targets = new int[total];
+        double[] edgeWeights = new double[total];
+        int[] middles = new int[total];
+        for (int v = 0; v < nodeCount; v++) {
+            System.arraycopy(upTargets[v], 0, targets, firstUp[v], upTargets[v].length);
+            System.arraycopy(upWeights[v], 0, edgeWeights, firstUp[v], upWeights[v].length);
+            System.arraycopy(upMiddles[v], 0, middles, firstUp[v], upMiddles[v].length);
+        }
+        return new ContractionHierarchy(graph, weights, rank, firstUp, targets, edgeWeights, middles, shortcutCount);
+    }
+}
@@ -0,0 +1,247 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 可定制收缩层次（Customizable Contraction Hierarchies）。
+ * 预处理只依赖拓扑：按嵌套剖分顺序收缩节点，不做见证搜索，
+ * 把每个节点的较高邻居两两连成捷径，并记录所有下三角形。
+ * 边权重变化（如拥挤度刷新）时只需按排名自底向上松弛三角形即可得到新的层次，
+ * 耗时为毫秒级，无需重建拓扑。
+ */
+public final class CustomizableContractionHierarchy {
+    private final RoadGraph topology;
+    private final int[] rank;
+    private final int[] order; // order[i] 为排名 i 的节点
+    private final int[] firstUp;
+    private final int[] upTargets;
+    private final int[] arcEdges; // 对应的原始边编号，纯捷径为 -1
+    private final int[] firstTriangle;
+    private final int[] triangleArcs; // 每个三角形依次存放 (x,u)、(x,v)、(u,v) 三条弧
+    private final int shortcutCount;
+
+    private CustomizableContractionHierarchy(RoadGraph topology, int[] rank, int[] firstUp, int[] upTargets,
+                                             int[] arcEdges, int[] firstTriangle, int[] triangleArcs,
+                                             int shortcutCount) {
+        this.topology = topology;
+        this.rank = rank;
+        this.order = new int[rank.length];
+        for (int v = 0; v < rank.length; v++) {
+            order[rank[v]] = v;
+        }
+        this.firstUp = firstUp;
+        this.upTargets = upTargets;
+        this.arcEdges = arcEdges;
+        this.firstTriangle = firstTriangle;
+        this.triangleArcs = triangleArcs;
+        this.shortcutCount = shortcutCount;
+    }
+
+    /**
+     * 与度量无关的预处理，每个路网拓扑只需执行一次。
+     */
+    public static CustomizableContractionHierarchy prepare(RoadGraph graph) {
+        int n = graph.getNodeCount();
+        int[] rank = NestedDissectionOrder.compute(graph);
+
+        // 动态邻接表，只保留尚未收缩的节点
+        int[][] neighbors = new int[n][];
+        int[] degrees = new int[n];
+        for (int v = 0; v < n; v++) {
+            neighbors[v] = new int[Math.max(graph.edgeEnd(v) - graph.edgeBegin(v), 2)];
+            for (int e = graph.edgeBegin(v); e < graph.edgeEnd(v); e++) {
+                neighbors[v][degrees[v]++] = graph.getEdgeTarget(e);
+            }
+        }
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            order[rank[v]] = v;
+        }
+
+        int[][] up = new int[n][];
+        int[] marks = new int[n];
+        int stamp = 0;
+        for (int x : order) {
+            int[] higher = Arrays.copyOf(neighbors[x], degrees[x]);
+            Arrays.sort(higher);
+            up[x] = higher;
+            for (int u : higher) {
+                removeNeighbor(neighbors, degrees, u, x);
+            }
+            // 较高邻居两两相连
+            for (int i = 0; i < higher.length; i++) {
+                int u = higher[i];
+                stamp++;
+                for (int k = 0; k < degrees[u]; k++) {
+                    marks[neighbors[u][k]] = stamp;
+                }
+                for (int j = i + 1; j < higher.length; j++) {
+                    int v = higher[j];
+                    if (marks[v] != stamp) {
+                        appendNeighbor(neighbors, degrees, u, v);
+                        appendNeighbor(neighbors, degrees, v, u);
+                    }
+                }
+            }
+            neighbors[x] = null;
+        }
+
+        int[] firstUp = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            firstUp[v + 1] = firstUp[v] + up[v].length;
+        }
+        int arcCount = firstUp[n];
+        int[] upTargets = new int[arcCount];
+        int[] arcEdges = new int[arcCount];
+        int shortcutCount = 0;
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(up[v], 0, upTargets, firstUp[v], up[v].length);
+            for (int a = firstUp[v]; a < firstUp[v + 1]; a++) {
+                arcEdges[a] = graph.findEdge(v, upTargets[a]);
+                if (arcEdges[a] < 0) shortcutCount++;
+            }
+        }
+
+        // 枚举下三角形：x 的两条向上弧 (x,u)、(x,v) 与弧 (u,v)
+        int[] firstTriangle = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int degree = up[v].length;
+            firstTriangle[v + 1] = firstTriangle[v] + degree * (degree - 1) / 2;
+        }
+        int[] triangleArcs = new int[firstTriangle[n] * 3];
+        int t = 0;
+        for (int x = 0; x < n; x++) {
+            for (int i = firstUp[x]; i < firstUp[x + 1]; i++) {
+                for (int j = i + 1; j < firstUp[x + 1]; j++) {
+                    int u = upTargets[i];
+                    int v = upTargets[j];
+                    triangleArcs[t++] = i;
+                    triangleArcs[t++] = j;
+                    triangleArcs[t++] = rank[u] < rank[v]
+                        ? findArc(firstUp, upTargets, u, v)
+                        : findArc(firstUp, upTargets, v, u);
+                }
+            }
+        }
+        return new CustomizableContractionHierarchy(graph, rank, firstUp, upTargets, arcEdges,
+            firstTriangle, triangleArcs, shortcutCount);
+    }
+
+    /**
+     * 按给定快照的边权重定制层次。
+     * @param graph 与预处理拓扑相同的路网快照，属性（拥挤度）可以不同
+     */
+    public ContractionHierarchy customize(RoadGraph graph, double[] weights) {
+        if (graph.getTopologyVersion() != topology.getTopologyVersion()) {
+            throw new IllegalArgumentException("Road graph topology does not match the prepared hierarchy");
+        }
+        double[] arcWeights = new double[upTargets.length];
+        int[] middles = new int[upTargets.length];
+        for (int a = 0; a < arcWeights.length; a++) {
+            arcWeights[a] = arcEdges[a] >= 0 ? weights[arcEdges[a]] : Double.POSITIVE_INFINITY;
+            middles[a] = -1;
+        }
+        // 排名自低向高处理，保证 (x,u)、(x,v) 在用于松弛 (u,v) 之前已定型
+        for (int x : order) {
+            for (int t = firstTriangle[x] * 3; t < firstTriangle[x + 1] * 3; t += 3) {
+                double via = arcWeights[triangleArcs[t]] + arcWeights[triangleArcs[t + 1]];
+                int target = triangleArcs[t + 2];
+                if (via < arcWeights[target]) {
+                    arcWeights[target] = via;
+                    middles[target] = x;
+                }
+            }
+        }
+        return new ContractionHierarchy(graph, weights, rank, firstUp, upTargets, arcWeights, middles, shortcutCount);
+    }
+
+    /**
+     * 读取 {@link #writeTo} 写出的预处理结果。
+     * @param graph 与写出时拓扑相同的路网快照
+     */
+    public static CustomizableContractionHierarchy readFrom(ArtifactReader in, RoadGraph graph) throws IOException {
+        int[] rank = in.readInts();
+        int[] firstUp = in.readInts();
+        int[] upTargets = in.readInts();
+        int[] arcEdges = in.readInts();
+        int[] firstTriangle = in.readInts();
+        int[] triangleArcs = in.readInts();
+        int shortcutCount = in.readInt();
+        int n = graph.getNodeCount();
+        if (rank.length != n || firstUp.length != n + 1 || arcEdges.length != upTargets.length
+            || firstTriangle.length != n + 1 || shortcutCount < 0 || shortcutCount > upTargets.length) {
+            throw new IOException("Customizable hierarchy does not match the road graph");
+        }
+        ArtifactReader.requirePermutation(rank, "Hierarchy rank");
+        ArtifactReader.requireOffsets(firstUp, upTargets.length, "upward arc");
+        ArtifactReader.requireRange(upTargets, 0, n, "Upward arc target");
+        ArtifactReader.requireRange(arcEdges, -1, graph.getEdgeCount(), "Arc edge");
+        if (triangleArcs.length % 3 != 0) {
+            throw new IOException("Invalid triangle arc count " + triangleArcs.length);
+        }
+        ArtifactReader.requireOffsets(firstTriangle, triangleArcs.length / 3, "triangle");
+        // 三角形的前两条弧必须是 x 自身的向上弧，第三条可以是任意弧
+        for (int x = 0; x < n; x++) {
+            for (int t = firstTriangle[x] * 3; t < firstTriangle[x + 1] * 3; t += 3) {
+                if (triangleArcs[t] < firstUp[x] || triangleArcs[t] >= firstUp[x + 1]
+                    || triangleArcs[t + 1] < firstUp[x] || triangleArcs[t + 1] >= firstUp[x + 1]
+                    || triangleArcs[t + 2] < 0 || triangleArcs[t + 2] >= upTargets.length) {
+                    throw new IOException("Triangle arc out of range at node " + x);
+                }
+            }
+        }
+        return new CustomizableContractionHierarchy(graph, rank, firstUp, upTargets, arcEdges,
+            firstTriangle, triangleArcs, shortcutCount);
+    }
+
+    // 写出与度量无关的预处理结果
+    public void writeTo(ArtifactWriter out) throws IOException {
+        out.writeInts(rank);
+        out.writeInts(firstUp);
+        out.writeInts(upTargets);
+        out.writeInts(arcEdges);
+        out.writeInts(firstTriangle);
+        out.writeInts(triangleArcs);
+        out.writeInt(shortcutCount);
+    }
+
+    public RoadGraph getTopology() {
+        return topology;
+    }
+
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    public int getTriangleCount() {
+        return firstTriangle[firstTriangle.length - 1];
+    }
+
+    private static int findArc(int[] firstUp, int[] upTargets, int lower, int higher) {
+        int index = Arrays.binarySearch(upTargets, firstUp[lower], firstUp[lower + 1], higher);
+        if (index < 0) {
+            throw new IllegalStateException("Missing hierarchy arc " + lower + " -> " + higher);
+        }
+        return index;
+    }
+
+    private static void removeNeighbor(int[][] neighbors, int[] degrees, int node, int removed) {
+        int[] list = neighbors[node];
+        for (int i = 0; i < degrees[node]; i++) {
+            if (list[i] == removed) {
+                list[i] = list[--degrees[node]];
+                return;
+            }
+        }
+    }
+
+    private static void appendNeighbor(int[][] neighbors, int[] degrees, int node, int added) {
+        if (degrees[node] == neighbors[node].length) {
+            neighbors[node] = Arrays.copyOf(neighbors[node], degrees[node] * 2);
+        }
+        neighbors[node][degrees[node]++] = added;
+    }
+}
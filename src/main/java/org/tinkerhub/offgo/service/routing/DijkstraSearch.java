@@ -0,0 +1,98 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+import java.util.Arrays;
+
+/**
+ * 单源 Dijkstra，用于预处理与一对多查询。
+ */
+public final class DijkstraSearch {
+
+    private DijkstraSearch() {
+    }
+
+    /**
+     * 计算 source 到所有节点的最短距离。
+     * @return 下标为节点编号的距离数组，不可达为正无穷
+     */
+    public static double[] oneToAll(RoadGraph graph, double[] weights, int source) {
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        workspace.reset(graph.getNodeCount());
+        workspace.update(source, 0, -1, -1, 0);
+        IndexedMinHeap heap = workspace.getHeap();
+
+        double[] distances = new double[graph.getNodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            workspace.settle(u);
+            double distance = workspace.getDistance(u);
+            distances[u] = distance;
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                double tentative = distance + weights[e];
+                if (!workspace.isSettled(v) && tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative);
+                }
+            }
+        }
+        workspace.finish();
+        return distances;
+    }
+
+    /**
+     * 计算一个吸附位置到多个吸附位置的最短路径代价（不含接驳段）。
+     * 所有目标所在边的端点都确定后提前结束搜索。
+     * @return 下标与 targets 一致的代价数组，不可达为正无穷
+     */
+    public static double[] oneToMany(RoadGraph graph, double[] weights, GraphLocation source,
+                                     GraphLocation[] targets) {
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        workspace.reset(graph.getNodeCount());
+        IndexedMinHeap heap = workspace.getHeap();
+        workspace.update(source.getFromNode(), source.costToFrom(weights), -1, -1, source.costToFrom(weights));
+        double costB = source.costToTo(weights);
+        if (costB < workspace.getDistance(source.getToNode())) {
+            workspace.update(source.getToNode(), costB, -1, -1, costB);
+        }
+
+        // 目标边端点去重排序，确定节点时二分查找
+        int[] targetNodes = new int[targets.length * 2];
+        for (int i = 0; i < targets.length; i++) {
+            targetNodes[2 * i] = targets[i].getFromNode();
+            targetNodes[2 * i + 1] = targets[i].getToNode();
+        }
+        targetNodes = Arrays.stream(targetNodes).sorted().distinct().toArray();
+        int pending = targetNodes.length;
+        while (!heap.isEmpty() && pending > 0) {
+            int u = heap.pop();
+            workspace.settle(u);
+            double distance = workspace.getDistance(u);
+            if (Arrays.binarySearch(targetNodes, u) >= 0) {
+                pending--;
+            }
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                double tentative = distance + weights[e];
+                if (!workspace.isSettled(v) && tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative);
+                }
+            }
+        }
+        workspace.finish();
+
+        double[] costs = new double[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            GraphLocation target = targets[i];
+            double best = Math.min(
+                workspace.getDistance(target.getFromNode()) + target.costToFrom(weights),
+                workspace.getDistance(target.getToNode()) + target.costToTo(weights));
+            if (source.isOnSameSegment(target)) {
+                best = Math.min(best, source.costAlongSegmentTo(target, weights));
+            }
+            costs[i] = best;
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,88 @@
+package org.tinkerhub.offgo.service.routing;
+
+/**
+ * 请求坐标在路网上的吸附结果：原始点、投影点以及投影所在的边。
+ * 搜索时以边的两个端点作为起点/终点，并按投影位置分摊边权。
+ */
+public final class GraphLocation {
+    private final double latitude;
+    private final double longitude;
+    private final double snappedLatitude;
+    private final double snappedLongitude;
+    private final int edge;       // 投影所在的边 fromNode -> toNode
+    private final int fromNode;
+    private final int toNode;
+    private final double fraction; // 投影点在边上的位置，0 为 fromNode，1 为 toNode
+    private final double accessDistance; // 原始点到投影点的距离（米）
+
+    public GraphLocation(double latitude, double longitude, double snappedLatitude, double snappedLongitude,
+                         int edge, int fromNode, int toNode, double fraction, double accessDistance) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.snappedLatitude = snappedLatitude;
+        this.snappedLongitude = snappedLongitude;
+        this.edge = edge;
+        this.fromNode = fromNode;
+        this.toNode = toNode;
+        this.fraction = fraction;
+        this.accessDistance = accessDistance;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getSnappedLatitude() {
+        return snappedLatitude;
+    }
+
+    public double getSnappedLongitude() {
+        return snappedLongitude;
+    }
+
+    public int getEdge() {
+        return edge;
+    }
+
+    public int getFromNode() {
+        return fromNode;
+    }
+
+    public int getToNode() {
+        return toNode;
+    }
+
+    public double getFraction() {
+        return fraction;
+    }
+
+    public double getAccessDistance() {
+        return accessDistance;
+    }
+
+    // 投影点到 fromNode 的代价
+    public double costToFrom(double[] weights) {
+        return weights[edge] * fraction;
+    }
+
+    // 投影点到 toNode 的代价
+    public double costToTo(double[] weights) {
+        return weights[edge] * (1 - fraction);
+    }
+
+    // 两个位置是否吸附在同一条无向边上
+    public boolean isOnSameSegment(GraphLocation other) {
+        return (fromNode == other.fromNode && toNode == other.toNode)
+            || (fromNode == other.toNode && toNode == other.fromNode);
+    }
+
+    // 沿同一条边从本位置直接到达 other 的代价
+    public double costAlongSegmentTo(GraphLocation other, double[] weights) {
+        double otherFraction = other.fromNode == fromNode ? other.fraction : 1 - other.fraction;
+        return weights[edge] * Math.abs(fraction - otherFraction);
+    }
+}
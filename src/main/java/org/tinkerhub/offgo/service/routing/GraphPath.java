@@ -0,0 +1,91 @@
+package org.tinkerhub.offgo.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * 搜索得到的路径几何。
+ * 第 i 段（点 i 到点 i + 1）记录其所在的边编号，起终点接入段为 -1。
+ */
+public final class GraphPath {
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] segmentEdges;
+    private final int size;
+    private final double cost;
+
+    private GraphPath(double[] latitudes, double[] longitudes, int[] segmentEdges, int size, double cost) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.segmentEdges = segmentEdges;
+        this.size = size;
+        this.cost = cost;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    // 第 index 段所在的边，-1 表示不在路网上
+    public int getSegmentEdge(int index) {
+        return segmentEdges[index];
+    }
+
+    // 搜索度量下的总代价（不含起终点接入段）
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * 逐点构建路径，自动跳过与上一点坐标相同的点。
+     */
+    public static final class Builder {
+        private double[] latitudes = new double[32];
+        private double[] longitudes = new double[32];
+        private int[] segmentEdges = new int[32];
+        private int size;
+
+        // 追加一个点，edge 为上一点到该点所经过的边
+        public Builder add(double latitude, double longitude, int edge) {
+            if (size > 0 && latitudes[size - 1] == latitude && longitudes[size - 1] == longitude) {
+                return this;
+            }
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+                segmentEdges = Arrays.copyOf(segmentEdges, size * 2);
+            }
+            if (size > 0) {
+                segmentEdges[size - 1] = edge;
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            segmentEdges[size] = -1;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // 接上另一条路径，其首点与当前末点重合时只保留一个
+        public Builder append(GraphPath path) {
+            for (int i = 0; i < path.size(); i++) {
+                add(path.getLatitude(i), path.getLongitude(i), i == 0 ? -1 : path.getSegmentEdge(i - 1));
+            }
+            return this;
+        }
+
+        public GraphPath build(double cost) {
+            return new GraphPath(latitudes, longitudes, segmentEdges, size, cost);
+        }
+    }
+}
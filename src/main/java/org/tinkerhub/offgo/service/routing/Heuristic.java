@@ -0,0 +1,11 @@
+package org.tinkerhub.offgo.service.routing;
+
+/**
+ * A* 的目标估价函数，返回值必须是到目标真实代价的下界。
+ */
+@FunctionalInterface
+public interface Heuristic {
+    Heuristic ZERO = node -> 0;
+
+    double estimate(int node);
+}
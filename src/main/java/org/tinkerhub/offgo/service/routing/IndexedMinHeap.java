@@ -0,0 +1,131 @@
+package org.tinkerhub.offgo.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * 以节点编号为下标的 4 叉最小堆，支持 decrease-key。
+ * 位置数组记录每个节点在堆中的槽位，contains 与 decrease-key 均为 O(1) 定位。
+ */
+public final class IndexedMinHeap {
+    private static final int ARITY = 4;
+
+    private int[] nodes;
+    private double[] keys;
+    private int[] positions; // 节点不在堆中时为 -1
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        nodes = new int[Math.max(capacity, 16)];
+        keys = new double[nodes.length];
+        positions = new int[Math.max(capacity, 16)];
+        Arrays.fill(positions, -1);
+    }
+
+    // 保证节点编号空间至少为 nodeCount
+    public void ensureCapacity(int nodeCount) {
+        if (positions.length < nodeCount) {
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, nodeCount);
+            Arrays.fill(positions, oldLength, nodeCount, -1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    public double peekKey() {
+        return keys[0];
+    }
+
+    public int peek() {
+        return nodes[0];
+    }
+
+    // 插入节点；节点已在堆中且新键值更小时执行 decrease-key
+    public void push(int node, double key) {
+        int position = positions[node];
+        if (position >= 0) {
+            if (key < keys[position]) {
+                keys[position] = key;
+                siftUp(position);
+            }
+            return;
+        }
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        nodes[size] = node;
+        keys[size] = key;
+        positions[node] = size;
+        siftUp(size++);
+    }
+
+    public int pop() {
+        int top = nodes[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            nodes[0] = nodes[size];
+            keys[0] = keys[size];
+            positions[nodes[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // 清空堆，只重置仍在堆中的节点位置
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int node = nodes[position];
+        double key = keys[position];
+        while (position > 0) {
+            int parent = (position - 1) / ARITY;
+            if (keys[parent] <= key) break;
+            nodes[position] = nodes[parent];
+            keys[position] = keys[parent];
+            positions[nodes[position]] = position;
+            position = parent;
+        }
+        nodes[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        int node = nodes[position];
+        double key = keys[position];
+        while (true) {
+            int first = position * ARITY + 1;
+            if (first >= size) break;
+            int last = Math.min(first + ARITY, size);
+            int smallest = first;
+            for (int child = first + 1; child < last; child++) {
+                if (keys[child] < keys[smallest]) smallest = child;
+            }
+            if (keys[smallest] >= key) break;
+            nodes[position] = nodes[smallest];
+            keys[position] = keys[smallest];
+            positions[nodes[position]] = position;
+            position = smallest;
+        }
+        nodes[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+}
@@ -0,0 +1,68 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+/**
+ * 有界单源 Dijkstra，用于可达范围查询。
+ * 代价超过上限、已确定的节点数达到上限或监听器要求停止时结束；节点按代价从小到大依次交给监听器，
+ * 调用方可以边搜索边输出结果，不需要保存整棵搜索树。
+ */
+public final class IsochroneSearch {
+
+    private IsochroneSearch() {
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        // 节点 node 的最短代价已确定，按 cost 非递减的顺序调用；返回 false 时停止搜索
+        boolean settled(int node, double cost);
+    }
+
+    /**
+     * 从吸附位置出发扩展到代价 limit 为止。
+     * @return 因节点数达到 maxSettled 而提前停止时返回 false，监听器主动停止不算截断
+     */
+    public static boolean run(RoadGraph graph, double[] weights, GraphLocation source, double limit,
+                              int maxSettled, Listener listener) {
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        workspace.reset(graph.getNodeCount());
+        try {
+            return expand(graph, weights, workspace, source, limit, maxSettled, listener);
+        } finally {
+            workspace.finish();
+        }
+    }
+
+    private static boolean expand(RoadGraph graph, double[] weights, SearchWorkspace workspace, GraphLocation source,
+                                  double limit, int maxSettled, Listener listener) {
+        IndexedMinHeap heap = workspace.getHeap();
+        double costA = source.costToFrom(weights);
+        if (costA <= limit) {
+            workspace.update(source.getFromNode(), costA, -1, -1, costA);
+        }
+        double costB = source.costToTo(weights);
+        if (costB <= limit && costB < workspace.getDistance(source.getToNode())) {
+            workspace.update(source.getToNode(), costB, -1, -1, costB);
+        }
+
+        while (!heap.isEmpty()) {
+            if (workspace.getSettledCount() >= maxSettled) {
+                return false;
+            }
+            int u = heap.pop();
+            workspace.settle(u);
+            double distance = workspace.getDistance(u);
+            if (!listener.settled(u, distance)) {
+                return true;
+            }
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                double tentative = distance + weights[e];
+                if (tentative <= limit && !workspace.isSettled(v) && tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative);
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package org.tinkerhub.offgo.service.routing;
+
+/**
+ * 分层搜索的结果：完整路径及其中骑行的一段。
+ * 第 mountIndex 个点上车、第 dismountIndex 个点下车，其间各段骑行，其余步行；全程步行时两者均为 -1。
+ */
+public final class ModalPath {
+    private final GraphPath path;
+    private final int mountIndex;
+    private final int dismountIndex;
+
+    ModalPath(GraphPath path, int mountIndex, int dismountIndex) {
+        this.path = path;
+        this.mountIndex = mountIndex;
+        this.dismountIndex = dismountIndex;
+    }
+
+    public GraphPath getPath() {
+        return path;
+    }
+
+    public int getMountIndex() {
+        return mountIndex;
+    }
+
+    public int getDismountIndex() {
+        return dismountIndex;
+    }
+
+    public boolean isRiding() {
+        return mountIndex >= 0;
+    }
+}
@@ -0,0 +1,213 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+/**
+ * 步行 + 电动车的分层图搜索。
+ * 每个路网节点在搜索中展开为三个状态：上车前步行、骑行、下车后步行。
+ * 步行层可以走所有道路；骑行层只能走主干道；主干道上的任意节点都可以上下车，
+ * 上车和下车各计 {@link #SWITCH_SECONDS} 秒。一次 A* 同时决定上车点、骑行路线和下车点。
+ */
+public final class MultiModalRouter {
+    // 取车、停车的固定用时
+    public static final double SWITCH_SECONDS = 30;
+
+    private static final int WALK_BEFORE = 0;
+    private static final int RIDE = 1;
+    private static final int WALK_AFTER = 2;
+    private static final int LAYERS = 3;
+
+    private MultiModalRouter() {
+    }
+
+    /**
+     * 按快照拥挤度计算两个吸附位置之间用时最短的步行/骑行组合。
+     * @param distanceBound 到终点投影点距离（米）的下界，如直线距离或地标估价
+     * @return 两点不连通时返回 null
+     */
+    public static ModalPath route(RoadGraph graph, GraphLocation from, GraphLocation to, Heuristic distanceBound) {
+        return route(graph, from, to, distanceBound, Double.NaN);
+    }
+
+    /**
+     * 同上，骑行段按 departure 时刻（当天秒数）起的拥挤度曲线计算用时；departure 为 NaN 时使用快照拥挤度。
+     */
+    public static ModalPath route(RoadGraph graph, GraphLocation from, GraphLocation to, Heuristic distanceBound,
+                                  double departure) {
+        boolean timeDependent = !Double.isNaN(departure);
+        double[] walkWeights = graph.getEdgeWeights(TravelMetric.WALKING);
+        double[] rideWeights = graph.getEdgeWeights(TravelMetric.ELECTRIC);
+        double[] lengths = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        double maxSpeed = TravelMetric.ELECTRIC.getMaxSpeed();
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        workspace.reset(graph.getNodeCount() * LAYERS);
+
+        // 起点所在边的两个端点作为步行起点；起点就在主干道上时也可以在投影点直接上车
+        push(workspace, state(from.getFromNode(), WALK_BEFORE), from.costToFrom(walkWeights), -1, -1,
+            distanceBound, maxSpeed);
+        push(workspace, state(from.getToNode(), WALK_BEFORE), from.costToTo(walkWeights), -1, -1,
+            distanceBound, maxSpeed);
+        if (isPrimary(graph, from.getEdge())) {
+            double toFrom = timeDependent
+                ? TravelMetric.ELECTRIC.travelTime(graph, from.getEdge(), from.costToFrom(lengths), departure)
+                : from.costToFrom(rideWeights);
+            double toTo = timeDependent
+                ? TravelMetric.ELECTRIC.travelTime(graph, from.getEdge(), from.costToTo(lengths), departure)
+                : from.costToTo(rideWeights);
+            push(workspace, state(from.getFromNode(), RIDE), SWITCH_SECONDS + toFrom, -1, -1,
+                distanceBound, maxSpeed);
+            push(workspace, state(from.getToNode(), RIDE), SWITCH_SECONDS + toTo, -1, -1,
+                distanceBound, maxSpeed);
+        }
+
+        int targetA = to.getFromNode();
+        int targetB = to.getToNode();
+        boolean targetOnPrimary = isPrimary(graph, to.getEdge());
+
+        double best = Double.POSITIVE_INFINITY;
+        int bestState = -1;
+        // 起终点在同一条边上时可以直接步行到达
+        if (from.isOnSameSegment(to)) {
+            best = from.costAlongSegmentTo(to, walkWeights);
+        }
+
+        IndexedMinHeap heap = workspace.getHeap();
+        while (!heap.isEmpty() && heap.peekKey() < best) {
+            int s = heap.pop();
+            workspace.settle(s);
+            double elapsed = workspace.getDistance(s);
+            int u = s / LAYERS;
+            int layer = s % LAYERS;
+
+            if (u == targetA || u == targetB) {
+                double arrival;
+                if (layer != RIDE) {
+                    arrival = elapsed + (u == targetA ? to.costToFrom(walkWeights) : to.costToTo(walkWeights));
+                } else if (targetOnPrimary) {
+                    // 骑到终点投影点后下车
+                    double length = u == targetA ? to.costToFrom(lengths) : to.costToTo(lengths);
+                    double ride = timeDependent
+                        ? TravelMetric.ELECTRIC.travelTime(graph, to.getEdge(), length, departure + elapsed)
+                        : (u == targetA ? to.costToFrom(rideWeights) : to.costToTo(rideWeights));
+                    arrival = elapsed + ride + SWITCH_SECONDS;
+                } else {
+                    arrival = Double.POSITIVE_INFINITY;
+                }
+                if (arrival < best) {
+                    best = arrival;
+                    bestState = s;
+                }
+            }
+
+            // 主干道节点上切换到下一层
+            if (layer != WALK_AFTER && isPrimaryNode(graph, u)) {
+                int next = state(u, layer + 1);
+                if (!workspace.isSettled(next) && elapsed + SWITCH_SECONDS < workspace.getDistance(next)) {
+                    push(workspace, next, elapsed + SWITCH_SECONDS, s, -1, distanceBound, maxSpeed);
+                }
+            }
+
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                double weight;
+                if (layer == RIDE) {
+                    if (!isPrimary(graph, e)) {
+                        continue;
+                    }
+                    weight = timeDependent
+                        ? TravelMetric.ELECTRIC.travelTime(graph, e, lengths[e], departure + elapsed)
+                        : rideWeights[e];
+                } else {
+                    weight = walkWeights[e];
+                }
+                int next = state(graph.getEdgeTarget(e), layer);
+                if (workspace.isSettled(next)) {
+                    continue;
+                }
+                double tentative = elapsed + weight;
+                if (tentative < workspace.getDistance(next)) {
+                    push(workspace, next, tentative, s, e, distanceBound, maxSpeed);
+                }
+            }
+        }
+        workspace.finish();
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (bestState < 0) {
+            return new ModalPath(PathAssembler.direct(from, to, best), -1, -1);
+        }
+        return assemble(graph, workspace, from, to, bestState, best);
+    }
+
+    // 全程步行的路径
+    public static ModalPath walking(GraphPath path) {
+        return new ModalPath(path, -1, -1);
+    }
+
+    private static int state(int node, int layer) {
+        return node * LAYERS + layer;
+    }
+
+    // 估价对三层都使用最快的电动车速度，保证一致性
+    private static void push(SearchWorkspace workspace, int state, double cost, int parent, int edge,
+                             Heuristic distanceBound, double maxSpeed) {
+        if (cost < workspace.getDistance(state)) {
+            workspace.update(state, cost, parent, edge, cost + distanceBound.estimate(state / LAYERS) / maxSpeed);
+        }
+    }
+
+    private static boolean isPrimary(RoadGraph graph, int edge) {
+        return "primary".equals(graph.getEdgeRoadType(edge));
+    }
+
+    // 节点连接主干道时允许上下车
+    private static boolean isPrimaryNode(RoadGraph graph, int node) {
+        for (int e = graph.edgeBegin(node); e < graph.edgeEnd(node); e++) {
+            if (isPrimary(graph, e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 回溯状态树，同一节点上的层切换记为上车点或下车点
+    private static ModalPath assemble(RoadGraph graph, SearchWorkspace workspace, GraphLocation from,
+                                      GraphLocation to, int last, double cost) {
+        int count = 0;
+        for (int s = last; s >= 0; s = workspace.getParentNode(s)) {
+            count++;
+        }
+        int[] states = new int[count];
+        int index = count;
+        for (int s = last; s >= 0; s = workspace.getParentNode(s)) {
+            states[--index] = s;
+        }
+
+        GraphPath.Builder builder = new GraphPath.Builder();
+        builder.add(from.getLatitude(), from.getLongitude(), -1);
+        builder.add(from.getSnappedLatitude(), from.getSnappedLongitude(), -1);
+        int mountIndex = states[0] % LAYERS == RIDE ? builder.size() - 1 : -1;
+        int dismountIndex = -1;
+        for (int i = 0; i < count; i++) {
+            int node = states[i] / LAYERS;
+            if (i > 0 && node == states[i - 1] / LAYERS) {
+                if (states[i] % LAYERS == RIDE) {
+                    mountIndex = builder.size() - 1;
+                } else {
+                    dismountIndex = builder.size() - 1;
+                }
+                continue;
+            }
+            builder.add(graph.getLatitude(node), graph.getLongitude(node),
+                i == 0 ? from.getEdge() : workspace.getParentEdge(states[i]));
+        }
+        builder.add(to.getSnappedLatitude(), to.getSnappedLongitude(), to.getEdge());
+        if (last % LAYERS == RIDE) {
+            dismountIndex = builder.size() - 1;
+        }
+        builder.add(to.getLatitude(), to.getLongitude(), -1);
+        return new ModalPath(builder.build(cost), mountIndex, dismountIndex);
+    }
+}
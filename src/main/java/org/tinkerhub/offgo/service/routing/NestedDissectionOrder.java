@@ -0,0 +1,176 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+/**
+ * 基于递归坐标二分的嵌套剖分（nested dissection）节点顺序。
+ * 每一层沿跨度较大的坐标轴在中位数处切分，切口两侧相连的边界节点作为分隔集，
+ * 分隔集获得当前最高的排名，两侧子区域递归处理。
+ * 该顺序只依赖路网几何与拓扑，与边权重无关。
+ */
+final class NestedDissectionOrder {
+    // 子区域节点数不超过该值时不再切分
+    private static final int LEAF_SIZE = 16;
+
+    private final RoadGraph graph;
+    private final int[] rank;
+    private final int[] sides;
+    private int sideStamp;
+    private int nextRank;
+
+    private NestedDissectionOrder(RoadGraph graph) {
+        this.graph = graph;
+        this.rank = new int[graph.getNodeCount()];
+        this.sides = new int[graph.getNodeCount()];
+        this.nextRank = graph.getNodeCount() - 1;
+    }
+
+    /**
+     * @return rank[v] 为节点 v 的排名，排名越高越晚收缩
+     */
+    static int[] compute(RoadGraph graph) {
+        NestedDissectionOrder order = new NestedDissectionOrder(graph);
+        int[] nodes = new int[graph.getNodeCount()];
+        for (int v = 0; v < nodes.length; v++) {
+            nodes[v] = v;
+        }
+        order.dissect(nodes, 0, nodes.length);
+        return order.rank;
+    }
+
+    // 处理 nodes[from, to) 中的子区域，分配到的排名从 nextRank 向下递减
+    private void dissect(int[] nodes, int from, int to) {
+        int size = to - from;
+        if (size <= LEAF_SIZE) {
+            for (int i = from; i < to; i++) {
+                rank[nodes[i]] = nextRank--;
+            }
+            return;
+        }
+
+        boolean byLatitude = latitudeSpan(nodes, from, to) >= longitudeSpan(nodes, from, to);
+        int middle = from + size / 2;
+        select(nodes, from, to - 1, middle, byLatitude);
+
+        // 标记右半部分，统计两侧各自的边界节点数，取较小的一侧作为分隔集
+        int leftStamp = ++sideStamp;
+        for (int i = from; i < middle; i++) sides[nodes[i]] = leftStamp;
+        int rightStamp = ++sideStamp;
+        for (int i = middle; i < to; i++) sides[nodes[i]] = rightStamp;
+        int leftBoundary = countBoundary(nodes, from, middle, rightStamp);
+        int rightBoundary = countBoundary(nodes, middle, to, leftStamp);
+
+        int leftEnd;
+        int rightStart;
+        if (leftBoundary <= rightBoundary) {
+            leftEnd = moveBoundaryToEnd(nodes, from, middle, rightStamp);
+            assignRanks(nodes, leftEnd, middle);
+            rightStart = middle;
+        } else {
+            int separatorEnd = moveBoundaryToStart(nodes, middle, to, leftStamp);
+            assignRanks(nodes, middle, separatorEnd);
+            leftEnd = middle;
+            rightStart = separatorEnd;
+        }
+        dissect(nodes, rightStart, to);
+        dissect(nodes, from, leftEnd);
+    }
+
+    private boolean touches(int v, int otherStamp) {
+        for (int e = graph.edgeBegin(v); e < graph.edgeEnd(v); e++) {
+            if (sides[graph.getEdgeTarget(e)] == otherStamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int countBoundary(int[] nodes, int from, int to, int otherStamp) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (touches(nodes[i], otherStamp)) count++;
+        }
+        return count;
+    }
+
+    // 把边界节点移到区间末尾，返回边界节点的起始下标
+    private int moveBoundaryToEnd(int[] nodes, int from, int to, int otherStamp) {
+        int end = to;
+        for (int i = to - 1; i >= from; i--) {
+            if (touches(nodes[i], otherStamp)) {
+                swap(nodes, i, --end);
+            }
+        }
+        return end;
+    }
+
+    // 把边界节点移到区间开头，返回边界节点的结束下标
+    private int moveBoundaryToStart(int[] nodes, int from, int to, int otherStamp) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (touches(nodes[i], otherStamp)) {
+                swap(nodes, i, start++);
+            }
+        }
+        return start;
+    }
+
+    private void assignRanks(int[] nodes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            rank[nodes[i]] = nextRank--;
+        }
+    }
+
+    private double latitudeSpan(int[] nodes, int from, int to) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double value = graph.getLatitude(nodes[i]);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return max - min;
+    }
+
+    // 经度跨度按纬度余弦换算，与纬度跨度可比
+    private double longitudeSpan(int[] nodes, int from, int to) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double value = graph.getLongitude(nodes[i]);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return (max - min) * Math.cos(Math.toRadians(graph.getLatitude(nodes[from])));
+    }
+
+    private double coordinate(int node, boolean byLatitude) {
+        return byLatitude ? graph.getLatitude(node) : graph.getLongitude(node);
+    }
+
+    // 快速选择：使 nodes[k] 就位，左侧坐标不大于它、右侧不小于它
+    private void select(int[] nodes, int left, int right, int k, boolean byLatitude) {
+        while (left < right) {
+            double pivot = coordinate(nodes[(left + right) >>> 1], byLatitude);
+            int i = left, j = right;
+            while (i <= j) {
+                while (coordinate(nodes[i], byLatitude) < pivot) i++;
+                while (coordinate(nodes[j], byLatitude) > pivot) j--;
+                if (i <= j) {
+                    swap(nodes, i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(int[] nodes, int i, int j) {
+        int tmp = nodes[i];
+        nodes[i] = nodes[j];
+        nodes[j] = tmp;
+    }
+}
@@ -0,0 +1,100 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+
+import java.util.Objects;
+
+/**
+ * 把节点序列与起终点吸附信息拼接为完整的路径几何：
+ * 起点 -> 起点投影 -> 路网节点 ... -> 终点投影 -> 终点。
+ */
+final class PathAssembler {
+
+    private PathAssembler() {
+    }
+
+    /**
+     * @param nodes 路网节点序列
+     * @param edges edges[i] 为 nodes[i - 1] 到 nodes[i] 的边，edges[0] 不使用
+     */
+    static GraphPath assemble(RoadGraph graph, GraphLocation from, GraphLocation to,
+                              int[] nodes, int[] edges, int count, double cost) {
+        GraphPath.Builder builder = new GraphPath.Builder();
+        builder.add(from.getLatitude(), from.getLongitude(), -1);
+        builder.add(from.getSnappedLatitude(), from.getSnappedLongitude(), -1);
+        for (int i = 0; i < count; i++) {
+            builder.add(graph.getLatitude(nodes[i]), graph.getLongitude(nodes[i]), i == 0 ? from.getEdge() : edges[i]);
+        }
+        builder.add(to.getSnappedLatitude(), to.getSnappedLongitude(), to.getEdge());
+        builder.add(to.getLatitude(), to.getLongitude(), -1);
+        return builder.build(cost);
+    }
+
+    // 起终点吸附在同一条边上时，沿该边直接到达
+    static GraphPath direct(GraphLocation from, GraphLocation to, double cost) {
+        return new GraphPath.Builder()
+            .add(from.getLatitude(), from.getLongitude(), -1)
+            .add(from.getSnappedLatitude(), from.getSnappedLongitude(), -1)
+            .add(to.getSnappedLatitude(), to.getSnappedLongitude(), from.getEdge())
+            .add(to.getLatitude(), to.getLongitude(), -1)
+            .build(cost);
+    }
+
+    // 从搜索树回溯到 node，返回从树根到 node 的路径
+    static GraphPath fromTree(RoadGraph graph, SearchWorkspace workspace, GraphLocation from, GraphLocation to,
+                              int node, double cost) {
+        int count = 0;
+        for (int v = node; v >= 0; v = workspace.getParentNode(v)) {
+            count++;
+        }
+        int[] nodes = new int[count];
+        int[] edges = new int[count];
+        int index = count;
+        for (int v = node; v >= 0; v = workspace.getParentNode(v)) {
+            index--;
+            nodes[index] = v;
+            edges[index] = workspace.getParentEdge(v);
+        }
+        return assemble(graph, from, to, nodes, edges, count, cost);
+    }
+
+    // 正向树从根到相遇点，反向树从相遇点回到终点一侧的根
+    static GraphPath fromTrees(RoadGraph graph, SearchWorkspace forward, SearchWorkspace backward,
+                               GraphLocation from, GraphLocation to, int meeting, double cost) {
+        int forwardCount = 0;
+        for (int v = meeting; v >= 0; v = forward.getParentNode(v)) {
+            forwardCount++;
+        }
+        int count = forwardCount;
+        for (int v = backward.getParentNode(meeting); v >= 0; v = backward.getParentNode(v)) {
+            count++;
+        }
+        int[] nodes = new int[count];
+        int[] edges = new int[count];
+        int index = forwardCount;
+        for (int v = meeting; v >= 0; v = forward.getParentNode(v)) {
+            index--;
+            nodes[index] = v;
+            edges[index] = forward.getParentEdge(v);
+        }
+        // 反向树的父边方向与路径相反，换成同一道路上的反向边
+        index = forwardCount;
+        for (int v = meeting; backward.getParentNode(v) >= 0; v = backward.getParentNode(v)) {
+            int next = backward.getParentNode(v);
+            nodes[index] = next;
+            edges[index] = reverseEdge(graph, backward.getParentEdge(v), v, next);
+            index++;
+        }
+        return assemble(graph, from, to, nodes, edges, count, cost);
+    }
+
+    private static int reverseEdge(RoadGraph graph, int edge, int from, int to) {
+        Long roadId = graph.getEdgeRoadId(edge);
+        for (int e = graph.edgeBegin(from); e < graph.edgeEnd(from); e++) {
+            if (graph.getEdgeTarget(e) == to && Objects.equals(graph.getEdgeRoadId(e), roadId)) {
+                return e;
+            }
+        }
+        return graph.findEdge(from, to);
+    }
+}
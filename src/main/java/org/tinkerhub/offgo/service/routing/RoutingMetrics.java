@@ -0,0 +1,183 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.util.LatencyHistogram;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 路径规划子系统的运行统计：搜索规模、估价与引擎的使用、吸附与建图耗时、各规划入口的端到端耗时。
+ * 记录路径上只有 LongAdder 累加与直方图的原子自增，不加锁；
+ * 导出为 Prometheus 文本格式，由 /actuator/routing 提供。
+ * 搜索的已确定节点数与入堆次数由各线程的工作区在每次搜索结束时计入。
+ */
+public final class RoutingMetrics {
+    // 直方图导出的上界（秒）
+    private static final double[] BUCKET_SECONDS =
+        {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+    private static final long[] BUCKET_MICROS = new long[BUCKET_SECONDS.length];
+    private static final String[] BUCKET_LABELS = new String[BUCKET_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_MICROS[i] = Math.round(BUCKET_SECONDS[i] * 1_000_000);
+            BUCKET_LABELS[i] = BigDecimal.valueOf(BUCKET_SECONDS[i]).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    private static final LongAdder searches = new LongAdder();
+    private static final LongAdder settledNodes = new LongAdder();
+    private static final LongAdder heapPushes = new LongAdder();
+    private static final Map<String, LongAdder> heuristics = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> engines = new ConcurrentHashMap<>();
+    private static final LatencyHistogram snapping = new LatencyHistogram();
+    private static final LatencyHistogram graphBuilds = new LatencyHistogram();
+    private static final Map<PlanKey, LatencyHistogram> plans = new ConcurrentHashMap<>();
+    private static volatile long graphNodes;
+    private static volatile long graphEdges;
+
+    private RoutingMetrics() {
+    }
+
+    private record PlanKey(String planner, String mode) {
+    }
+
+    // 一次搜索结束时的已确定节点数与入堆次数
+    static void recordSearch(int settled, int pushes) {
+        searches.increment();
+        settledNodes.add(settled);
+        heapPushes.add(pushes);
+    }
+
+    // 估价来源：landmark（ALT）或 straight_line（直线距离）
+    public static void recordHeuristic(String type) {
+        heuristics.computeIfAbsent(type, key -> new LongAdder()).increment();
+    }
+
+    // 实际执行查询的引擎（ch 未就绪时计入回退后的引擎）
+    public static void recordEngine(String engine) {
+        engines.computeIfAbsent(engine, key -> new LongAdder()).increment();
+    }
+
+    public static void recordSnap(long nanos) {
+        snapping.record(nanos);
+    }
+
+    public static void recordGraphBuild(long nanos, int nodes, int edges) {
+        graphBuilds.record(nanos);
+        graphNodes = nodes;
+        graphEdges = edges;
+    }
+
+    /**
+     * @param planner 规划入口，如 planRoute、planRouteMulti、planRouteByTime、planElectricRoute
+     * @param mode 交通方式，取值应当有限（walking、bicycle、electric）
+     */
+    public static void recordPlan(String planner, String mode, long nanos) {
+        plans.computeIfAbsent(new PlanKey(planner, mode), key -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * 执行规划并记录端到端耗时（含失败的请求），交通方式按用时度量归一，避免任意取值产生过多标签。
+     * 带 @Cacheable 的规划入口须在缓存代理之外调用本方法，命中缓存的请求才会被记录。
+     */
+    public static <T> T timePlan(String planner, String transportMode, Supplier<T> plan) {
+        long start = System.nanoTime();
+        try {
+            return plan.get();
+        } finally {
+            recordPlan(planner, TravelMetric.forMode(transportMode).name().toLowerCase(Locale.ROOT),
+                System.nanoTime() - start);
+        }
+    }
+
+    // 以 Prometheus 文本格式写出全部统计
+    public static void writeTo(StringBuilder out) {
+        counter(out, "offgo_routing_searches_total", "Shortest path searches (each direction counted)",
+            searches.sum());
+        counter(out, "offgo_routing_settled_nodes_total", "Nodes settled by shortest path searches",
+            settledNodes.sum());
+        counter(out, "offgo_routing_heap_pushes_total", "Priority queue inserts and decrease-keys",
+            heapPushes.sum());
+        labeledCounter(out, "offgo_routing_heuristic_total", "Point-to-point searches by heuristic source",
+            "type", heuristics);
+        labeledCounter(out, "offgo_routing_engine_total", "Point-to-point searches by routing engine",
+            "engine", engines);
+        gauge(out, "offgo_routing_graph_nodes", "Nodes in the published road graph", graphNodes);
+        gauge(out, "offgo_routing_graph_edges", "Directed edges in the published road graph", graphEdges);
+
+        header(out, "offgo_routing_graph_build_seconds", "Road graph rebuild time including preprocessing",
+            "histogram");
+        histogram(out, "offgo_routing_graph_build_seconds", "", graphBuilds);
+        header(out, "offgo_routing_snap_seconds", "Time to snap a coordinate to the road graph", "histogram");
+        histogram(out, "offgo_routing_snap_seconds", "", snapping);
+        header(out, "offgo_route_plan_seconds", "End-to-end route planning time by planner and transport mode",
+            "histogram");
+        Map<String, LatencyHistogram> sorted = new TreeMap<>();
+        plans.forEach((key, histogram) ->
+            sorted.put("planner=\"" + key.planner() + "\",mode=\"" + key.mode() + "\"", histogram));
+        sorted.forEach((labels, histogram) -> histogram(out, "offgo_route_plan_seconds", labels, histogram));
+    }
+
+    /**
+     * 写出一个缓存的命中、未命中与淘汰计数，stats 为 BoundedCache.stats() 的结果。
+     */
+    public static void writeCache(StringBuilder out, String cache, Map<String, Object> stats) {
+        String labels = "{cache=\"" + cache + "\"}";
+        out.append("offgo_cache_hits_total").append(labels).append(' ').append(stats.get("hitCount")).append('\n');
+        out.append("offgo_cache_misses_total").append(labels).append(' ').append(stats.get("missCount")).append('\n');
+        out.append("offgo_cache_evictions_total").append(labels).append(' ')
+            .append(stats.get("evictionCount")).append('\n');
+        out.append("offgo_cache_hit_ratio").append(labels).append(' ').append(stats.get("hitRate")).append('\n');
+    }
+
+    // 缓存指标的 HELP 与 TYPE，在逐个缓存调用 writeCache 之前写出一次
+    public static void writeCacheHeaders(StringBuilder out) {
+        header(out, "offgo_cache_hits_total", "Cache hits", "counter");
+        header(out, "offgo_cache_misses_total", "Cache misses", "counter");
+        header(out, "offgo_cache_evictions_total", "Entries evicted by size", "counter");
+        header(out, "offgo_cache_hit_ratio", "Hits over lookups since start", "gauge");
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, help, "gauge");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void labeledCounter(StringBuilder out, String name, String help, String label,
+                                       Map<String, LongAdder> values) {
+        header(out, name, help, "counter");
+        new TreeMap<>(values).forEach((value, adder) -> out.append(name).append('{').append(label).append("=\"")
+            .append(value).append("\"} ").append(adder.sum()).append('\n'));
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long[] cumulative = histogram.cumulativeCounts(BUCKET_MICROS);
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(BUCKET_LABELS[i])
+                .append("\"} ").append(cumulative[i]).append('\n');
+        }
+        long count = cumulative[BUCKET_SECONDS.length];
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ').append(histogram.getSumNanos() / 1e9).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(count).append('\n');
+    }
+}
@@ -0,0 +1,127 @@
+package org.tinkerhub.offgo.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * 单次最短路搜索所需的全部可复用数组。
+ * 通过时间戳实现惰性重置，每次搜索无需清空整个数组；
+ * 实例不是线程安全的，由各搜索引擎按线程持有。
+ */
+public final class SearchWorkspace {
+    private static final ThreadLocal<SearchWorkspace> WORKSPACES =
+        ThreadLocal.withInitial(() -> new SearchWorkspace(true));
+    private static final ThreadLocal<SearchWorkspace> BACKWARD_WORKSPACES =
+        ThreadLocal.withInitial(() -> new SearchWorkspace(true));
+
+    private double[] distances = new double[0];
+    private int[] parentNodes = new int[0];
+    private int[] parentEdges = new int[0];
+    private int[] reachedStamps = new int[0];
+    private int[] settledStamps = new int[0];
+    private int stamp;
+    private final IndexedMinHeap heap = new IndexedMinHeap(64);
+
+    // 本次搜索的统计
+    private int settledCount;
+    private int pushCount;
+    // 查询用的线程工作区在 finish 时把统计计入 RoutingMetrics，预处理自建的工作区不计入
+    private final boolean recorded;
+
+    public SearchWorkspace() {
+        this(false);
+    }
+
+    private SearchWorkspace(boolean recorded) {
+        this.recorded = recorded;
+    }
+
+    // 当前线程的工作区，同一线程内的搜索依次复用
+    public static SearchWorkspace forCurrentThread() {
+        return WORKSPACES.get();
+    }
+
+    // 双向搜索中反向一侧使用的工作区
+    public static SearchWorkspace backwardForCurrentThread() {
+        return BACKWARD_WORKSPACES.get();
+    }
+
+    public void reset(int nodeCount) {
+        if (distances.length < nodeCount) {
+            distances = new double[nodeCount];
+            parentNodes = new int[nodeCount];
+            parentEdges = new int[nodeCount];
+            reachedStamps = new int[nodeCount];
+            settledStamps = new int[nodeCount];
+            stamp = 0;
+        }
+        heap.ensureCapacity(nodeCount);
+        heap.clear();
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(reachedStamps, 0);
+            Arrays.fill(settledStamps, 0);
+            stamp = 1;
+        }
+        settledCount = 0;
+        pushCount = 0;
+    }
+
+    /**
+     * 搜索结束时调用，把本次确定与入堆的节点数计入 RoutingMetrics，之后计数清零，重复调用不会重复计入。
+     * 搜索结束后的路径还原只读取标签，不受影响。
+     */
+    public void finish() {
+        if (recorded && settledCount + pushCount > 0) {
+            RoutingMetrics.recordSearch(settledCount, pushCount);
+        }
+        settledCount = 0;
+        pushCount = 0;
+    }
+
+    public IndexedMinHeap getHeap() {
+        return heap;
+    }
+
+    public boolean isReached(int node) {
+        return reachedStamps[node] == stamp;
+    }
+
+    public boolean isSettled(int node) {
+        return settledStamps[node] == stamp;
+    }
+
+    public void settle(int node) {
+        settledStamps[node] = stamp;
+        settledCount++;
+    }
+
+    // 未到达的节点距离视为无穷大
+    public double getDistance(int node) {
+        return reachedStamps[node] == stamp ? distances[node] : Double.POSITIVE_INFINITY;
+    }
+
+    public int getParentNode(int node) {
+        return parentNodes[node];
+    }
+
+    public int getParentEdge(int node) {
+        return parentEdges[node];
+    }
+
+    // 更新节点标签并以 key 入堆（A* 中 key = g + h）
+    public void update(int node, double distance, int parentNode, int parentEdge, double key) {
+        reachedStamps[node] = stamp;
+        distances[node] = distance;
+        parentNodes[node] = parentNode;
+        parentEdges[node] = parentEdge;
+        heap.push(node, key);
+        pushCount++;
+    }
+
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    public int getPushCount() {
+        return pushCount;
+    }
+}
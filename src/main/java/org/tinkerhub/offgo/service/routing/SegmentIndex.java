@@ -0,0 +1,345 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 道路线段的 STR（Sort-Tile-Recursive）打包 R 树。
+ * 坐标先按路网中心纬度做等距圆柱投影换算为米，线段投影与距离剪枝都在平面上进行，
+ * 校园尺度下与球面距离的差异可以忽略；返回的接驳距离仍按 Haversine 计算。
+ * 每个条目与树节点另记一个道路类型位图，按类型查询时跳过不含该类型的子树，
+ * 稀有类型也只访问对数级的节点。
+ * 索引只依赖道路几何与类型，拥挤度刷新后可以继续用于新快照。
+ */
+public final class SegmentIndex {
+    private static final int NODE_CAPACITY = 16;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6371000;
+    // 前 63 种道路类型各占一位，其余类型共用最高位，查询时在叶子上再按名称核对
+    private static final int TYPE_BITS = 63;
+    private static final long SHARED_TYPE_BIT = 1L << TYPE_BITS;
+
+    private final RoadGraph topology;
+    private final double lonScale; // 经度一度对应的米数
+
+    // 叶子层：每个线段一个条目，按打包顺序存放
+    private final int[] segmentEdges;
+    private final double[] x1, y1, x2, y2;
+    private final long[] segmentTypes;
+
+    // levels[0] 为叶子之上的第一层，最后一层只有根节点；节点 k 覆盖下一层的 [k*16, k*16+16)
+    private final double[][] minX, minY, maxX, maxY;
+    // 各节点子树中出现过的道路类型位
+    private final long[][] types;
+    private final Map<String, Integer> typeBits;
+
+    private SegmentIndex(RoadGraph topology, double lonScale, int[] segmentEdges,
+                         double[] x1, double[] y1, double[] x2, double[] y2, long[] segmentTypes,
+                         double[][] minX, double[][] minY, double[][] maxX, double[][] maxY,
+                         long[][] types, Map<String, Integer> typeBits) {
+        this.topology = topology;
+        this.lonScale = lonScale;
+        this.segmentEdges = segmentEdges;
+        this.x1 = x1;
+        this.y1 = y1;
+        this.x2 = x2;
+        this.y2 = y2;
+        this.segmentTypes = segmentTypes;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.types = types;
+        this.typeBits = typeBits;
+    }
+
+    public static SegmentIndex build(RoadGraph graph) {
+        double centerLat = 0;
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            centerLat += graph.getLatitude(v);
+        }
+        centerLat = graph.getNodeCount() > 0 ? centerLat / graph.getNodeCount() : 0;
+        double lonScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(centerLat));
+
+        // 每条无向边取 u < v 的方向作为一个线段
+        int count = 0;
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                if (graph.getEdgeTarget(e) > u) count++;
+            }
+        }
+        int[] edges = new int[count];
+        double[] centerX = new double[count];
+        double[] centerY = new double[count];
+        int k = 0;
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                if (v <= u) continue;
+                edges[k] = e;
+                centerX[k] = (graph.getLongitude(u) + graph.getLongitude(v)) / 2 * lonScale;
+                centerY[k] = (graph.getLatitude(u) + graph.getLatitude(v)) / 2 * METERS_PER_DEGREE;
+                k++;
+            }
+        }
+
+        Integer[] order = strOrder(centerX, centerY, count);
+        int[] segmentEdges = new int[count];
+        double[] x1 = new double[count], y1 = new double[count], x2 = new double[count], y2 = new double[count];
+        double[] boxMinX = new double[count], boxMinY = new double[count];
+        double[] boxMaxX = new double[count], boxMaxY = new double[count];
+        long[] segmentTypes = new long[count];
+        Map<String, Integer> typeBits = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int e = edges[order[i]];
+            int v = graph.getEdgeTarget(e);
+            int u = graph.getEdgeSource(e);
+            segmentEdges[i] = e;
+            x1[i] = graph.getLongitude(u) * lonScale;
+            y1[i] = graph.getLatitude(u) * METERS_PER_DEGREE;
+            x2[i] = graph.getLongitude(v) * lonScale;
+            y2[i] = graph.getLatitude(v) * METERS_PER_DEGREE;
+            boxMinX[i] = Math.min(x1[i], x2[i]);
+            boxMinY[i] = Math.min(y1[i], y2[i]);
+            boxMaxX[i] = Math.max(x1[i], x2[i]);
+            boxMaxY[i] = Math.max(y1[i], y2[i]);
+            String roadType = graph.getEdgeRoadType(e);
+            if (!typeBits.containsKey(roadType) && typeBits.size() < TYPE_BITS) {
+                typeBits.put(roadType, typeBits.size());
+            }
+            segmentTypes[i] = typeMask(typeBits, roadType);
+        }
+
+        // 自底向上逐层打包，直到只剩一个根节点
+        List<double[][]> levels = new ArrayList<>();
+        List<long[]> typeLevels = new ArrayList<>();
+        double[][] current = {boxMinX, boxMinY, boxMaxX, boxMaxY};
+        long[] currentTypes = segmentTypes;
+        int size = count;
+        while (size > 1 || levels.isEmpty()) {
+            int parents = Math.max(1, (size + NODE_CAPACITY - 1) / NODE_CAPACITY);
+            double[][] next = new double[4][parents];
+            long[] nextTypes = new long[parents];
+            for (int p = 0; p < parents; p++) {
+                next[0][p] = next[1][p] = Double.POSITIVE_INFINITY;
+                next[2][p] = next[3][p] = Double.NEGATIVE_INFINITY;
+                for (int c = p * NODE_CAPACITY; c < Math.min(size, (p + 1) * NODE_CAPACITY); c++) {
+                    next[0][p] = Math.min(next[0][p], current[0][c]);
+                    next[1][p] = Math.min(next[1][p], current[1][c]);
+                    next[2][p] = Math.max(next[2][p], current[2][c]);
+                    next[3][p] = Math.max(next[3][p], current[3][c]);
+                    nextTypes[p] |= currentTypes[c];
+                }
+            }
+            levels.add(next);
+            typeLevels.add(nextTypes);
+            current = next;
+            currentTypes = nextTypes;
+            size = parents;
+        }
+        int depth = levels.size();
+        double[][] minX = new double[depth][], minY = new double[depth][];
+        double[][] maxX = new double[depth][], maxY = new double[depth][];
+        long[][] types = new long[depth][];
+        for (int l = 0; l < depth; l++) {
+            minX[l] = levels.get(l)[0];
+            minY[l] = levels.get(l)[1];
+            maxX[l] = levels.get(l)[2];
+            maxY[l] = levels.get(l)[3];
+            types[l] = typeLevels.get(l);
+        }
+        return new SegmentIndex(graph, lonScale, segmentEdges, x1, y1, x2, y2, segmentTypes,
+            minX, minY, maxX, maxY, types, typeBits);
+    }
+
+    // 道路类型对应的位；未分到独立位的类型落在共用位上
+    private static long typeMask(Map<String, Integer> typeBits, String roadType) {
+        Integer bit = typeBits.get(roadType);
+        return bit != null ? 1L << bit : SHARED_TYPE_BIT;
+    }
+
+    /**
+     * STR 排序：按中心 x 切成 √(P) 个竖条，每个竖条内按中心 y 排序，
+     * 使连续的 16 个条目在空间上相邻。只对叶子层排序一次，上层按顺序分组即可。
+     */
+    private static Integer[] strOrder(double[] centerX, double[] centerY, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(centerX[a], centerX[b]));
+        int leaves = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = Math.max(1, (int) Math.ceil(Math.sqrt(leaves)));
+        int sliceSize = slices * NODE_CAPACITY;
+        for (int start = 0; start < count; start += sliceSize) {
+            Arrays.sort(order, start, Math.min(count, start + sliceSize),
+                (a, b) -> Double.compare(centerY[a], centerY[b]));
+        }
+        return order;
+    }
+
+    public RoadGraph getTopology() {
+        return topology;
+    }
+
+    // 距离坐标最近的线段
+    public GraphLocation nearest(RoadGraph graph, double latitude, double longitude) {
+        List<GraphLocation> result = nearest(graph, latitude, longitude, 1, null, Double.POSITIVE_INFINITY);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * 按平面距离由近到远返回至多 k 个线段上的投影位置。
+     * @param graph 与索引拓扑相同的快照，道路类型与建索引时一致
+     * @param roadType 只考虑该类型道路上的线段，为 null 时不限
+     * @param maxDistance 只返回该距离（米）以内的线段
+     */
+    public List<GraphLocation> nearest(RoadGraph graph, double latitude, double longitude, int k,
+                                       String roadType, double maxDistance) {
+        double px = longitude * lonScale;
+        double py = latitude * METERS_PER_DEGREE;
+        List<GraphLocation> result = new ArrayList<>(Math.min(k, 16));
+        long wanted = roadType == null ? -1L : typeMask(typeBits, roadType);
+        if (segmentEdges.length == 0 || k <= 0
+            || roadType != null && !typeBits.containsKey(roadType) && typeBits.size() < TYPE_BITS) {
+            return result;
+        }
+
+        // 最优优先遍历：堆中同时存放树节点与线段，键为到点的最小平面距离的平方
+        MinQueue queue = new MinQueue();
+        int rootLevel = minX.length - 1;
+        queue.push(boxDistance(rootLevel, 0, px, py), rootLevel + 1, 0);
+        double limit = maxDistance * maxDistance;
+        while (!queue.isEmpty() && result.size() < k) {
+            double key = queue.peekKey();
+            if (key > limit) break;
+            int level = queue.peekLevel();
+            int index = queue.peekIndex();
+            queue.pop();
+            if (level == 0) {
+                result.add(project(graph, index, latitude, longitude, px, py));
+            } else if (level == 1) {
+                int end = Math.min(segmentEdges.length, (index + 1) * NODE_CAPACITY);
+                for (int i = index * NODE_CAPACITY; i < end; i++) {
+                    if ((segmentTypes[i] & wanted) == 0) continue;
+                    if (wanted == SHARED_TYPE_BIT && !roadType.equals(graph.getEdgeRoadType(segmentEdges[i]))) {
+                        continue;
+                    }
+                    queue.push(segmentDistance(i, px, py), 0, i);
+                }
+            } else {
+                int childLevel = level - 2;
+                int end = Math.min(minX[childLevel].length, (index + 1) * NODE_CAPACITY);
+                for (int c = index * NODE_CAPACITY; c < end; c++) {
+                    if ((types[childLevel][c] & wanted) == 0) continue;
+                    queue.push(boxDistance(childLevel, c, px, py), level - 1, c);
+                }
+            }
+        }
+        return result;
+    }
+
+    private double boxDistance(int level, int node, double px, double py) {
+        double dx = Math.max(0, Math.max(minX[level][node] - px, px - maxX[level][node]));
+        double dy = Math.max(0, Math.max(minY[level][node] - py, py - maxY[level][node]));
+        return dx * dx + dy * dy;
+    }
+
+    private double projectionParameter(int segment, double px, double py) {
+        double dx = x2[segment] - x1[segment];
+        double dy = y2[segment] - y1[segment];
+        double lengthSq = dx * dx + dy * dy;
+        if (lengthSq == 0) return 0;
+        return Math.max(0, Math.min(1, ((px - x1[segment]) * dx + (py - y1[segment]) * dy) / lengthSq));
+    }
+
+    private double segmentDistance(int segment, double px, double py) {
+        double t = projectionParameter(segment, px, py);
+        double dx = x1[segment] + t * (x2[segment] - x1[segment]) - px;
+        double dy = y1[segment] + t * (y2[segment] - y1[segment]) - py;
+        return dx * dx + dy * dy;
+    }
+
+    private GraphLocation project(RoadGraph graph, int segment, double latitude, double longitude,
+                                  double px, double py) {
+        int edge = segmentEdges[segment];
+        int to = graph.getEdgeTarget(edge);
+        int from = graph.getEdgeSource(edge);
+        double t = projectionParameter(segment, px, py);
+        double snappedLat = graph.getLatitude(from) + t * (graph.getLatitude(to) - graph.getLatitude(from));
+        double snappedLon = graph.getLongitude(from) + t * (graph.getLongitude(to) - graph.getLongitude(from));
+        double distance = DistanceUtil.calculateDistance(latitude, longitude, snappedLat, snappedLon);
+        return new GraphLocation(latitude, longitude, snappedLat, snappedLon, edge, from, to, t, distance);
+    }
+
+    // 以 double 为键的小顶二叉堆，载荷为（层号，下标）
+    private static final class MinQueue {
+        private double[] keys = new double[64];
+        private int[] levels = new int[64];
+        private int[] indexes = new int[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekKey() {
+            return keys[0];
+        }
+
+        int peekLevel() {
+            return levels[0];
+        }
+
+        int peekIndex() {
+            return indexes[0];
+        }
+
+        void push(double key, int level, int index) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                move(parent, i);
+                i = parent;
+            }
+            keys[i] = key;
+            levels[i] = level;
+            indexes[i] = index;
+        }
+
+        void pop() {
+            size--;
+            if (size == 0) return;
+            double key = keys[size];
+            int level = levels[size];
+            int index = indexes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                move(child, i);
+                i = child;
+            }
+            keys[i] = key;
+            levels[i] = level;
+            indexes[i] = index;
+        }
+
+        private void move(int from, int to) {
+            keys[to] = keys[from];
+            levels[to] = levels[from];
+            indexes[to] = indexes[from];
+        }
+    }
+}
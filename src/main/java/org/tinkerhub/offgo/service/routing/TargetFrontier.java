@@ -0,0 +1,147 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * 有界搜索中按到达用时顺序输出目标点，作为 {@link IsochroneSearch} 监听器的一部分使用。
+ * 节点确定时计算经该节点到达相邻目标的用时；候选用时不大于当前确定的代价时不会再被改进，
+ * 此时才交给调用方，因此输出顺序即到达用时顺序。用时包含起点与目标两端的步行接驳。
+ */
+public final class TargetFrontier {
+
+    @FunctionalInterface
+    public interface Sink {
+        // 目标 target 的到达用时已确定，按 arrival 非递减的顺序调用
+        void reached(int target, double arrival);
+    }
+
+    /**
+     * 目标点的吸附结果，按所在边的两个端点分组：端点升序存放，节点确定时二分查找。
+     * 只占用与目标数成正比的内存，可在同一拓扑的多次查询间复用。
+     */
+    public static final class Targets {
+        private final GraphLocation[] snapped;
+        private final int[] nodes;
+        private final int[] first;
+        private final int[] entries;
+
+        public Targets(GraphLocation[] snapped) {
+            this.snapped = snapped;
+            long[] keys = new long[snapped.length * 2];
+            for (int i = 0; i < snapped.length; i++) {
+                keys[2 * i] = (long) snapped[i].getFromNode() << 32 | i;
+                keys[2 * i + 1] = (long) snapped[i].getToNode() << 32 | i;
+            }
+            Arrays.sort(keys);
+            int[] nodes = new int[keys.length];
+            int[] first = new int[keys.length + 1];
+            entries = new int[keys.length];
+            int count = 0;
+            for (int k = 0; k < keys.length; k++) {
+                int node = (int) (keys[k] >>> 32);
+                if (count == 0 || nodes[count - 1] != node) {
+                    nodes[count] = node;
+                    first[count++] = k;
+                }
+                entries[k] = (int) keys[k];
+            }
+            first[count] = keys.length;
+            this.nodes = Arrays.copyOf(nodes, count);
+            this.first = Arrays.copyOf(first, count + 1);
+        }
+
+        public int size() {
+            return snapped.length;
+        }
+
+        public GraphLocation get(int target) {
+            return snapped[target];
+        }
+    }
+
+    private final Targets targets;
+    private final double[] weights;
+    private final double budget;
+    private final double startAccess;
+    private final Sink sink;
+    private final double[] bestArrival;
+    private final boolean[] emitted;
+    // {到达用时, 目标下标}，同一目标可能有多个过时条目，出队时跳过
+    private final PriorityQueue<double[]> pending = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+
+    /**
+     * @param budget 到达用时上限（秒），含起点接驳；超过上限的目标不输出
+     */
+    public TargetFrontier(Targets targets, double[] weights, GraphLocation start, double budget, Sink sink) {
+        this.targets = targets;
+        this.weights = weights;
+        this.budget = budget;
+        this.startAccess = start.getAccessDistance() / TravelMetric.WALKING_SPEED;
+        this.sink = sink;
+        this.bestArrival = new double[targets.size()];
+        this.emitted = new boolean[targets.size()];
+        Arrays.fill(bestArrival, Double.POSITIVE_INFINITY);
+        // 与起点吸附在同一条边上的目标可以沿边直接到达
+        for (int i = 0; i < targets.size(); i++) {
+            GraphLocation target = targets.get(i);
+            if (start.isOnSameSegment(target)) {
+                offer(i, startAccess + start.costAlongSegmentTo(target, weights)
+                    + target.getAccessDistance() / TravelMetric.WALKING_SPEED);
+            }
+        }
+    }
+
+    // 起点步行接驳用时
+    public double getStartAccess() {
+        return startAccess;
+    }
+
+    // 路网上可用的代价上限，为负时起点接驳已超出上限，不必搜索
+    public double getNetworkLimit() {
+        return budget - startAccess;
+    }
+
+    /**
+     * 节点 node 以路网代价 cost 确定：先输出不会再被改进的目标，再经该节点更新相邻目标。
+     */
+    public void settled(int node, double cost) {
+        release(cost + startAccess);
+        int group = Arrays.binarySearch(targets.nodes, node);
+        if (group < 0) {
+            return;
+        }
+        for (int k = targets.first[group]; k < targets.first[group + 1]; k++) {
+            int i = targets.entries[k];
+            GraphLocation target = targets.get(i);
+            double offset = node == target.getFromNode() ? target.costToFrom(weights) : target.costToTo(weights);
+            offer(i, startAccess + cost + offset + target.getAccessDistance() / TravelMetric.WALKING_SPEED);
+        }
+    }
+
+    // 搜索结束后输出其余候选
+    public void finish() {
+        release(Double.POSITIVE_INFINITY);
+    }
+
+    private void offer(int target, double arrival) {
+        if (arrival <= budget && arrival < bestArrival[target]) {
+            bestArrival[target] = arrival;
+            pending.add(new double[]{arrival, target});
+        }
+    }
+
+    // 输出到达用时不超过 reached 的候选
+    private void release(double reached) {
+        while (!pending.isEmpty() && pending.peek()[0] <= reached) {
+            double[] candidate = pending.poll();
+            int i = (int) candidate[1];
+            if (!emitted[i] && candidate[0] == bestArrival[i]) {
+                emitted[i] = true;
+                sink.reached(i, candidate[0]);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+/**
+ * 时间依赖的 A* 搜索。
+ * 边的用时取决于到达该边的时刻，由 {@link TravelMetric#travelTime} 按道路的全天拥挤度曲线计算。
+ * 用时函数满足 FIFO（晚出发不会早到达），因此每个节点只需保留最早到达时刻，
+ * 与静态 A* 一样按标签设定方式搜索。
+ */
+public final class TimeDependentRouter {
+
+    private TimeDependentRouter() {
+    }
+
+    /**
+     * 计算从 departure 时刻出发、两个吸附位置之间最早到达的路径。
+     * @param departure 出发时刻，从当天 00:00 起的秒数
+     * @param heuristic 到终点用时的下界，对任意出发时刻都必须成立（如直线距离除以最大速度）
+     * @return 路径代价为行程秒数；两点不连通时返回 null
+     */
+    public static GraphPath route(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to,
+                                  double departure, Heuristic heuristic) {
+        double[] lengths = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        workspace.reset(graph.getNodeCount());
+        IndexedMinHeap heap = workspace.getHeap();
+
+        // 起点所在边的两个端点作为搜索起点，距离为从出发时刻起的累计用时
+        int sourceA = from.getFromNode();
+        int sourceB = from.getToNode();
+        double costA = metric.travelTime(graph, from.getEdge(), from.costToFrom(lengths), departure);
+        workspace.update(sourceA, costA, -1, -1, costA + heuristic.estimate(sourceA));
+        double costB = metric.travelTime(graph, from.getEdge(), from.costToTo(lengths), departure);
+        if (costB < workspace.getDistance(sourceB)) {
+            workspace.update(sourceB, costB, -1, -1, costB + heuristic.estimate(sourceB));
+        }
+
+        int targetA = to.getFromNode();
+        int targetB = to.getToNode();
+        double lengthA = to.costToFrom(lengths);
+        double lengthB = to.costToTo(lengths);
+
+        double best = Double.POSITIVE_INFINITY;
+        int bestNode = -1;
+        // 起终点在同一条边上时可以直接沿边到达
+        if (from.isOnSameSegment(to)) {
+            best = metric.travelTime(graph, from.getEdge(), from.costAlongSegmentTo(to, lengths), departure);
+        }
+
+        while (!heap.isEmpty() && heap.peekKey() < best) {
+            int u = heap.pop();
+            workspace.settle(u);
+            double elapsed = workspace.getDistance(u);
+
+            if (u == targetA) {
+                double arrival = elapsed + metric.travelTime(graph, to.getEdge(), lengthA, departure + elapsed);
+                if (arrival < best) {
+                    best = arrival;
+                    bestNode = u;
+                }
+            }
+            if (u == targetB) {
+                double arrival = elapsed + metric.travelTime(graph, to.getEdge(), lengthB, departure + elapsed);
+                if (arrival < best) {
+                    best = arrival;
+                    bestNode = u;
+                }
+            }
+
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                if (workspace.isSettled(v)) {
+                    continue;
+                }
+                double tentative = elapsed + metric.travelTime(graph, e, lengths[e], departure + elapsed);
+                if (tentative < workspace.getDistance(v)) {
+                    workspace.update(v, tentative, u, e, tentative + heuristic.estimate(v));
+                }
+            }
+        }
+        workspace.finish();
+
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (bestNode < 0) {
+            return PathAssembler.direct(from, to, best);
+        }
+        return PathAssembler.fromTree(graph, workspace, from, to, bestNode, best);
+    }
+}
@@ -0,0 +1,447 @@
+package org.tinkerhub.offgo.service.routing;
+
+import java.util.Arrays;
+
+/**
+ * 途经点顺序规划。
+ * 代价矩阵下标 0 为起点，1..n 为途经点；途经点不超过 {@link #HELD_KARP_LIMIT} 个时
+ * 用 Held-Karp 状态压缩动态规划求精确解，更多时用最近邻构造初始解，
+ * 再交替执行 2-opt 与 Or-opt 局部改进；途经点不超过 {@link #BRANCH_AND_BOUND_LIMIT} 个时
+ * 以改进后的解为上界，在剩余时间预算内做最优优先分支定界，超时则返回当前最好的解。
+ * 支持终点任意的开放路径与回到起点的环路。
+ */
+public final class TourPlanner {
+    public static final int HELD_KARP_LIMIT = 15;
+    // 访问集合用 int 位掩码表示
+    public static final int BRANCH_AND_BOUND_LIMIT = 30;
+    // 分支定界最多保存的状态数，超出后放弃证明最优
+    private static final int MAX_STATES = 400_000;
+
+    private TourPlanner() {
+    }
+
+    /**
+     * @param cost 代价矩阵，cost[i][j] 为 i 到 j 的代价；路网为无向图，矩阵对称
+     * @param roundTrip 为 true 时最后回到起点
+     * @param budgetNanos 局部改进与分支定界共用的时间预算
+     * @return 途经点的访问顺序（取值 1..n）
+     */
+    public static int[] plan(double[][] cost, boolean roundTrip, long budgetNanos) {
+        int stops = cost.length - 1;
+        if (stops <= 1) {
+            return stops == 1 ? new int[]{1} : new int[0];
+        }
+        if (stops <= HELD_KARP_LIMIT) {
+            return heldKarp(cost, roundTrip);
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        int[] incumbent = improve(cost, nearestNeighbor(cost), roundTrip, deadline);
+        if (stops <= BRANCH_AND_BOUND_LIMIT) {
+            return branchAndBound(cost, roundTrip, incumbent, deadline, MAX_STATES);
+        }
+        return incumbent;
+    }
+
+    // 顺序对应的总代价
+    public static double tourCost(double[][] cost, int[] order, boolean roundTrip) {
+        double total = 0;
+        int previous = 0;
+        for (int stop : order) {
+            total += cost[previous][stop];
+            previous = stop;
+        }
+        return roundTrip ? total + cost[previous][0] : total;
+    }
+
+    /**
+     * 以 incumbent 为初始上界做分支定界，返回截止时间或状态上限之前找到的最好顺序。
+     * @param maxStates 最多保存的搜索状态数
+     */
+    static int[] branchAndBound(double[][] cost, boolean roundTrip, int[] incumbent, long deadline, int maxStates) {
+        return new BranchAndBound(cost, roundTrip, maxStates).search(incumbent, deadline);
+    }
+
+    /**
+     * dp[mask][j]：从起点出发、恰好访问 mask 中的途经点且停在 j 的最小代价。
+     * 时间 O(2^n·n^2)，空间 O(2^n·n)。
+     */
+    private static int[] heldKarp(double[][] cost, boolean roundTrip) {
+        int n = cost.length - 1;
+        int states = 1 << n;
+        double[] dp = new double[states * n];
+        int[] parent = new int[states * n];
+        Arrays.fill(dp, Double.POSITIVE_INFINITY);
+        for (int j = 0; j < n; j++) {
+            dp[(1 << j) * n + j] = cost[0][j + 1];
+            parent[(1 << j) * n + j] = -1;
+        }
+        for (int mask = 1; mask < states; mask++) {
+            for (int last = 0; last < n; last++) {
+                if ((mask & (1 << last)) == 0) continue;
+                double current = dp[mask * n + last];
+                if (current == Double.POSITIVE_INFINITY) continue;
+                for (int next = 0; next < n; next++) {
+                    if ((mask & (1 << next)) != 0) continue;
+                    int nextState = (mask | (1 << next)) * n + next;
+                    double candidate = current + cost[last + 1][next + 1];
+                    if (candidate < dp[nextState]) {
+                        dp[nextState] = candidate;
+                        parent[nextState] = last;
+                    }
+                }
+            }
+        }
+
+        int full = states - 1;
+        int bestLast = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int last = 0; last < n; last++) {
+            double total = dp[full * n + last] + (roundTrip ? cost[last + 1][0] : 0);
+            if (total < best) {
+                best = total;
+                bestLast = last;
+            }
+        }
+
+        int[] order = new int[n];
+        int mask = full;
+        int last = bestLast;
+        for (int i = n - 1; i >= 0; i--) {
+            order[i] = last + 1;
+            int previous = parent[mask * n + last];
+            mask &= ~(1 << last);
+            last = previous;
+        }
+        return order;
+    }
+
+    /**
+     * 最优优先分支定界。状态为（已访问掩码，当前点，已用代价），按父指针串成搜索树，
+     * 各字段分别存放在数组中；同一（掩码，当前点）只保留代价最小的状态。
+     * 下界 = 已用代价 + 当前点到最近未访问点 + 未访问点的最小生成树 + 环路时未访问点回到起点的最小代价，
+     * 最小生成树按两个方向的较小代价计算，并按掩码缓存。
+     * 扩展出完整顺序时其下界即总代价，小于上界则立即成为新的上界与当前最好解，不再入队；
+     * 出队的状态下界不小于上界时，当前最好解即最优解。超时或状态数达到上限时返回当前最好解。
+     */
+    private static final class BranchAndBound {
+        final double[][] cost;
+        final boolean roundTrip;
+        final int n;
+        final int full;
+        final int maxStates;
+        final LongDoubleTable bestCost = new LongDoubleTable(); // （掩码，当前点）-> 最小已用代价
+        final LongDoubleTable treeCost = new LongDoubleTable(); // 掩码 -> 未访问点的最小生成树
+        int[] parent = new int[1024];
+        int[] mask = new int[1024];
+        byte[] last = new byte[1024];
+        double[] used = new double[1024];
+        double[] bound = new double[1024];
+        int states;
+        int[] heap = new int[1024];
+        int heapSize;
+
+        BranchAndBound(double[][] cost, boolean roundTrip, int maxStates) {
+            this.cost = cost;
+            this.roundTrip = roundTrip;
+            this.n = cost.length - 1;
+            this.full = (int) ((1L << n) - 1);
+            this.maxStates = maxStates;
+        }
+
+        int[] search(int[] incumbent, long deadline) {
+            double upper = tourCost(cost, incumbent, roundTrip);
+            int[] best = incumbent;
+            push(-1, 0, 0, 0, lowerBound(0, 0, 0));
+            int pops = 0;
+            while (heapSize > 0) {
+                if ((++pops & 255) == 0 && System.nanoTime() >= deadline) {
+                    return best;
+                }
+                int s = pop();
+                if (bound[s] >= upper - 1e-9) {
+                    return best;
+                }
+                long key = ((long) mask[s] << 5) | last[s];
+                if (used[s] > bestCost.get(key)) {
+                    continue; // 已被更便宜的同类状态取代
+                }
+                for (int next = 1; next <= n; next++) {
+                    int bit = 1 << (next - 1);
+                    if ((mask[s] & bit) != 0) continue;
+                    int nextMask = mask[s] | bit;
+                    double nextUsed = used[s] + cost[last[s]][next];
+                    long nextKey = ((long) nextMask << 5) | next;
+                    if (nextUsed >= bestCost.get(nextKey)) continue;
+                    double nextBound = lowerBound(nextMask, next, nextUsed);
+                    if (nextBound >= upper - 1e-9) continue;
+                    if (nextMask == full) {
+                        upper = nextBound;
+                        best = order(s, next);
+                        continue;
+                    }
+                    if (states == maxStates) {
+                        return best;
+                    }
+                    bestCost.put(nextKey, nextUsed);
+                    push(s, nextMask, next, nextUsed, nextBound);
+                }
+            }
+            return best;
+        }
+
+        private double lowerBound(int visited, int at, double usedCost) {
+            if (visited == full) {
+                return usedCost + (roundTrip ? cost[at][0] : 0);
+            }
+            double toNearest = Double.POSITIVE_INFINITY;
+            double backToStart = Double.POSITIVE_INFINITY;
+            for (int r = 1; r <= n; r++) {
+                if ((visited & (1 << (r - 1))) != 0) continue;
+                toNearest = Math.min(toNearest, cost[at][r]);
+                backToStart = Math.min(backToStart, cost[r][0]);
+            }
+            return usedCost + toNearest + spanningTree(visited) + (roundTrip ? backToStart : 0);
+        }
+
+        // Prim 算法求未访问点的最小生成树代价
+        private double spanningTree(int visited) {
+            double cached = treeCost.get(visited);
+            if (cached != Double.POSITIVE_INFINITY) {
+                return cached;
+            }
+            int[] nodes = new int[n];
+            int k = 0;
+            for (int r = 1; r <= n; r++) {
+                if ((visited & (1 << (r - 1))) == 0) nodes[k++] = r;
+            }
+            double[] distance = new double[k];
+            boolean[] inTree = new boolean[k];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            distance[0] = 0;
+            double total = 0;
+            for (int step = 0; step < k; step++) {
+                int u = -1;
+                for (int i = 0; i < k; i++) {
+                    if (!inTree[i] && (u < 0 || distance[i] < distance[u])) u = i;
+                }
+                inTree[u] = true;
+                total += distance[u];
+                for (int i = 0; i < k; i++) {
+                    if (!inTree[i]) {
+                        double edge = Math.min(cost[nodes[u]][nodes[i]], cost[nodes[i]][nodes[u]]);
+                        distance[i] = Math.min(distance[i], edge);
+                    }
+                }
+            }
+            treeCost.put(visited, total);
+            return total;
+        }
+
+        // 状态 s 的访问顺序后接 next
+        private int[] order(int s, int next) {
+            int[] order = new int[n];
+            order[n - 1] = next;
+            for (int i = n - 2; i >= 0; i--, s = parent[s]) {
+                order[i] = last[s];
+            }
+            return order;
+        }
+
+        private void push(int from, int visited, int at, double usedCost, double lower) {
+            if (states == parent.length) {
+                int capacity = Math.min(maxStates, states * 2);
+                parent = Arrays.copyOf(parent, capacity);
+                mask = Arrays.copyOf(mask, capacity);
+                last = Arrays.copyOf(last, capacity);
+                used = Arrays.copyOf(used, capacity);
+                bound = Arrays.copyOf(bound, capacity);
+                heap = Arrays.copyOf(heap, capacity);
+            }
+            int s = states++;
+            parent[s] = from;
+            mask[s] = visited;
+            last[s] = (byte) at;
+            used[s] = usedCost;
+            bound[s] = lower;
+            int i = heapSize++;
+            while (i > 0 && bound[heap[(i - 1) >>> 1]] > lower) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = s;
+        }
+
+        private int pop() {
+            int top = heap[0];
+            int moved = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && bound[heap[child + 1]] < bound[heap[child]]) child++;
+                if (bound[heap[child]] >= bound[moved]) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = moved;
+            return top;
+        }
+    }
+
+    // 开放寻址的 long -> double 表，缺省值为正无穷
+    private static final class LongDoubleTable {
+        long[] keys = new long[1024];
+        double[] values = new double[1024];
+        boolean[] used = new boolean[1024];
+        int size;
+
+        double get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        void put(long key, double value) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (used[i] && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (!used[i]) {
+                used[i] = true;
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        }
+    }
+
+    private static int[] nearestNeighbor(double[][] cost) {
+        int n = cost.length - 1;
+        boolean[] visited = new boolean[n + 1];
+        int[] order = new int[n];
+        int current = 0;
+        for (int i = 0; i < n; i++) {
+            int best = -1;
+            for (int candidate = 1; candidate <= n; candidate++) {
+                if (!visited[candidate] && (best < 0 || cost[current][candidate] < cost[current][best])) {
+                    best = candidate;
+                }
+            }
+            visited[best] = true;
+            order[i] = best;
+            current = best;
+        }
+        return order;
+    }
+
+    // 反复执行 2-opt 与 Or-opt，直到没有改进或超出时间预算
+    static int[] improve(double[][] cost, int[] order, boolean roundTrip, long deadline) {
+        // tour[0] 固定为起点，开放路径不含回程边
+        int[] tour = new int[order.length + 1];
+        System.arraycopy(order, 0, tour, 1, order.length);
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(cost, tour, roundTrip, deadline) | orOpt(cost, tour, roundTrip);
+        }
+        return Arrays.copyOfRange(tour, 1, tour.length);
+    }
+
+    // 第 i 个位置之后的代价；开放路径的末尾没有后继
+    private static double edgeCost(double[][] cost, int[] tour, int from, int toIndex, boolean roundTrip) {
+        if (toIndex < tour.length) {
+            return cost[from][tour[toIndex]];
+        }
+        return roundTrip ? cost[from][0] : 0;
+    }
+
+    // 翻转 tour[i..k]，替换边 (i-1,i)、(k,k+1) 为 (i-1,k)、(i,k+1)
+    private static boolean twoOpt(double[][] cost, int[] tour, boolean roundTrip, long deadline) {
+        boolean improved = false;
+        int n = tour.length;
+        for (int i = 1; i < n - 1; i++) {
+            if (System.nanoTime() >= deadline) break;
+            for (int k = i + 1; k < n; k++) {
+                int a = tour[i - 1];
+                double delta = cost[a][tour[k]] + edgeCost(cost, tour, tour[i], k + 1, roundTrip)
+                    - cost[a][tour[i]] - edgeCost(cost, tour, tour[k], k + 1, roundTrip);
+                if (delta < -1e-9) {
+                    reverse(tour, i, k);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // 把长度 1~3 的连续片段整体移动到其他位置（保持片段内部方向）
+    private static boolean orOpt(double[][] cost, int[] tour, boolean roundTrip) {
+        boolean improved = false;
+        int n = tour.length;
+        for (int length = 1; length <= 3; length++) {
+            for (int i = 1; i + length <= n; i++) {
+                int first = tour[i];
+                int last = tour[i + length - 1];
+                int before = tour[i - 1];
+                double removeGain = cost[before][first] + edgeCost(cost, tour, last, i + length, roundTrip)
+                    - edgeCost(cost, tour, before, i + length, roundTrip);
+                for (int j = 0; j < n; j++) {
+                    // 插入到 tour[j] 之后，j 不能落在片段内或紧邻片段之前
+                    if (j >= i - 1 && j < i + length) continue;
+                    int after = j + 1 < n ? tour[j + 1] : -1;
+                    double insertCost = cost[tour[j]][first]
+                        + (after >= 0 ? cost[last][after] : (roundTrip ? cost[last][0] : 0))
+                        - (after >= 0 ? cost[tour[j]][after] : (roundTrip ? cost[tour[j]][0] : 0));
+                    if (insertCost < removeGain - 1e-9) {
+                        moveSegment(tour, i, length, j);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void reverse(int[] tour, int i, int k) {
+        while (i < k) {
+            int tmp = tour[i];
+            tour[i++] = tour[k];
+            tour[k--] = tmp;
+        }
+    }
+
+    // 把 tour[i, i+length) 移到原下标 j 的元素之后
+    private static void moveSegment(int[] tour, int i, int length, int j) {
+        int[] segment = Arrays.copyOfRange(tour, i, i + length);
+        if (j < i) {
+            System.arraycopy(tour, j + 1, tour, j + 1 + length, i - j - 1);
+            System.arraycopy(segment, 0, tour, j + 1, length);
+        } else {
+            System.arraycopy(tour, i + length, tour, i, j - i - length + 1);
+            System.arraycopy(segment, 0, tour, j - length + 1, length);
+        }
+    }
+}
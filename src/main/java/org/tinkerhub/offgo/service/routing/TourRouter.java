@@ -0,0 +1,78 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多途经点路线的公共步骤：由门到门代价矩阵求访问顺序，再逐段搜索并按顺序拼接。
+ * 不依赖 Spring，RouteService 与基准测试调用同一份实现。
+ */
+public final class TourRouter {
+    // 途经点较多时启发式改进访问顺序的时间预算
+    public static final long IMPROVEMENT_BUDGET_NANOS = 200_000_000L;
+
+    private TourRouter() {
+    }
+
+    @FunctionalInterface
+    public interface LegSearch {
+        /**
+         * 搜索 from 到 to 的一段并追加到 path。
+         * @param elapsed 此前各段的累计代价
+         * @return 该段的代价
+         */
+        double route(GraphLocation from, GraphLocation to, double elapsed, GraphPath.Builder path);
+    }
+
+    /**
+     * 由按行存放的门到门代价（不可达为正无穷）得到方阵；
+     * 不连通的位置对按直线距离计价（时间度量下按步行速度换算），与单段搜索的直连兜底一致。
+     */
+    public static double[][] costMatrix(GraphLocation[] locations, double[] values, TravelMetric metric) {
+        double accessSpeed = metric.isTimeBased() ? TravelMetric.WALKING_SPEED : 1;
+        int size = locations.length;
+        double[][] cost = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                double value = values[i * size + j];
+                if (value == Double.POSITIVE_INFINITY) {
+                    value = DistanceUtil.calculateDistance(locations[i].getLatitude(), locations[i].getLongitude(),
+                        locations[j].getLatitude(), locations[j].getLongitude()) / accessSpeed;
+                }
+                cost[i][j] = value;
+            }
+        }
+        return cost;
+    }
+
+    // 途经点的访问顺序（取值 1..n），局部改进与分支定界共用 IMPROVEMENT_BUDGET_NANOS
+    public static int[] order(double[][] cost, boolean roundTrip) {
+        return TourPlanner.plan(cost, roundTrip, IMPROVEMENT_BUDGET_NANOS);
+    }
+
+    // 起点 locations[0]、按 order 排列的途经点，环路时最后回到起点
+    public static List<GraphLocation> sequence(GraphLocation[] locations, int[] order, boolean roundTrip) {
+        List<GraphLocation> sequence = new ArrayList<>(order.length + 2);
+        sequence.add(locations[0]);
+        for (int index : order) {
+            sequence.add(locations[index]);
+        }
+        if (roundTrip) {
+            sequence.add(locations[0]);
+        }
+        return sequence;
+    }
+
+    // 只为选定顺序的相邻两点搜索，依次拼接为完整路径，代价为各段之和
+    public static GraphPath stitch(List<GraphLocation> sequence, LegSearch legs) {
+        GraphPath.Builder path = new GraphPath.Builder();
+        double total = 0;
+        for (int i = 0; i + 1 < sequence.size(); i++) {
+            total += legs.route(sequence.get(i), sequence.get(i + 1), total, path);
+        }
+        return path.build(total);
+    }
+}
@@ -0,0 +1,303 @@
+package org.tinkerhub.offgo.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按权重限容的 W-TinyLFU 缓存。
+ * 新条目先进入占总容量 1% 的窗口 LRU；被挤出窗口后与主区试用段最久未用的条目比较
+ * 近期访问频率（Count-Min Sketch 估计），频率更高者留下。主区为分段 LRU：
+ * 试用段中再次命中的条目晋升到占主区 80% 的保护段。
+ * 可选写入后过期：过期条目在下次读取时移除并计为未命中。
+ * 所有操作在同一把锁内完成，适合单次计算代价远高于加锁开销的场景。
+ */
+public final class BoundedCache<K, V> {
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final ToIntFunction<V> weigher;
+    // 写入后的存活时间，0 表示不过期
+    private final long expireAfterWriteNanos;
+
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    // 各区的双向链表哨兵，head.next 为最久未用的条目
+    private final Node<K, V>[] heads;
+    private final long[] regionWeights = new long[3];
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    public BoundedCache(long maximumWeight, ToIntFunction<V> weigher) {
+        this(maximumWeight, weigher, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedCache(long maximumWeight, ToIntFunction<V> weigher, long expireAfterWriteNanos) {
+        if (maximumWeight <= 0 || expireAfterWriteNanos < 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive and expiry non-negative");
+        }
+        this.maximumWeight = maximumWeight;
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.windowMaximum = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * PROTECTED_PERCENT / 100;
+        this.weigher = weigher;
+        this.heads = (Node<K, V>[]) new Node<?, ?>[3];
+        for (int region = 0; region < heads.length; region++) {
+            Node<K, V> head = new Node<>(null, null, 0);
+            head.prev = head;
+            head.next = head;
+            heads[region] = head;
+        }
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node != null && isExpired(node)) {
+            data.remove(key);
+            unlink(node);
+            expirationCount++;
+            node = null;
+        }
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * 写入条目；单个条目的权重超过总容量时不缓存。
+     */
+    public synchronized void put(K key, V value) {
+        int weight = weigher.applyAsInt(value);
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            regionWeights[node.region] += weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            node.writeTime = System.nanoTime();
+            onAccess(node);
+        } else {
+            if (weight > maximumWeight) {
+                return;
+            }
+            node = new Node<>(key, value, weight);
+            node.writeTime = System.nanoTime();
+            data.put(key, node);
+            sketch.ensureCapacity(data.size());
+            link(node, WINDOW);
+        }
+        evict();
+    }
+
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        data.clear();
+        for (int region = 0; region < heads.length; region++) {
+            heads[region].next = heads[region];
+            heads[region].prev = heads[region];
+            regionWeights[region] = 0;
+        }
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long weightedSize() {
+        return regionWeights[WINDOW] + regionWeights[PROBATION] + regionWeights[PROTECTED];
+    }
+
+    // 命中、未命中与淘汰计数
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requests = hitCount + missCount;
+        stats.put("hitCount", hitCount);
+        stats.put("missCount", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictionCount", evictionCount);
+        stats.put("expirationCount", expirationCount);
+        stats.put("size", data.size());
+        stats.put("weightedSize", weightedSize());
+        stats.put("maximumWeight", maximumWeight);
+        return stats;
+    }
+
+    // 条目所在的区：0 窗口、1 试用段、2 保护段，不存在时为 -1；供测试检查晋升与降级
+    synchronized int regionOf(K key) {
+        Node<K, V> node = data.get(key);
+        return node != null ? node.region : -1;
+    }
+
+    private boolean isExpired(Node<K, V> node) {
+        return expireAfterWriteNanos > 0 && System.nanoTime() - node.writeTime >= expireAfterWriteNanos;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.region == PROBATION) {
+            // 试用段再次命中，晋升到保护段；保护段超限时把最久未用的降回试用段
+            unlink(node);
+            link(node, PROTECTED);
+            while (regionWeights[PROTECTED] > protectedMaximum) {
+                Node<K, V> demoted = heads[PROTECTED].next;
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        } else {
+            unlink(node);
+            link(node, node.region);
+        }
+    }
+
+    private void evict() {
+        // 挤出窗口的条目作为候选进入试用段尾部
+        while (regionWeights[WINDOW] > windowMaximum) {
+            Node<K, V> candidate = heads[WINDOW].next;
+            unlink(candidate);
+            link(candidate, PROBATION);
+        }
+        while (weightedSize() > maximumWeight) {
+            Node<K, V> victim = heads[PROBATION].next;
+            Node<K, V> candidate = heads[PROBATION].prev;
+            if (victim == heads[PROBATION]) {
+                // 试用段为空时依次从保护段、窗口淘汰
+                victim = heads[PROTECTED].next != heads[PROTECTED] ? heads[PROTECTED].next : heads[WINDOW].next;
+                remove(victim);
+            } else if (candidate != victim && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                remove(victim);
+            } else {
+                remove(candidate);
+            }
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        unlink(node);
+        data.remove(node.key);
+        evictionCount++;
+    }
+
+    private void link(Node<K, V> node, int region) {
+        Node<K, V> head = heads[region];
+        node.region = region;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        regionWeights[region] += node.weight;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        regionWeights[node.region] -= node.weight;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        int weight;
+        int region;
+        long writeTime;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 4 行 Count-Min Sketch，计数上限 15。
+     * 累计记录次数达到表宽的 10 倍时所有计数减半，使频率反映近期访问。
+     * 表宽随条目数翻倍时，新表的两个槽都继承旧表中对应槽的计数，估计值仍是上界，已有的频率不丢失。
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        private static final int MAX_COUNT = 15;
+
+        private byte[] table = new byte[DEPTH * 16];
+        private int width = 16;
+        private int additions;
+
+        void ensureCapacity(int entries) {
+            if (entries <= width) {
+                return;
+            }
+            int newWidth = Integer.highestOneBit(entries - 1) << 1;
+            byte[] newTable = new byte[DEPTH * newWidth];
+            // 新下标的低位即旧下标（indexOf 按表宽取低位）
+            for (int row = 0; row < DEPTH; row++) {
+                for (int i = 0; i < newWidth; i++) {
+                    newTable[row * newWidth + i] = table[row * width + (i & (width - 1))];
+                }
+            }
+            table = newTable;
+            width = newWidth;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = row * width + indexOf(hash, row);
+                if (table[index] < MAX_COUNT) {
+                    table[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= 10 * width) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, table[row * width + indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & (width - 1);
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x45D9F3B;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
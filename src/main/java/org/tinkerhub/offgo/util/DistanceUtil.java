@@ -12,10 +12,18 @@ public class DistanceUtil {
      * @return 两点之间的距离，单位：米
      */
     public static double calculateDistance(Point p1, Point p2) {
-        double lat1 = Math.toRadians(p1.getLatitude());
-        double lat2 = Math.toRadians(p2.getLatitude());
-        double deltaLat = Math.toRadians(p2.getLatitude() - p1.getLatitude());
-        double deltaLon = Math.toRadians(p2.getLongitude() - p1.getLongitude());
+        return calculateDistance(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(), p2.getLongitude());
+    }
+
+    /**
+     * 基于原始经纬度的 Haversine 距离，避免在热点路径上创建临时对象
+     * @return 两点之间的距离，单位：米
+     */
+    public static double calculateDistance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double lat1 = Math.toRadians(latitude1);
+        double lat2 = Math.toRadians(latitude2);
+        double deltaLat = Math.toRadians(latitude2 - latitude1);
+        double deltaLon = Math.toRadians(longitude2 - longitude1);
         
         double a = Math.sin(deltaLat/2) * Math.sin(deltaLat/2) +
                    Math.cos(lat1) * Math.cos(lat2) *
@@ -0,0 +1,340 @@
+package org.tinkerhub.offgo.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 内存倒排索引，按 BM25 为文档打分。
+ * 文档由若干字段组成，词频与文档长度按字段的整数权重累加（简化的 BM25F）。
+ * 分词：汉字、假名、谚文的连续片段切成相邻二元组并保留单字，字母与数字的连续片段整体成词并转为小写。
+ * 每个词的倒排表依次存放文档的内部序号差值与加权词频，均为变长整数（varint）。
+ * 文档每次加入都分配新的递增序号，倒排表只在末尾追加；更新即作废旧序号后重新加入，
+ * 作废的序号超过四分之一时整体压缩。查询只解码查询词的倒排表，耗时与文档总数无关。
+ * 写入持有写锁，查询持有读锁。
+ */
+public final class InvertedIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int DELETED = -1;
+
+    private final int[] fieldWeights;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Integer> ordinals = new HashMap<>(); // 文档 id -> 当前序号
+    private int[] documents = new int[64]; // 序号 -> 文档 id，作废为 DELETED
+    private int[] lengths = new int[64];   // 序号 -> 加权长度
+    private int nextOrdinal;
+    private long totalLength;
+
+    public record Hit(int id, double score) {
+    }
+
+    /**
+     * @param fieldWeights 各字段的权重，put 时字段按相同顺序给出
+     */
+    public InvertedIndex(int... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /**
+     * 加入或替换一篇文档，fields 与构造时的权重一一对应，可以为 null。
+     */
+    public void put(int id, String... fields) {
+        if (fields.length != fieldWeights.length) {
+            throw new IllegalArgumentException("Expected " + fieldWeights.length + " fields, got " + fields.length);
+        }
+        Map<String, int[]> frequencies = new HashMap<>();
+        int length = 0;
+        for (int f = 0; f < fields.length; f++) {
+            if (fields[f] == null) {
+                continue;
+            }
+            int weight = fieldWeights[f];
+            int[] tokens = {0};
+            tokenize(fields[f], false, term -> {
+                frequencies.computeIfAbsent(term, key -> new int[1])[0] += weight;
+                tokens[0]++;
+            });
+            length += tokens[0] * weight;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int ordinal = nextOrdinal++;
+            if (ordinal == documents.length) {
+                documents = Arrays.copyOf(documents, ordinal * 2);
+                lengths = Arrays.copyOf(lengths, ordinal * 2);
+            }
+            documents[ordinal] = id;
+            lengths[ordinal] = length;
+            totalLength += length;
+            ordinals.put(id, ordinal);
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new Postings()).append(ordinal, entry.getValue()[0]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        documents[ordinal] = DELETED;
+        totalLength -= lengths[ordinal];
+        if ((nextOrdinal - ordinals.size()) * 4L > nextOrdinal) {
+            compact();
+        }
+    }
+
+    // 去掉作废的序号，存活文档按原顺序重新编号，倒排表随之重写
+    private void compact() {
+        int[] remap = new int[nextOrdinal];
+        int live = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (documents[ordinal] == DELETED) {
+                remap[ordinal] = DELETED;
+            } else {
+                remap[ordinal] = live;
+                documents[live] = documents[ordinal];
+                lengths[live] = lengths[ordinal];
+                ordinals.put(documents[live], live);
+                live++;
+            }
+        }
+        nextOrdinal = live;
+        postings.values().removeIf(list -> !list.rewrite(remap));
+    }
+
+    /**
+     * 包含查询全部词项的文档，按 BM25 得分降序，得分相同时 id 小的在前。
+     */
+    public List<Hit> search(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, true, terms::add);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = ordinals.size();
+            if (documentCount == 0) {
+                return new ArrayList<>();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+            // 解码各词的存活项，从文档最少的词开始求交集
+            List<int[][]> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                int[][] live = list == null ? null : list.decodeLive(documents);
+                if (live == null || live[0].length == 0) {
+                    return new ArrayList<>();
+                }
+                lists.add(live);
+            }
+            lists.sort((a, b) -> Integer.compare(a[0].length, b[0].length));
+
+            int[] candidates = lists.get(0)[0];
+            double[] scores = new double[candidates.length];
+            int count = candidates.length;
+            for (int[][] list : lists) {
+                int[] ordinalList = list[0];
+                int[] frequencies = list[1];
+                double idf = Math.log(1 + (documentCount - ordinalList.length + 0.5) / (ordinalList.length + 0.5));
+                int kept = 0;
+                int j = 0;
+                for (int i = 0; i < count; i++) {
+                    int ordinal = candidates[i];
+                    while (j < ordinalList.length && ordinalList[j] < ordinal) {
+                        j++;
+                    }
+                    if (j == ordinalList.length) {
+                        break;
+                    }
+                    if (ordinalList[j] != ordinal) {
+                        continue;
+                    }
+                    double tf = frequencies[j];
+                    double norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+                    candidates[kept] = ordinal;
+                    scores[kept] = scores[i] + idf * tf * (K1 + 1) / (tf + norm);
+                    kept++;
+                }
+                count = kept;
+                if (count == 0) {
+                    return new ArrayList<>();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                hits.add(new Hit(documents[candidates[i]], scores[i]));
+            }
+            hits.sort((a, b) -> a.score() != b.score()
+                ? Double.compare(b.score(), a.score()) : Integer.compare(a.id(), b.id()));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 切分文本。建索引时二元组与单字都输出；查询时长度不小于 2 的片段只输出二元组，
+     * 要求相邻字同时出现，效果接近短语匹配。
+     */
+    static void tokenize(String text, boolean query, Consumer<String> sink) {
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            int cp = text.codePointAt(i);
+            if (isIdeographic(cp)) {
+                int start = i;
+                int run = 0;
+                while (i < n && isIdeographic(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                    run++;
+                }
+                emitIdeographic(text.substring(start, i), run, query, sink);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < n) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isIdeographic(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                sink.accept(text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    private static void emitIdeographic(String run, int length, boolean query, Consumer<String> sink) {
+        int[] points = run.codePoints().toArray();
+        for (int k = 0; k < length; k++) {
+            if (!query || length == 1) {
+                sink.accept(new String(points, k, 1));
+            }
+            if (k + 1 < length) {
+                sink.accept(new String(points, k, 2));
+            }
+        }
+    }
+
+    private static boolean isIdeographic(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    // 一个词的倒排表：(序号差值, 加权词频) 的变长整数序列
+    private static final class Postings {
+        byte[] data = new byte[8];
+        int size;
+        int entries;
+        int lastOrdinal = -1;
+
+        void append(int ordinal, int frequency) {
+            if (data.length - size < 10) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+            }
+            size = writeVarint(data, size, ordinal - lastOrdinal);
+            size = writeVarint(data, size, frequency);
+            lastOrdinal = ordinal;
+            entries++;
+        }
+
+        // 存活项的 {序号, 词频}，序号升序
+        int[][] decodeLive(int[] documents) {
+            int[] ordinalList = new int[entries];
+            int[] frequencies = new int[entries];
+            int count = 0;
+            int ordinal = -1;
+            int[] position = {0};
+            while (position[0] < size) {
+                ordinal += readVarint(data, position);
+                int frequency = readVarint(data, position);
+                if (documents[ordinal] != DELETED) {
+                    ordinalList[count] = ordinal;
+                    frequencies[count] = frequency;
+                    count++;
+                }
+            }
+            return new int[][]{Arrays.copyOf(ordinalList, count), Arrays.copyOf(frequencies, count)};
+        }
+
+        // 按新编号重写，返回是否还有存活项
+        boolean rewrite(int[] remap) {
+            byte[] old = data;
+            int oldSize = size;
+            data = new byte[Math.max(8, oldSize)];
+            size = 0;
+            entries = 0;
+            lastOrdinal = -1;
+            int ordinal = -1;
+            int[] position = {0};
+            while (position[0] < oldSize) {
+                ordinal += readVarint(old, position);
+                int frequency = readVarint(old, position);
+                if (remap[ordinal] != DELETED) {
+                    append(remap[ordinal], frequency);
+                }
+            }
+            return entries > 0;
+        }
+
+        private static int writeVarint(byte[] out, int position, int value) {
+            while ((value & ~0x7F) != 0) {
+                out[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out[position++] = (byte) value;
+            return position;
+        }
+
+        private static int readVarint(byte[] in, int[] position) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in[position[0]++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
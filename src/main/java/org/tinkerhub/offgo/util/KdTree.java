@@ -0,0 +1,169 @@
+package org.tinkerhub.offgo.util;
+
+import java.util.Arrays;
+
+/**
+ * 静态二维 KD 树，存放一组经纬度点。
+ * 点按中位数递归划分后原地存放在数组中：区间 [lo, hi) 的中点即该子树的根，
+ * 不需要额外的节点对象。坐标按点集中心纬度做等距圆柱投影换算为米后参与剪枝，
+ * 命中的点再用 Haversine 距离做最终判断。离中心纬度越远，投影后的经度距离比实际越大，
+ * 剪枝时经度方向的范围按点集与查询点中离赤道最远的纬度放宽。
+ */
+public final class KdTree {
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6371000;
+
+    private final double lonScale; // 经度一度对应的米数
+    private final double maxAbsLatitude; // 点集中离赤道最远的纬度（绝对值）
+    private final double[] x;
+    private final double[] y;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] ids; // 点在构建时输入数组中的下标
+
+    private KdTree(double lonScale, double maxAbsLatitude, double[] x, double[] y, double[] latitudes, double[] longitudes, int[] ids) {
+        this.lonScale = lonScale;
+        this.maxAbsLatitude = maxAbsLatitude;
+        this.x = x;
+        this.y = y;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.ids = ids;
+    }
+
+    public static KdTree build(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double centerLat = 0;
+        double maxAbsLatitude = 0;
+        for (double latitude : latitudes) {
+            centerLat += latitude;
+            maxAbsLatitude = Math.max(maxAbsLatitude, Math.abs(latitude));
+        }
+        centerLat = n > 0 ? centerLat / n : 0;
+        double lonScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(centerLat));
+
+        int[] ids = new int[n];
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            x[i] = longitudes[i] * lonScale;
+            y[i] = latitudes[i] * METERS_PER_DEGREE;
+        }
+        partition(x, y, ids, 0, n, 0);
+
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = latitudes[ids[i]];
+            lon[i] = longitudes[ids[i]];
+        }
+        return new KdTree(lonScale, maxAbsLatitude, x, y, lat, lon, ids);
+    }
+
+    // 按当前维度把 [lo, hi) 的中位数放到中点，两侧递归，维度交替
+    private static void partition(double[] x, double[] y, int[] ids, int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(depth % 2 == 0 ? x : y, depth % 2 == 0 ? y : x, ids, lo, hi - 1, mid);
+        partition(x, y, ids, lo, mid, depth + 1);
+        partition(x, y, ids, mid + 1, hi, depth + 1);
+    }
+
+    // 快速选择：使 keys[k] 为 [lo, hi] 内第 k 小，左侧不大于它、右侧不小于它
+    private static void select(double[] keys, double[] other, int[] ids, int lo, int hi, int k) {
+        while (lo < hi) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(keys, other, ids, i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(double[] keys, double[] other, int[] ids, int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        double value = other[a];
+        other[a] = other[b];
+        other[b] = value;
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 返回与给定坐标球面距离不超过 radius 米的所有点在输入数组中的下标，顺序不定。
+     */
+    public int[] within(double latitude, double longitude, double radius) {
+        double px = longitude * lonScale;
+        double py = latitude * METERS_PER_DEGREE;
+        // 平面剪枝留出少量余量，抵消投影与球面距离的偏差
+        double reach = radius * 1.01 + 1;
+        // 经度方向按可能涉及的最高纬度换算：实际一度经度的米数不小于该纬度处的值
+        double farthest = Math.min(89.9, Math.max(maxAbsLatitude, Math.abs(latitude) + reach / METERS_PER_DEGREE));
+        double lonReach = reach * lonScale / (METERS_PER_DEGREE * Math.cos(Math.toRadians(farthest)));
+        int[] result = new int[Math.min(16, ids.length)];
+        int count = 0;
+
+        // 显式栈：{lo, hi, depth}
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = ids.length;
+        stack[top++] = 0;
+        while (top > 0) {
+            int depth = stack[--top];
+            int hi = stack[--top];
+            int lo = stack[--top];
+            if (lo >= hi) {
+                continue;
+            }
+            int mid = (lo + hi) >>> 1;
+            double dx = x[mid] - px;
+            double dy = y[mid] - py;
+            if (Math.abs(dx) <= lonReach && Math.abs(dy) <= reach
+                && DistanceUtil.calculateDistance(latitude, longitude, latitudes[mid], longitudes[mid]) <= radius) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = ids[mid];
+            }
+            double delta = depth % 2 == 0 ? dx : dy;
+            double bound = depth % 2 == 0 ? lonReach : reach;
+            if (top + 6 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            // 左子树的坐标不大于分割点，右子树不小于分割点，只进入可能与查询范围相交的一侧
+            if (delta >= -bound) {
+                stack[top++] = lo;
+                stack[top++] = mid;
+                stack[top++] = depth + 1;
+            }
+            if (delta <= bound) {
+                stack[top++] = mid + 1;
+                stack[top++] = hi;
+                stack[top++] = depth + 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
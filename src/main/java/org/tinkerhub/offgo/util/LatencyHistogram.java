@@ -0,0 +1,73 @@
+package org.tinkerhub.offgo.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数分桶耗时直方图（HdrHistogram 式布局）。
+ * 以微秒为单位，小于 8 微秒的值各占一个桶，更大的值每个二进制数量级再均分为 8 个子桶，
+ * 相对误差不超过 12.5%。记录只做一次下标计算与一次原子自增，可以在请求线程上直接调用。
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        sumNanos.add(Math.max(0, nanos));
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // 桶内最大值（微秒，含）
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / SUB_COUNT - 1;
+        long lower = (long) (SUB_COUNT + bucket % SUB_COUNT) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * 不超过各上界（微秒，升序）的累计次数，最后一项为总次数。
+     * 各桶只读取一次，结果内部一致；上界落在桶内部时该桶计入更大的上界。
+     */
+    public long[] cumulativeCounts(long[] boundsMicros) {
+        long[] result = new long[boundsMicros.length + 1];
+        int next = 0;
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long count = counts.get(bucket);
+            if (count == 0) {
+                continue;
+            }
+            long upper = upperBoundOf(bucket);
+            while (next < boundsMicros.length && boundsMicros[next] < upper) {
+                result[next++] = total;
+            }
+            total += count;
+        }
+        while (next < boundsMicros.length) {
+            result[next++] = total;
+        }
+        result[boundsMicros.length] = total;
+        return result;
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
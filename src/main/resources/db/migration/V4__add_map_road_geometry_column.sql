@@ -0,0 +1 @@
+ALTER TABLE map_road ADD COLUMN geometry MEDIUMBLOB; 
\ No newline at end of file
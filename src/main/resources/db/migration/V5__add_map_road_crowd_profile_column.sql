@@ -0,0 +1 @@
+ALTER TABLE map_road ADD COLUMN crowd_profile BLOB;
\ No newline at end of file
@@ -103,6 +103,8 @@ CREATE TABLE IF NOT EXISTS map_road (
     start_point_id BIGINT,
     end_point_id BIGINT,
     path_points TEXT,
+    geometry MEDIUMBLOB,
+    crowd_profile BLOB,
     FOREIGN KEY (start_point_id) REFERENCES map_location(id),
     FOREIGN KEY (end_point_id) REFERENCES map_location(id)
 ); 
\ No newline at end of file
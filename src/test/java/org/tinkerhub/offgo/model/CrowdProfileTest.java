@@ -0,0 +1,55 @@
+package org.tinkerhub.offgo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrowdProfileTest {
+
+    // 晚出发不会早到达，跨越午夜时也成立
+    @Test
+    void traverseIsFifo() {
+        Random random = new Random(1);
+        for (int k = 0; k < 5; k++) {
+            double[] levels = new double[CrowdProfile.SLOTS];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = random.nextDouble();
+            }
+            CrowdProfile profile = CrowdProfile.of(levels);
+            double length = 100 + random.nextDouble() * 2000;
+            double previous = Double.NEGATIVE_INFINITY;
+            for (double departure = 0; departure < 2 * CrowdProfile.DAY_SECONDS; departure += 7.3) {
+                double arrival = departure + profile.traverse(length, TravelMetric.BICYCLE_SPEED, departure);
+                assertTrue(arrival >= previous - 1e-9, "departure " + departure);
+                previous = arrival;
+            }
+        }
+    }
+
+    @Test
+    void constantProfileMatchesStaticSpeed() {
+        double[] levels = new double[CrowdProfile.SLOTS];
+        Arrays.fill(levels, 0.5);
+        CrowdProfile profile = CrowdProfile.of(levels);
+        double level = profile.getLevel(0);
+        for (double departure : new double[]{0, 1000, CrowdProfile.DAY_SECONDS - 10, -300}) {
+            assertEquals(420 / (TravelMetric.BICYCLE_SPEED * level),
+                profile.traverse(420, TravelMetric.BICYCLE_SPEED, departure), 1e-9, "departure " + departure);
+        }
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        Random random = new Random(2);
+        double[] levels = new double[CrowdProfile.SLOTS];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = random.nextDouble();
+        }
+        CrowdProfile profile = CrowdProfile.of(levels);
+        assertEquals(profile, CrowdProfile.wrap(profile.toBytes()));
+    }
+}
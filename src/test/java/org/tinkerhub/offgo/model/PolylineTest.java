@@ -0,0 +1,76 @@
+package org.tinkerhub.offgo.model;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.entity.MapRoad;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolylineTest {
+
+    // 坐标按 1e-7 度取整；字节与文本两种形式都能无损往返
+    @Test
+    void e7RoundTrip() {
+        Random random = new Random(1);
+        double[] latitudes = new double[50];
+        double[] longitudes = new double[50];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = -90 + 180 * random.nextDouble();
+            longitudes[i] = -180 + 360 * random.nextDouble();
+        }
+        Polyline polyline = Polyline.of(latitudes, longitudes);
+        assertEquals(latitudes.length, polyline.size());
+        assertEquals(8 * latitudes.length, polyline.toBytes().length);
+        for (int i = 0; i < latitudes.length; i++) {
+            assertEquals(latitudes[i], polyline.getLatitude(i), 0.5e-7);
+            assertEquals(longitudes[i], polyline.getLongitude(i), 0.5e-7);
+        }
+        assertEquals(polyline, Polyline.wrap(polyline.toBytes().clone()));
+        assertEquals(polyline, Polyline.parse(polyline.toPathPoints()));
+        assertEquals(polyline.hashCode(), Polyline.parse(polyline.toPathPoints()).hashCode());
+    }
+
+    // 缺少逗号、数值为空或无法解析的点被跳过，其余点保留原有顺序
+    @Test
+    void parseSkipsMalformedPoints() {
+        Polyline polyline = Polyline.parse("40.1,116.2;abc,116.3;40.2;,116.4;40.3,;40.4, 116.5 ;;40.5,116.6");
+        assertEquals(3, polyline.size());
+        assertEquals(40.1, polyline.getLatitude(0), 1e-9);
+        assertEquals(116.5, polyline.getLongitude(1), 1e-9);
+        assertEquals(40.5, polyline.getLatitude(2), 1e-9);
+        assertEquals(116.6, polyline.getLongitude(2), 1e-9);
+
+        assertTrue(Polyline.parse("").isEmpty());
+        assertTrue(Polyline.parse("40.1").isEmpty());
+        StringBuilder many = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            many.append(i * 0.5).append(',').append(i * 0.25).append(';');
+        }
+        Polyline grown = Polyline.parse(many.toString());
+        assertEquals(100, grown.size());
+        assertEquals(49.5, grown.getLatitude(99), 1e-9);
+    }
+
+    @Test
+    void wrapRejectsPartialPoints() {
+        for (int length : new int[]{1, 7, 9, 15}) {
+            assertThrows(IllegalArgumentException.class, () -> Polyline.wrap(new byte[length]));
+        }
+        assertTrue(Polyline.wrap(new byte[0]).isEmpty());
+        assertEquals(2, Polyline.wrap(new byte[16]).size());
+    }
+
+    // path_points 由几何派生，任一列的写入都会同步另一列
+    @Test
+    void mapRoadKeepsColumnsInSync() {
+        MapRoad road = new MapRoad();
+        Polyline polyline = Polyline.of(new double[]{40.0, 40.001}, new double[]{116.3, 116.301});
+        road.setGeometry(polyline);
+        assertEquals(polyline, Polyline.parse(road.getPathPoints()));
+        road.setPathPoints("40.002,116.302;40.003,116.303;");
+        assertEquals(Polyline.parse("40.002,116.302;40.003,116.303;"), road.getGeometry());
+    }
+}
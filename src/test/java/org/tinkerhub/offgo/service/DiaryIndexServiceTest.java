@@ -0,0 +1,112 @@
+package org.tinkerhub.offgo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.tinkerhub.offgo.entity.ContentEntity;
+import org.tinkerhub.offgo.entity.Diary;
+import org.tinkerhub.offgo.repository.ContentRepository;
+import org.tinkerhub.offgo.util.InvertedIndex;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiaryIndexServiceTest {
+    private final Map<Integer, String> contents = new HashMap<>();
+    private DiaryIndexService service;
+
+    // 正文仓库只实现 findById，其余方法不会被调用
+    @BeforeEach
+    void setUp() {
+        ContentRepository repository = (ContentRepository) Proxy.newProxyInstance(
+            ContentRepository.class.getClassLoader(), new Class<?>[]{ContentRepository.class},
+            (proxy, method, args) -> {
+                if (!method.getName().equals("findById") || !contents.containsKey(args[0])) {
+                    return null;
+                }
+                return new ContentEntity((Integer) args[0], contents.get(args[0]));
+            });
+        service = new DiaryIndexService();
+        ReflectionTestUtils.setField(service, "contentRepository", repository);
+    }
+
+    // 正文改写但 contentId 不变时重新索引，旧正文中的词不再命中
+    @Test
+    void rewrittenContentIsReindexed() {
+        contents.put(7, "颐和园的长廊");
+        Diary diary = diary(1, 7);
+        service.update(diary);
+        assertEquals(List.of(1), ids(service.search("长廊")));
+
+        contents.put(7, "圆明园的荷花");
+        service.update(diary);
+        assertTrue(ids(service.search("长廊")).isEmpty());
+        assertEquals(List.of(1), ids(service.search("荷花")));
+    }
+
+    @Test
+    void unchangedDiaryKeepsItsEntry() {
+        contents.put(8, "西湖断桥");
+        service.update(diary(2, 8));
+        service.update(diary(2, 8));
+        assertEquals(1, service.size());
+        assertEquals(List.of(2), ids(service.search("断桥")));
+    }
+
+    // 事务中的保存与删除在提交后才改动索引，回滚时索引不变
+    @Test
+    void transactionalChangesApplyAfterCommit() {
+        contents.put(9, "黄山云海");
+        service.update(diary(3, 9));
+
+        inTransaction(true, () -> {
+            service.remove(3);
+            service.update(diary(4, 9));
+            assertEquals(List.of(3), ids(service.search("云海")));
+        });
+        assertEquals(List.of(4), ids(service.search("云海")));
+
+        inTransaction(false, () -> service.remove(4));
+        assertEquals(List.of(4), ids(service.search("云海")));
+    }
+
+    // 模拟事务管理器：注册同步回调，结束时按提交或回滚通知
+    private static void inTransaction(boolean commit, Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            body.run();
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (commit) {
+                    synchronization.afterCommit();
+                }
+                synchronization.afterCompletion(commit ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Diary diary(int id, int contentId) {
+        Diary diary = new Diary();
+        diary.setId(id);
+        diary.setTitle("游记");
+        diary.setDestination("北京");
+        diary.setDescription("周末");
+        diary.setContentId(contentId);
+        return diary;
+    }
+
+    private static List<Integer> ids(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package org.tinkerhub.offgo.service;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.MatrixRequest;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.RouteRequest;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+import org.tinkerhub.offgo.service.routing.TestGraphs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DistanceMatrixServiceTest {
+    private static final int SIZE = 20;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.85, 71), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+    private final DistanceMatrixService service = new DistanceMatrixService();
+
+    /**
+     * 每个单元格与参考 Dijkstra 加两端接驳段一致；
+     * 终点中包含孤立方块上的点（不可达）和与起点同一条边上的点，起点自身为 0。
+     */
+    @Test
+    void matrixMatchesDijkstra() {
+        Random random = new Random(1);
+        GraphLocation[] sources = new GraphLocation[6];
+        List<GraphLocation> targets = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = TestGraphs.randomLocation(graph, index, SIZE, random);
+            targets.add(TestGraphs.randomLocation(graph, index, SIZE, random));
+        }
+        int edge = random.nextInt(graph.getEdgeCount());
+        sources[0] = TestGraphs.onEdge(graph, edge, 0.3);
+        targets.add(TestGraphs.onEdge(graph, edge, 0.8));
+        targets.add(TestGraphs.atNode(graph, TestGraphs.islandNode(graph)));
+        targets.add(sources[1]);
+        GraphLocation[] columns = targets.toArray(new GraphLocation[0]);
+
+        for (TravelMetric metric : new TravelMetric[]{TravelMetric.DISTANCE, TravelMetric.WALKING}) {
+            double[] weights = graph.getEdgeWeights(metric);
+            double accessSpeed = metric.isTimeBased() ? TravelMetric.WALKING_SPEED : 1;
+            double[] values = service.matrix(graph, metric, sources, columns);
+            assertEquals(sources.length * columns.length, values.length);
+            for (int i = 0; i < sources.length; i++) {
+                for (int j = 0; j < columns.length; j++) {
+                    String message = metric + " [" + i + "][" + j + "]";
+                    double actual = values[i * columns.length + j];
+                    if (columns[j] == sources[i]) {
+                        assertEquals(0, actual, 0, message);
+                        continue;
+                    }
+                    double expected = TestGraphs.dijkstra(graph, weights, sources[i], columns[j]);
+                    if (expected == Double.POSITIVE_INFINITY) {
+                        assertEquals(Double.POSITIVE_INFINITY, actual, message);
+                        continue;
+                    }
+                    expected += (sources[i].getAccessDistance() + columns[j].getAccessDistance()) / accessSpeed;
+                    assertEquals(expected, actual, 1e-6 * Math.max(1, expected), message);
+                }
+            }
+        }
+        // 同一条边上的两点直接沿边到达
+        double[] distances = service.matrix(graph, TravelMetric.DISTANCE, sources, columns);
+        assertEquals(0.5 * graph.getEdgeLength(edge), distances[sources.length], 1e-6);
+    }
+
+    // 规模检查在吸附之前进行，超过上限直接拒绝
+    @Test
+    void rejectsOversizedAndEmptyRequests() {
+        RouteRequest.Point point = new RouteRequest.Point();
+        MatrixRequest request = new MatrixRequest();
+        request.setSources(Collections.nCopies(501, point));
+        request.setTargets(Collections.nCopies(500, point));
+        assertThrows(IllegalArgumentException.class, () -> service.compute(request));
+
+        request.setSources(List.of());
+        assertThrows(IllegalArgumentException.class, () -> service.compute(request));
+    }
+}
@@ -0,0 +1,189 @@
+package org.tinkerhub.offgo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tinkerhub.offgo.entity.MapLocation;
+import org.tinkerhub.offgo.model.IsochroneRequest;
+import org.tinkerhub.offgo.model.IsochroneResponse;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.RouteRequest;
+import org.tinkerhub.offgo.model.RouteResponse;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.repository.MapLocationRepository;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.TestGraphs;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 可达地点与网格都在时间上限以内，并与参考 Dijkstra 给出的可达集合一致；流式输出按用时非递减。
+ */
+class IsochroneServiceTest {
+    private static final int SIZE = 20;
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final double CELL_SIZE = 50;
+
+    private final List<MapLocation> locations = new ArrayList<>();
+    private RoadGraphService roadGraphService;
+    private IsochroneService service;
+
+    // 地点仓库只实现 findByNameIsNotNull
+    @BeforeEach
+    void setUp() {
+        roadGraphService = new RoadGraphService();
+        ReflectionTestUtils.setField(roadGraphService, "routingArtifactStore", new RoutingArtifactStore());
+        ReflectionTestUtils.setField(roadGraphService, "routingEngine", "astar");
+        roadGraphService.publishRoads(TestGraphs.grid(SIZE, 0.85, 61));
+
+        Random random = new Random(1);
+        double span = (SIZE - 1) * 0.001;
+        for (int i = 0; i < 150; i++) {
+            locations.add(location(i, 40.0 + random.nextDouble() * span, 116.3 + random.nextDouble() * span));
+        }
+        // 孤立方块上的地点不可达
+        locations.add(location(150, 40.5005, 116.3005));
+        MapLocationRepository repository = (MapLocationRepository) Proxy.newProxyInstance(
+            MapLocationRepository.class.getClassLoader(), new Class<?>[]{MapLocationRepository.class},
+            (proxy, method, args) -> method.getName().equals("findByNameIsNotNull") ? locations : null);
+        service = new IsochroneService();
+        ReflectionTestUtils.setField(service, "roadGraphService", roadGraphService);
+        ReflectionTestUtils.setField(service, "mapLocationRepository", repository);
+    }
+
+    @Test
+    void resultsMatchReferenceWithinBudget() {
+        Random random = new Random(2);
+        for (int k = 0; k < 8; k++) {
+            int budget = 120 + random.nextInt(900);
+            double latitude = 40.0 + random.nextDouble() * (SIZE - 1) * 0.001;
+            double longitude = 116.3 + random.nextDouble() * (SIZE - 1) * 0.001;
+            assertMatchesReference(latitude, longitude, budget, "#" + k + " budget " + budget);
+        }
+    }
+
+    // 每批的地点用时不超过该批覆盖到的用时，各批依次推进，跨批次的地点用时非递减
+    @Test
+    void streamedBatchesAreOrderedByTime() {
+        IsochroneRequest request = request(40.005, 116.305, 900);
+        List<IsochroneResponse> batches = new ArrayList<>();
+        service.compute(request, batches::add);
+        assertTrue(batches.size() > 2, "expected several batches, got " + batches.size());
+        double reached = 0;
+        double previous = 0;
+        int count = 0;
+        for (IsochroneResponse batch : batches) {
+            assertTrue(batch.getReachedTime() >= reached, "reached time went back");
+            reached = batch.getReachedTime();
+            for (IsochroneResponse.ReachableLocation location : batch.getLocations()) {
+                assertTrue(location.getTime() >= previous, "location " + location.getId() + " out of order");
+                assertTrue(location.getTime() <= reached + 0.05, "location " + location.getId() + " ahead of batch");
+                previous = location.getTime();
+                count++;
+            }
+        }
+        assertEquals(900, reached, 0);
+        assertEquals(service.compute(request).getLocations().size(), count);
+        assertTrue(count > 0);
+    }
+
+    private void assertMatchesReference(double latitude, double longitude, int budget, String message) {
+        IsochroneResponse response = service.compute(request(latitude, longitude, budget));
+        RoadGraph graph = roadGraphService.getGraph();
+        double[] weights = graph.getEdgeWeights(TravelMetric.WALKING);
+        GraphLocation start = roadGraphService.locate(graph, latitude, longitude);
+        double startAccess = start.getAccessDistance() / TravelMetric.WALKING_SPEED;
+        double limit = budget - startAccess;
+        double[] distances = TestGraphs.distancesFrom(graph, weights, start);
+
+        // 地点：用时与参考一致，恰好包含参考用时不超过上限的地点
+        Map<Long, Double> reached = new HashMap<>();
+        for (IsochroneResponse.ReachableLocation location : response.getLocations()) {
+            assertTrue(location.getTime() <= budget, message + ": location over budget");
+            assertFalse(reached.containsKey(location.getId()), message + ": duplicate location");
+            reached.put(location.getId(), location.getTime());
+        }
+        for (MapLocation location : locations) {
+            GraphLocation snapped = roadGraphService.locate(graph, location.getLatitude(), location.getLongitude());
+            double expected = startAccess + TestGraphs.dijkstra(graph, weights, start, snapped)
+                + snapped.getAccessDistance() / TravelMetric.WALKING_SPEED;
+            String name = message + " location " + location.getId();
+            assertEquals(expected <= budget, reached.containsKey(location.getId()), name);
+            if (expected <= budget) {
+                assertEquals(expected, reached.get(location.getId()), 0.05 + 1e-9, name);
+            }
+        }
+
+        // 网格：每个返回的网格都含有上限内可达的点，每个可达节点所在的网格都被返回
+        double latStep = CELL_SIZE / METERS_PER_DEGREE;
+        double lonStep = CELL_SIZE / (METERS_PER_DEGREE * Math.cos(Math.toRadians(start.getSnappedLatitude())));
+        Set<Long> cells = new HashSet<>();
+        for (RouteResponse.Point center : response.getCells()) {
+            assertTrue(cells.add(cell(center.getLatitude(), center.getLongitude(), latStep, lonStep)),
+                message + ": duplicate cell");
+        }
+        Set<Long> expectedCells = new HashSet<>();
+        expectedCells.add(cell(start.getSnappedLatitude(), start.getSnappedLongitude(), latStep, lonStep));
+        int reachable = 0;
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            if (distances[u] > limit) {
+                continue;
+            }
+            reachable++;
+            long own = cell(graph.getLatitude(u), graph.getLongitude(u), latStep, lonStep);
+            assertTrue(cells.contains(own), message + ": missing cell of node " + u);
+            expectedCells.add(own);
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                double fraction = weights[e] > 0 ? Math.min(1, (limit - distances[u]) / weights[e]) : 1;
+                expectedCells.add(cell(graph.getLatitude(u) + (graph.getLatitude(v) - graph.getLatitude(u)) * fraction,
+                    graph.getLongitude(u) + (graph.getLongitude(v) - graph.getLongitude(u)) * fraction,
+                    latStep, lonStep));
+            }
+        }
+        for (long cell : cells) {
+            assertTrue(expectedCells.contains(cell), message + ": cell beyond budget");
+        }
+        assertEquals(reachable, response.getSettledNodes(), message);
+        assertFalse(response.isTruncated(), message);
+    }
+
+    private static long cell(double latitude, double longitude, double latStep, double lonStep) {
+        long row = (long) Math.floor(latitude / latStep);
+        long column = (long) Math.floor(longitude / lonStep);
+        return (row << 32) ^ (column & 0xffffffffL);
+    }
+
+    private static IsochroneRequest request(double latitude, double longitude, int budget) {
+        RouteRequest.Point point = new RouteRequest.Point();
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        IsochroneRequest request = new IsochroneRequest();
+        request.setStartPoint(point);
+        request.setTransportMode("walking");
+        request.setTimeBudget(budget);
+        request.setCellSize(CELL_SIZE);
+        return request;
+    }
+
+    private static MapLocation location(long id, double latitude, double longitude) {
+        MapLocation location = new MapLocation();
+        location.setId(id);
+        location.setName("地点" + id);
+        location.setType("景点");
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        return location;
+    }
+}
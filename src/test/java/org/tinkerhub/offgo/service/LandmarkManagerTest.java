@@ -0,0 +1,119 @@
+package org.tinkerhub.offgo.service;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.Polyline;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.AStarRouter;
+import org.tinkerhub.offgo.service.routing.DijkstraSearch;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.GraphPath;
+import org.tinkerhub.offgo.service.routing.Heuristic;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LandmarkManagerTest {
+    private static final int SIZE = 40;
+    private static final double STEP = 0.001;
+
+    // 带抖动的完整方格，每行、每列是一条道路
+    private static List<MapRoad> grid(long seed) {
+        Random random = new Random(seed);
+        double[][] latitudes = new double[SIZE][SIZE];
+        double[][] longitudes = new double[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                latitudes[i][j] = 40.0 + i * STEP + random.nextDouble() * STEP * 0.2;
+                longitudes[i][j] = 116.3 + j * STEP + random.nextDouble() * STEP * 0.2;
+            }
+        }
+        List<MapRoad> roads = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            double[] rowLatitudes = new double[SIZE];
+            double[] rowLongitudes = new double[SIZE];
+            double[] columnLatitudes = new double[SIZE];
+            double[] columnLongitudes = new double[SIZE];
+            for (int j = 0; j < SIZE; j++) {
+                rowLatitudes[j] = latitudes[i][j];
+                rowLongitudes[j] = longitudes[i][j];
+                columnLatitudes[j] = latitudes[j][i];
+                columnLongitudes[j] = longitudes[j][i];
+            }
+            roads.add(road(roads.size() + 1, random, rowLatitudes, rowLongitudes));
+            roads.add(road(roads.size() + 1, random, columnLatitudes, columnLongitudes));
+        }
+        return roads;
+    }
+
+    private static MapRoad road(long id, Random random, double[] latitudes, double[] longitudes) {
+        MapRoad road = new MapRoad();
+        road.setId(id);
+        road.setRoadType(random.nextBoolean() ? "primary" : "footway");
+        road.setCrowdLevel(0.1 + 0.9 * random.nextDouble());
+        road.setGeometry(Polyline.of(latitudes, longitudes));
+        return road;
+    }
+
+    /**
+     * 地标最短路树上的边是三角不等式取等号的情形，float 舍入最容易使估计超过真实距离。
+     */
+    @Test
+    void heuristicNeverExceedsShortestDistance() {
+        RoadGraph graph = RoadGraph.build(grid(1), 1);
+        LandmarkManager landmarks = new LandmarkManager(graph);
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                assertTrue(landmarks.getHeuristic(u, v) <= weights[e],
+                    "edge " + u + " -> " + v + ": " + landmarks.getHeuristic(u, v) + " > " + weights[e]);
+            }
+        }
+        Random random = new Random(2);
+        for (int k = 0; k < 20; k++) {
+            int source = random.nextInt(graph.getNodeCount());
+            double[] distances = DijkstraSearch.oneToAll(graph, weights, source);
+            for (int v = 0; v < graph.getNodeCount(); v++) {
+                assertTrue(landmarks.getHeuristic(source, v) <= distances[v],
+                    "pair " + source + " -> " + v);
+                assertTrue(landmarks.getHeuristic(v, source) <= distances[v],
+                    "pair " + v + " -> " + source);
+            }
+        }
+    }
+
+    // 地标按建图时的拥挤度预处理，之后拥挤度变化的快照上估价仍然可采纳
+    @Test
+    void altMatchesDijkstraAfterCrowdChange() {
+        List<MapRoad> roads = grid(3);
+        RoadGraph graph = RoadGraph.build(roads, 1);
+        LandmarkManager landmarks = new LandmarkManager(graph);
+        Random random = new Random(4);
+        for (MapRoad road : roads) {
+            road.setCrowdLevel(0.1 + 0.9 * random.nextDouble());
+        }
+        RoadGraph updated = graph.withRoadAttributes(roads, 2);
+        SegmentIndex index = SegmentIndex.build(updated);
+        double span = (SIZE - 1) * STEP;
+        for (TravelMetric metric : TravelMetric.values()) {
+            for (int k = 0; k < 100; k++) {
+                GraphLocation from = index.nearest(updated, 40.0 + random.nextDouble() * span,
+                    116.3 + random.nextDouble() * span);
+                GraphLocation to = index.nearest(updated, 40.0 + random.nextDouble() * span,
+                    116.3 + random.nextDouble() * span);
+                GraphPath expected = AStarRouter.route(updated, metric, from, to, Heuristic.ZERO);
+                GraphPath actual = AStarRouter.route(updated, metric, from, to,
+                    landmarks.heuristicTo(updated, to, metric));
+                assertEquals(expected.getCost(), actual.getCost(), 1e-9 * Math.max(1, expected.getCost()),
+                    metric + " #" + k);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.tinkerhub.offgo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.AStarRouter;
+import org.tinkerhub.offgo.service.routing.ContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.GraphPath;
+import org.tinkerhub.offgo.service.routing.Heuristic;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+import org.tinkerhub.offgo.service.routing.TestGraphs;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 启用收缩层次时，发布拥挤度变化后各度量的层次须与新快照上的 A* 给出相同代价。
+ */
+class RoadGraphServiceTest {
+    private static final int SIZE = 20;
+
+    private RoadGraphService service;
+    private List<MapRoad> roads;
+
+    @BeforeEach
+    void setUp() {
+        service = new RoadGraphService();
+        // 未配置产物目录时 RoutingArtifactStore 既不读也不写
+        ReflectionTestUtils.setField(service, "routingArtifactStore", new RoutingArtifactStore());
+        ReflectionTestUtils.setField(service, "routingEngine", "ch");
+        roads = TestGraphs.grid(SIZE, 0.85, 41);
+        service.publishRoads(roads);
+    }
+
+    @Test
+    void hierarchiesMatchAStarOnPublishedSnapshot() {
+        assertMatchesAStar(service.getGraph(), new Random(1));
+    }
+
+    @Test
+    void crowdChangeRecustomizesTimeHierarchies() {
+        RoadGraph before = service.getGraph();
+        ContractionHierarchy distance = service.getHierarchy(before, TravelMetric.DISTANCE);
+        Random random = new Random(2);
+        for (int round = 0; round < 2; round++) {
+            for (MapRoad road : roads) {
+                road.setCrowdLevel(0.1 + 0.9 * random.nextDouble());
+            }
+            RoadGraph after = service.publishRoads(roads);
+            assertEquals(before.getTopologyVersion(), after.getTopologyVersion());
+            assertTrue(after.getVersion() > before.getVersion());
+            // 距离层次与拥挤度无关，沿用；旧快照上的时间层次不再可用
+            assertTrue(distance == service.getHierarchy(after, TravelMetric.DISTANCE));
+            assertNull(service.getHierarchy(before, TravelMetric.WALKING));
+            assertMatchesAStar(after, random);
+        }
+    }
+
+    @Test
+    void geometryChangeRebuildsHierarchies() {
+        RoadGraph before = service.getGraph();
+        List<MapRoad> fewer = roads.subList(1, roads.size());
+        RoadGraph after = service.publishRoads(fewer);
+        assertTrue(after.getTopologyVersion() != before.getTopologyVersion());
+        assertNull(service.getHierarchy(before, TravelMetric.DISTANCE));
+        assertMatchesAStar(after, new Random(3));
+    }
+
+    private void assertMatchesAStar(RoadGraph graph, Random random) {
+        for (TravelMetric metric : TravelMetric.values()) {
+            ContractionHierarchy hierarchy = service.getHierarchy(graph, metric);
+            assertNotNull(hierarchy, metric + " hierarchy for v" + graph.getVersion());
+            double[] weights = graph.getEdgeWeights(metric);
+            SegmentIndex index = service.getSegmentIndex(graph);
+            for (int k = 0; k < 60; k++) {
+                GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphPath expected = AStarRouter.route(graph, metric, from, to, Heuristic.ZERO);
+                GraphPath actual = hierarchy.route(from, to);
+                if (expected == null) {
+                    assertNull(actual, metric + " #" + k);
+                    continue;
+                }
+                TestGraphs.assertPath(graph, weights, expected.getCost(), actual,
+                    "v" + graph.getVersion() + " " + metric + " #" + k);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.tinkerhub.offgo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.routing.ContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.CustomizableContractionHierarchy;
+import org.tinkerhub.offgo.service.routing.GraphLocation;
+import org.tinkerhub.offgo.service.routing.SegmentIndex;
+import org.tinkerhub.offgo.service.routing.TestGraphs;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RoutingArtifactStoreTest {
+    private static final int SIZE = 15;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.85, 51), 1);
+    private Path dir;
+    private RoutingArtifactStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("offgo-artifacts");
+        store = new RoutingArtifactStore();
+        ReflectionTestUtils.setField(store, "artifactDir", dir.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void loadRestoresSavedArtifact() {
+        RoutingArtifactStore.Artifact saved = artifact(graph);
+        store.save(graph, saved);
+        RoutingArtifactStore.Artifact loaded = store.load(graph, true);
+        assertNotNull(loaded);
+        assertArrayEquals(saved.getLandmarks().getLandmarks(), loaded.getLandmarks().getLandmarks());
+        SegmentIndex index = SegmentIndex.build(graph);
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        Random random = new Random(1);
+        for (int k = 0; k < 50; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to),
+                loaded.getDistanceHierarchy().route(from, to), "#" + k);
+        }
+    }
+
+    // 文件中任意一个字节损坏或文件被截断时都不使用该产物，交给调用方重新预处理
+    @Test
+    void corruptedOrTruncatedFileIsIgnored() throws IOException {
+        store.save(graph, artifact(graph));
+        Path file = onlyArtifact();
+        byte[] bytes = Files.readAllBytes(file);
+        for (int offset : new int[]{0, 9, bytes.length / 3, bytes.length / 2, bytes.length - 5, bytes.length - 1}) {
+            byte[] corrupted = bytes.clone();
+            corrupted[offset] ^= 0x10;
+            Files.write(file, corrupted);
+            assertNull(store.load(graph, false), "byte " + offset);
+        }
+        for (int length : new int[]{0, 3, 8, bytes.length / 2, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertNull(store.load(graph, false), "length " + length);
+        }
+        Files.write(file, bytes);
+        assertNotNull(store.load(graph, true));
+    }
+
+    // 写出新拓扑的产物时保留其他拓扑的产物，只删除旧格式的文件
+    @Test
+    void saveKeepsOtherTopologiesAndRemovesOldFormats() throws IOException {
+        Path oldFormat = dir.resolve("routing-0000000000000000.bin");
+        try (OutputStream stream = Files.newOutputStream(oldFormat);
+             DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeInt(0x4f47524f);
+            out.writeInt(1);
+        }
+        store.save(graph, artifact(graph));
+        RoadGraph other = RoadGraph.build(TestGraphs.grid(SIZE, 0.85, 52), 1);
+        store.save(other, artifact(other));
+
+        assertFalse(Files.exists(oldFormat));
+        assertEquals(2, artifacts().size());
+        assertNotNull(store.load(graph, true));
+        assertNotNull(store.load(other, true));
+    }
+
+    private static RoutingArtifactStore.Artifact artifact(RoadGraph graph) {
+        return new RoutingArtifactStore.Artifact(new LandmarkManager(graph),
+            ContractionHierarchy.build(graph, graph.getEdgeWeights(TravelMetric.DISTANCE)),
+            CustomizableContractionHierarchy.prepare(graph));
+    }
+
+    private Path onlyArtifact() throws IOException {
+        List<Path> files = artifacts();
+        assertEquals(1, files.size());
+        return files.get(0);
+    }
+
+    private List<Path> artifacts() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin")).toList();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AStarRouterTest {
+    private static final int SIZE = 25;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.8, 11), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+
+    @Test
+    void matchesDijkstraOnRandomQueries() {
+        Random random = new Random(1);
+        for (TravelMetric metric : TravelMetric.values()) {
+            double[] weights = graph.getEdgeWeights(metric);
+            for (int k = 0; k < 150; k++) {
+                GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+                double expected = TestGraphs.dijkstra(graph, weights, from, to);
+                TestGraphs.assertPath(graph, weights, expected,
+                    AStarRouter.route(graph, metric, from, to), metric + " straight line #" + k);
+                TestGraphs.assertPath(graph, weights, expected,
+                    AStarRouter.route(graph, metric, from, to, Heuristic.ZERO), metric + " zero #" + k);
+            }
+        }
+    }
+
+    @Test
+    void sameSegmentIsReachedDirectly() {
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        for (int edge = 0; edge < graph.getEdgeCount(); edge += 37) {
+            GraphLocation from = TestGraphs.onEdge(graph, edge, 0.2);
+            GraphLocation to = TestGraphs.onEdge(graph, edge, 0.7);
+            GraphPath path = AStarRouter.route(graph, TravelMetric.DISTANCE, from, to);
+            assertEquals(0.5 * weights[edge], path.getCost(), 1e-9, "edge " + edge);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to), path,
+                "edge " + edge);
+        }
+    }
+
+    @Test
+    void snappedEndpointsOnNodes() {
+        Random random = new Random(2);
+        double[] weights = graph.getEdgeWeights(TravelMetric.WALKING);
+        for (int k = 0; k < 100; k++) {
+            GraphLocation from = TestGraphs.atNode(graph, random.nextInt(graph.getNodeCount()));
+            GraphLocation to = k % 2 == 0
+                ? TestGraphs.atNode(graph, random.nextInt(graph.getNodeCount()))
+                : TestGraphs.onEdge(graph, random.nextInt(graph.getEdgeCount()), 1);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to),
+                AStarRouter.route(graph, TravelMetric.WALKING, from, to), "query " + k);
+        }
+        GraphLocation node = TestGraphs.atNode(graph, 0);
+        assertEquals(0, AStarRouter.route(graph, TravelMetric.WALKING, node, node).getCost(), 0);
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() {
+        GraphLocation island = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        Random random = new Random(3);
+        for (int k = 0; k < 10; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertNull(AStarRouter.route(graph, TravelMetric.DISTANCE, from, island));
+            assertNull(AStarRouter.route(graph, TravelMetric.DISTANCE, island, from, Heuristic.ZERO));
+        }
+    }
+
+    @Test
+    void oneToManyMatchesDijkstra() {
+        Random random = new Random(4);
+        double[] weights = graph.getEdgeWeights(TravelMetric.BICYCLE);
+        GraphLocation[] targets = new GraphLocation[20];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = TestGraphs.randomLocation(graph, index, SIZE, random);
+        }
+        targets[targets.length - 1] = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        for (int k = 0; k < 10; k++) {
+            GraphLocation source = k == 0 ? targets[3] : TestGraphs.randomLocation(graph, index, SIZE, random);
+            double[] costs = DijkstraSearch.oneToMany(graph, weights, source, targets);
+            for (int i = 0; i < targets.length; i++) {
+                assertEquals(TestGraphs.dijkstra(graph, weights, source, targets[i]), costs[i], 1e-6,
+                    "source " + k + " target " + i);
+            }
+        }
+    }
+}
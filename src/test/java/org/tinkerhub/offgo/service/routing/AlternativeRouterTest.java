@@ -0,0 +1,167 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.Polyline;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 备选路线：在小图上检查平台的识别与代价、重合比例两个上限，在方格路网上与参考 Dijkstra 比较最短路径。
+ */
+class AlternativeRouterTest {
+    private static final double UNIT = 100; // 小图中一个长度单位对应的米数
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6371000;
+
+    /**
+     * 各路均为直线：s-p 1，p-w 1，w-t 1，p-v 1，v-x 1，x-t 1.1；最短路径 s-p-w-t 代价 3。
+     * 平台 v-x 的起点 v 在正向树中的父节点 p 位于另一个平台 s-p-w-t 上，
+     * 但 p-v 不是平台边，v 仍是平台起点，备选路线 s-p-v-x-t（代价 4.1，倍数 1.37）应被找到。
+     */
+    private static final double[][] NODES = {{0, 0}, {1, 0}, {2, 0}, {3, 0}, {1.8, -0.6},
+        {2.690242973560901, -1.0554859471218019}, {0, 5}, {1, 5}};
+    private static final int S = 0;
+    private static final int P = 1;
+    private static final int W = 2;
+    private static final int T = 3;
+    private static final int V = 4;
+    private static final int X = 5;
+    // 与其余节点不连通的一条路
+    private static final int ISLAND = 6;
+
+    private final RoadGraph graph = RoadGraph.build(List.of(
+        road(1, S, P), road(2, P, W), road(3, W, T), road(4, P, V), road(5, V, X), road(6, X, T),
+        road(7, ISLAND, ISLAND + 1)), 1);
+
+    @Test
+    void plateauAfterSharedPrefixIsFound() {
+        List<GraphPath> paths = AlternativeRouter.route(graph, TravelMetric.DISTANCE, at(S), at(T), 3, 1.4, 0.5);
+        assertEquals(2, paths.size());
+        assertEquals(3 * UNIT, paths.get(0).getCost(), 0.1);
+        assertEquals(4.1 * UNIT, paths.get(1).getCost(), 0.1);
+        assertTrue(passes(paths.get(1), V) && passes(paths.get(1), X));
+        assertTrue(!passes(paths.get(1), W));
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        for (GraphPath path : paths) {
+            assertEquals(path.getCost(), TestGraphs.geometryCost(graph, weights, path), 0.1);
+        }
+    }
+
+    // 代价超过最短路径的 maxStretch 倍、或与已选路线重合超过 maxOverlap 的备选路线不返回
+    @Test
+    void stretchAndOverlapLimitsAreApplied() {
+        assertEquals(1, AlternativeRouter.route(graph, TravelMetric.DISTANCE, at(S), at(T), 3, 1.3, 0.5).size());
+        // s-p 占备选路线长度的 1 / 4.1
+        assertEquals(1, AlternativeRouter.route(graph, TravelMetric.DISTANCE, at(S), at(T), 3, 1.4, 0.2).size());
+        assertEquals(2, AlternativeRouter.route(graph, TravelMetric.DISTANCE, at(S), at(T), 3, 1.4, 0.3).size());
+        assertEquals(1, AlternativeRouter.route(graph, TravelMetric.DISTANCE, at(S), at(T), 1, 1.4, 0.5).size());
+    }
+
+    // 起终点在同一条边上时最短路径直接沿边到达
+    @Test
+    void sameSegmentUsesDirectPath() {
+        int edge = edgeBetween(V, X);
+        GraphLocation from = TestGraphs.onEdge(graph, edge, 0.2);
+        GraphLocation to = TestGraphs.onEdge(graph, edge, 0.7);
+        List<GraphPath> paths = AlternativeRouter.route(graph, TravelMetric.DISTANCE, from, to, 3, 1.4, 0.5);
+        assertEquals(0.5 * graph.getEdgeLength(edge), paths.get(0).getCost(), 1e-6);
+        for (GraphPath path : paths) {
+            assertTrue(path.getCost() <= 1.4 * paths.get(0).getCost() + 1e-6);
+        }
+    }
+
+    @Test
+    void disconnectedPointsHaveNoRoute() {
+        assertTrue(AlternativeRouter.route(graph, TravelMetric.DISTANCE, at(S), at(ISLAND), 3, 1.4, 0.5).isEmpty());
+        RoadGraph grid = RoadGraph.build(TestGraphs.grid(10, 0.85, 21), 1);
+        GraphLocation island = TestGraphs.atNode(grid, TestGraphs.islandNode(grid));
+        assertTrue(AlternativeRouter.route(grid, TravelMetric.WALKING, TestGraphs.atNode(grid, 0), island,
+            3, 1.4, 0.5).isEmpty());
+    }
+
+    // 方格路网上第一条与参考 Dijkstra 一致，其余路线代价在上限内、几何与代价一致
+    @Test
+    void gridRoutesMatchDijkstraAndStayWithinStretch() {
+        int size = 20;
+        RoadGraph grid = RoadGraph.build(TestGraphs.grid(size, 0.85, 22), 1);
+        SegmentIndex index = SegmentIndex.build(grid);
+        Random random = new Random(1);
+        for (TravelMetric metric : new TravelMetric[]{TravelMetric.DISTANCE, TravelMetric.WALKING}) {
+            double[] weights = grid.getEdgeWeights(metric);
+            for (int k = 0; k < 40; k++) {
+                GraphLocation from = TestGraphs.randomLocation(grid, index, size, random);
+                GraphLocation to = TestGraphs.randomLocation(grid, index, size, random);
+                String message = metric + " #" + k;
+                List<GraphPath> paths = AlternativeRouter.route(grid, metric, from, to, 4, 1.4, 0.6);
+                double expected = TestGraphs.dijkstra(grid, weights, from, to);
+                TestGraphs.assertPath(grid, weights, expected, paths.isEmpty() ? null : paths.get(0), message);
+                for (GraphPath path : paths) {
+                    assertTrue(path.getCost() <= 1.4 * expected + 1e-6, message);
+                    assertEquals(path.getCost(), TestGraphs.geometryCost(grid, weights, path),
+                        1e-3 * Math.max(1, path.getCost()), message);
+                }
+            }
+        }
+    }
+
+    private GraphLocation at(int node) {
+        return TestGraphs.atNode(graph, graphNode(node));
+    }
+
+    private boolean passes(GraphPath path, int node) {
+        int id = graphNode(node);
+        for (int i = 0; i < path.size(); i++) {
+            if (Math.abs(path.getLatitude(i) - graph.getLatitude(id)) < 1e-9
+                && Math.abs(path.getLongitude(i) - graph.getLongitude(id)) < 1e-9) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int edgeBetween(int a, int b) {
+        int u = graphNode(a);
+        for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+            if (graph.getEdgeTarget(e) == graphNode(b)) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("No road between " + a + " and " + b);
+    }
+
+    // 折线坐标按定点精度存储，按容差匹配
+    private int graphNode(int node) {
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            if (Math.abs(graph.getLatitude(v) - latitude(NODES[node][1])) < 1e-6
+                && Math.abs(graph.getLongitude(v) - longitude(NODES[node][0])) < 1e-6) {
+                return v;
+            }
+        }
+        throw new IllegalStateException("Node " + node + " not in graph");
+    }
+
+    private static MapRoad road(long id, int a, int b) {
+        MapRoad road = new MapRoad();
+        road.setId(id);
+        road.setRoadType("footway");
+        road.setCrowdLevel(0.5);
+        road.setGeometry(Polyline.of(new double[]{latitude(NODES[a][1]), latitude(NODES[b][1])},
+            new double[]{longitude(NODES[a][0]), longitude(NODES[b][0])}));
+        return road;
+    }
+
+    private static double latitude(double y) {
+        return TestGraphs.ORIGIN_LATITUDE + y * UNIT / METERS_PER_DEGREE;
+    }
+
+    private static double longitude(double x) {
+        return TestGraphs.ORIGIN_LONGITUDE
+            + x * UNIT / (METERS_PER_DEGREE * Math.cos(Math.toRadians(TestGraphs.ORIGIN_LATITUDE)));
+    }
+}
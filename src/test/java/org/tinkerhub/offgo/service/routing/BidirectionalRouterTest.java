@@ -0,0 +1,85 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.LandmarkManager;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BidirectionalRouterTest {
+    private static final int SIZE = 30;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.8, 14), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+    private final LandmarkManager landmarks = new LandmarkManager(graph);
+
+    // 三种势函数：无估价、直线距离与 ALT，结果都与参考 Dijkstra 一致
+    @Test
+    void matchesDijkstraOnRandomQueries() {
+        Random random = new Random(1);
+        for (TravelMetric metric : TravelMetric.values()) {
+            double[] weights = graph.getEdgeWeights(metric);
+            for (int k = 0; k < 150; k++) {
+                GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+                double expected = TestGraphs.dijkstra(graph, weights, from, to);
+                TestGraphs.assertPath(graph, weights, expected,
+                    BidirectionalRouter.route(graph, metric, from, to), metric + " dijkstra #" + k);
+                TestGraphs.assertPath(graph, weights, expected,
+                    BidirectionalRouter.route(graph, metric, from, to, AStarRouter.straightLine(graph, metric, to),
+                        AStarRouter.straightLine(graph, metric, from)), metric + " straight line #" + k);
+                TestGraphs.assertPath(graph, weights, expected,
+                    BidirectionalRouter.route(graph, metric, from, to, landmarks.heuristicTo(graph, to, metric),
+                        landmarks.heuristicTo(graph, from, metric)), metric + " landmarks #" + k);
+            }
+        }
+    }
+
+    @Test
+    void sameSegmentIsReachedDirectly() {
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        for (int edge = 0; edge < graph.getEdgeCount(); edge += 37) {
+            GraphLocation from = TestGraphs.onEdge(graph, edge, 0.2);
+            GraphLocation to = TestGraphs.onEdge(graph, edge, 0.7);
+            GraphPath path = BidirectionalRouter.route(graph, TravelMetric.DISTANCE, from, to);
+            assertEquals(0.5 * weights[edge], path.getCost(), 1e-9, "edge " + edge);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to), path,
+                "edge " + edge);
+        }
+    }
+
+    @Test
+    void snappedEndpointsOnNodes() {
+        Random random = new Random(2);
+        double[] weights = graph.getEdgeWeights(TravelMetric.BICYCLE);
+        for (int k = 0; k < 100; k++) {
+            GraphLocation from = TestGraphs.atNode(graph, random.nextInt(graph.getNodeCount()));
+            GraphLocation to = k % 2 == 0
+                ? TestGraphs.atNode(graph, random.nextInt(graph.getNodeCount()))
+                : TestGraphs.onEdge(graph, random.nextInt(graph.getEdgeCount()), 1);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to),
+                BidirectionalRouter.route(graph, TravelMetric.BICYCLE, from, to,
+                    landmarks.heuristicTo(graph, to, TravelMetric.BICYCLE),
+                    landmarks.heuristicTo(graph, from, TravelMetric.BICYCLE)), "query " + k);
+        }
+        GraphLocation node = TestGraphs.atNode(graph, 0);
+        assertEquals(0, BidirectionalRouter.route(graph, TravelMetric.BICYCLE, node, node).getCost(), 0);
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() {
+        GraphLocation island = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        Random random = new Random(3);
+        for (int k = 0; k < 10; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertNull(BidirectionalRouter.route(graph, TravelMetric.DISTANCE, from, island));
+            assertNull(BidirectionalRouter.route(graph, TravelMetric.DISTANCE, island, from,
+                AStarRouter.straightLine(graph, TravelMetric.DISTANCE, from),
+                AStarRouter.straightLine(graph, TravelMetric.DISTANCE, island)));
+        }
+    }
+}
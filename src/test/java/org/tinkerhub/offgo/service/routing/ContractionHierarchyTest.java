@@ -0,0 +1,134 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContractionHierarchyTest {
+    private static final int SIZE = 25;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.8, 21), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+
+    // 每种度量各自收缩，查询结果与参考 Dijkstra 及同一快照上的 A* 一致
+    @Test
+    void matchesDijkstraAndAStarOnRandomQueries() {
+        Random random = new Random(1);
+        for (TravelMetric metric : TravelMetric.values()) {
+            double[] weights = graph.getEdgeWeights(metric);
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, weights);
+            for (int k = 0; k < 150; k++) {
+                GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+                double expected = TestGraphs.dijkstra(graph, weights, from, to);
+                GraphPath path = hierarchy.route(from, to);
+                TestGraphs.assertPath(graph, weights, expected, path, metric + " #" + k);
+                GraphPath reference = AStarRouter.route(graph, metric, from, to, Heuristic.ZERO);
+                if (reference != null) {
+                    assertEquals(reference.getCost(), path.getCost(), 1e-6 * Math.max(1, expected),
+                        metric + " A* #" + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameSegmentIsReachedDirectly() {
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, weights);
+        for (int edge = 0; edge < graph.getEdgeCount(); edge += 37) {
+            GraphLocation from = TestGraphs.onEdge(graph, edge, 0.7);
+            GraphLocation to = TestGraphs.onEdge(graph, edge, 0.2);
+            GraphPath path = hierarchy.route(from, to);
+            assertEquals(0.5 * weights[edge], path.getCost(), 1e-9, "edge " + edge);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to), path,
+                "edge " + edge);
+        }
+    }
+
+    // 端点恰在节点上时两侧种子的代价之一为 0，捷径展开后的路径仍须落在原始边上
+    @Test
+    void snappedEndpointsOnNodes() {
+        Random random = new Random(2);
+        double[] weights = graph.getEdgeWeights(TravelMetric.WALKING);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, weights);
+        for (int k = 0; k < 100; k++) {
+            GraphLocation from = TestGraphs.atNode(graph, random.nextInt(graph.getNodeCount()));
+            GraphLocation to = k % 2 == 0
+                ? TestGraphs.atNode(graph, random.nextInt(graph.getNodeCount()))
+                : TestGraphs.onEdge(graph, random.nextInt(graph.getEdgeCount()), 1);
+            TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to),
+                hierarchy.route(from, to), "query " + k);
+        }
+        GraphLocation node = TestGraphs.atNode(graph, 0);
+        assertEquals(0, hierarchy.route(node, node).getCost(), 0);
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() {
+        ContractionHierarchy hierarchy =
+            ContractionHierarchy.build(graph, graph.getEdgeWeights(TravelMetric.DISTANCE));
+        GraphLocation island = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        Random random = new Random(3);
+        for (int k = 0; k < 10; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertNull(hierarchy.route(from, island));
+            assertNull(hierarchy.route(island, from));
+        }
+    }
+
+    @Test
+    void readFromRestoresWrittenHierarchy() throws IOException {
+        Random random = new Random(5);
+        for (TravelMetric metric : TravelMetric.values()) {
+            double[] weights = graph.getEdgeWeights(metric);
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, weights);
+            ContractionHierarchy restored = ContractionHierarchy.readFrom(
+                new ArtifactReader(ByteBuffer.wrap(write(hierarchy))), graph, weights);
+            for (int k = 0; k < 30; k++) {
+                GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+                TestGraphs.assertPath(graph, weights, TestGraphs.dijkstra(graph, weights, from, to),
+                    restored.route(from, to), metric + " #" + k);
+            }
+        }
+    }
+
+    // 数组长度正确但内容越界时，读取即失败，而不是在查询时越界
+    @Test
+    void readFromRejectsCorruptedArrays() throws IOException {
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        byte[] bytes = write(ContractionHierarchy.build(graph, weights));
+        int n = graph.getNodeCount();
+        int rank = 4;
+        int firstUp = rank + 4 * n + 4;
+        int upTargets = firstUp + 4 * (n + 1) + 4;
+        // 依次为：排名越界、排名重复、出弧偏移与弧数不符、出弧偏移不单调、出弧终点越界
+        int[][] patches = {{rank, n}, {rank + 4, ByteBuffer.wrap(bytes).getInt(rank)}, {firstUp + 4 * n, 0},
+            {firstUp + 4, Integer.MAX_VALUE}, {upTargets, n}, {upTargets, -1}};
+        for (int[] patch : patches) {
+            ByteBuffer corrupted = ByteBuffer.wrap(bytes.clone());
+            corrupted.putInt(patch[0], patch[1]);
+            assertThrows(IOException.class,
+                () -> ContractionHierarchy.readFrom(new ArtifactReader(corrupted), graph, weights),
+                "offset " + patch[0] + " = " + patch[1]);
+        }
+    }
+
+    static byte[] write(ContractionHierarchy hierarchy) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ArtifactWriter out = new ArtifactWriter(bytes)) {
+            hierarchy.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+}
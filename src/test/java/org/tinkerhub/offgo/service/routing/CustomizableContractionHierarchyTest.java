@@ -0,0 +1,83 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CustomizableContractionHierarchyTest {
+    private static final int SIZE = 25;
+
+    private final List<MapRoad> roads = TestGraphs.grid(SIZE, 0.8, 31);
+    private final RoadGraph graph = RoadGraph.build(roads, 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+    private final CustomizableContractionHierarchy customizable = CustomizableContractionHierarchy.prepare(graph);
+
+    @Test
+    void customizedHierarchyMatchesDijkstraAndAStar() {
+        assertMatches(graph, new Random(1));
+    }
+
+    // 同一份预处理在拥挤度变化后的快照上重新定制，结果与新快照上的 A* 一致
+    @Test
+    void recustomizedAfterCrowdChange() {
+        Random random = new Random(2);
+        for (long version = 2; version <= 3; version++) {
+            for (MapRoad road : roads) {
+                road.setCrowdLevel(0.1 + 0.9 * random.nextDouble());
+            }
+            RoadGraph updated = graph.withRoadAttributes(roads, version);
+            assertEquals(graph.getTopologyVersion(), updated.getTopologyVersion());
+            assertMatches(updated, random);
+        }
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() {
+        ContractionHierarchy hierarchy =
+            customizable.customize(graph, graph.getEdgeWeights(TravelMetric.WALKING));
+        GraphLocation island = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        Random random = new Random(3);
+        for (int k = 0; k < 10; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertNull(hierarchy.route(from, island));
+            assertNull(hierarchy.route(island, from));
+        }
+    }
+
+    @Test
+    void rejectsAnotherTopology() {
+        RoadGraph other = RoadGraph.build(TestGraphs.grid(SIZE, 0.8, 32), 2);
+        assertThrows(IllegalArgumentException.class,
+            () -> customizable.customize(other, other.getEdgeWeights(TravelMetric.DISTANCE)));
+    }
+
+    private void assertMatches(RoadGraph snapshot, Random random) {
+        for (TravelMetric metric : TravelMetric.values()) {
+            double[] weights = snapshot.getEdgeWeights(metric);
+            ContractionHierarchy hierarchy = customizable.customize(snapshot, weights);
+            for (int k = 0; k < 100; k++) {
+                GraphLocation from = k % 10 == 0
+                    ? TestGraphs.atNode(snapshot, random.nextInt(snapshot.getNodeCount()))
+                    : TestGraphs.randomLocation(snapshot, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(snapshot, index, SIZE, random);
+                double expected = TestGraphs.dijkstra(snapshot, weights, from, to);
+                GraphPath path = hierarchy.route(from, to);
+                TestGraphs.assertPath(snapshot, weights, expected, path,
+                    "v" + snapshot.getVersion() + " " + metric + " #" + k);
+                GraphPath reference = AStarRouter.route(snapshot, metric, from, to, Heuristic.ZERO);
+                if (reference != null) {
+                    assertEquals(reference.getCost(), path.getCost(), 1e-6 * Math.max(1, expected),
+                        "v" + snapshot.getVersion() + " " + metric + " A* #" + k);
+                }
+            }
+        }
+    }
+}
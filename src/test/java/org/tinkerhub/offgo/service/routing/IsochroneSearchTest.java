@@ -0,0 +1,78 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsochroneSearchTest {
+    private static final int SIZE = 20;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.85, 91), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+
+    /**
+     * 确定的节点恰好是参考 Dijkstra 中代价不超过上限的节点，代价一致，且按代价非递减的顺序交给监听器。
+     */
+    @Test
+    void settlesExactlyTheNodesWithinLimitInOrder() {
+        Random random = new Random(1);
+        double[] weights = graph.getEdgeWeights(TravelMetric.WALKING);
+        for (int k = 0; k < 30; k++) {
+            GraphLocation source = TestGraphs.randomLocation(graph, index, SIZE, random);
+            double limit = 60 + random.nextInt(400);
+            double[] expected = TestGraphs.distancesFrom(graph, weights, source);
+            List<double[]> settled = new ArrayList<>();
+            assertTrue(IsochroneSearch.run(graph, weights, source, limit, Integer.MAX_VALUE,
+                (node, cost) -> settled.add(new double[]{node, cost})), "#" + k);
+
+            boolean[] seen = new boolean[graph.getNodeCount()];
+            double previous = 0;
+            for (double[] entry : settled) {
+                int node = (int) entry[0];
+                assertFalse(seen[node], "#" + k + " node " + node + " settled twice");
+                seen[node] = true;
+                assertTrue(entry[1] >= previous, "#" + k + " cost decreased");
+                assertTrue(entry[1] <= limit, "#" + k + " cost over limit");
+                assertEquals(expected[node], entry[1], 1e-6, "#" + k + " node " + node);
+                previous = entry[1];
+            }
+            for (int v = 0; v < graph.getNodeCount(); v++) {
+                assertEquals(expected[v] <= limit, seen[v], "#" + k + " node " + v);
+            }
+        }
+    }
+
+    // 确定的节点数达到上限时返回 false，监听器恰好收到上限个节点；监听器主动停止不算截断
+    @Test
+    void settledNodeBudgetIsEnforced() {
+        double[] weights = graph.getEdgeWeights(TravelMetric.WALKING);
+        GraphLocation source = TestGraphs.atNode(graph, 0);
+        int[] count = new int[1];
+        assertFalse(IsochroneSearch.run(graph, weights, source, Double.POSITIVE_INFINITY, 25,
+            (node, cost) -> ++count[0] > 0));
+        assertEquals(25, count[0]);
+
+        count[0] = 0;
+        assertTrue(IsochroneSearch.run(graph, weights, source, Double.POSITIVE_INFINITY, 10_000,
+            (node, cost) -> ++count[0] < 10));
+        assertEquals(10, count[0]);
+
+        count[0] = 0;
+        assertTrue(IsochroneSearch.run(graph, weights, source, Double.POSITIVE_INFINITY, graph.getNodeCount(),
+            (node, cost) -> ++count[0] > 0));
+        double[] expected = TestGraphs.distancesFrom(graph, weights, source);
+        int reachable = 0;
+        for (double distance : expected) {
+            reachable += distance < Double.POSITIVE_INFINITY ? 1 : 0;
+        }
+        assertEquals(reachable, count[0]);
+    }
+}
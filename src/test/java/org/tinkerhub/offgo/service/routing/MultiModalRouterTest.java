@@ -0,0 +1,171 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.LandmarkManager;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiModalRouterTest {
+    private static final int SIZE = 30;
+    private static final double SWITCH = MultiModalRouter.SWITCH_SECONDS;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.85, 16), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+    private final double[] walk = graph.getEdgeWeights(TravelMetric.WALKING);
+    private final double[] ride = graph.getEdgeWeights(TravelMetric.ELECTRIC);
+
+    /**
+     * 与三层状态图上的朴素 Dijkstra 比较，估价分别为零、直线距离与 ALT；
+     * 结果不慢于全程步行，骑行段只在主干道上，且按几何重新累计的用时与路径代价一致。
+     */
+    @Test
+    void matchesLayeredDijkstra() {
+        LandmarkManager landmarks = new LandmarkManager(graph);
+        Random random = new Random(1);
+        int rides = 0;
+        for (int k = 0; k < 300; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+            double expected = dijkstra(from, to);
+            Heuristic[] bounds = {Heuristic.ZERO, AStarRouter.straightLine(graph, TravelMetric.DISTANCE, to),
+                landmarks.heuristicTo(graph, to, TravelMetric.DISTANCE)};
+            for (Heuristic bound : bounds) {
+                ModalPath modal = MultiModalRouter.route(graph, from, to, bound);
+                assertNotNull(modal, "query " + k);
+                assertEquals(expected, modal.getPath().getCost(), 1e-6 * Math.max(1, expected), "query " + k);
+                assertEquals(expected, geometryCost(modal), 1e-3 * Math.max(1, expected), "query " + k + ": geometry");
+            }
+            GraphPath walking = AStarRouter.route(graph, TravelMetric.WALKING, from, to);
+            assertTrue(expected <= walking.getCost() + 1e-6, "query " + k + " slower than walking");
+            if (MultiModalRouter.route(graph, from, to, Heuristic.ZERO).isRiding()) {
+                rides++;
+            }
+        }
+        assertTrue(rides > 0, "no query rode");
+    }
+
+    // 没有拥挤度曲线时，指定出发时刻与按快照拥挤度的结果相同
+    @Test
+    void departureWithoutProfilesMatchesSnapshot() {
+        Random random = new Random(2);
+        for (int k = 0; k < 50; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertEquals(MultiModalRouter.route(graph, from, to, Heuristic.ZERO).getPath().getCost(),
+                MultiModalRouter.route(graph, from, to, Heuristic.ZERO, random.nextInt(86400)).getPath().getCost(),
+                1e-6, "query " + k);
+        }
+    }
+
+    @Test
+    void sameSegmentCanBeWalkedDirectly() {
+        for (int edge = 0; edge < graph.getEdgeCount(); edge += 37) {
+            GraphLocation from = TestGraphs.onEdge(graph, edge, 0.2);
+            GraphLocation to = TestGraphs.onEdge(graph, edge, 0.7);
+            ModalPath modal = MultiModalRouter.route(graph, from, to, Heuristic.ZERO);
+            assertTrue(modal.getPath().getCost() <= 0.5 * walk[edge] + 1e-9, "edge " + edge);
+            assertEquals(dijkstra(from, to), modal.getPath().getCost(), 1e-6, "edge " + edge);
+        }
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() {
+        GraphLocation island = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        Random random = new Random(3);
+        for (int k = 0; k < 10; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertNull(MultiModalRouter.route(graph, from, island, Heuristic.ZERO));
+        }
+    }
+
+    /**
+     * 参考实现：状态为（节点，层），层 0 为上车前步行、1 为骑行、2 为下车后步行。
+     * 连接主干道的节点上可以进入下一层，各计一次取车或停车用时；骑行层只走主干道。
+     * 起点或终点在主干道上时，可以在投影点直接上车或下车。
+     */
+    private double dijkstra(GraphLocation from, GraphLocation to) {
+        double[] costs = new double[graph.getNodeCount() * 3];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        relax(costs, queue, from.getFromNode() * 3, from.costToFrom(walk));
+        relax(costs, queue, from.getToNode() * 3, from.costToTo(walk));
+        if (isPrimary(from.getEdge())) {
+            relax(costs, queue, from.getFromNode() * 3 + 1, SWITCH + from.costToFrom(ride));
+            relax(costs, queue, from.getToNode() * 3 + 1, SWITCH + from.costToTo(ride));
+        }
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int state = (int) entry[1];
+            if (entry[0] > costs[state]) {
+                continue;
+            }
+            int u = state / 3;
+            int layer = state % 3;
+            boolean primaryNode = false;
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                primaryNode |= isPrimary(e);
+                if (layer == 1 && !isPrimary(e)) {
+                    continue;
+                }
+                relax(costs, queue, graph.getEdgeTarget(e) * 3 + layer, entry[0] + (layer == 1 ? ride[e] : walk[e]));
+            }
+            if (layer < 2 && primaryNode) {
+                relax(costs, queue, state + 1, entry[0] + SWITCH);
+            }
+        }
+        double best = Double.POSITIVE_INFINITY;
+        int[] ends = {to.getFromNode(), to.getToNode()};
+        double[] walkRemaining = {to.costToFrom(walk), to.costToTo(walk)};
+        double[] rideRemaining = {to.costToFrom(ride), to.costToTo(ride)};
+        for (int i = 0; i < 2; i++) {
+            best = Math.min(best, costs[ends[i] * 3] + walkRemaining[i]);
+            best = Math.min(best, costs[ends[i] * 3 + 2] + walkRemaining[i]);
+            if (isPrimary(to.getEdge())) {
+                best = Math.min(best, costs[ends[i] * 3 + 1] + rideRemaining[i] + SWITCH);
+            }
+        }
+        if (from.isOnSameSegment(to)) {
+            best = Math.min(best, from.costAlongSegmentTo(to, walk));
+        }
+        return best;
+    }
+
+    private static void relax(double[] costs, PriorityQueue<double[]> queue, int state, double cost) {
+        if (cost < costs[state]) {
+            costs[state] = cost;
+            queue.add(new double[]{cost, state});
+        }
+    }
+
+    private boolean isPrimary(int edge) {
+        return "primary".equals(graph.getEdgeRoadType(edge));
+    }
+
+    // 骑行段（上车点到下车点之间）按电动车权重、其余按步行权重累计，另加一次取车与停车
+    private double geometryCost(ModalPath modal) {
+        GraphPath path = modal.getPath();
+        double cost = modal.isRiding() ? 2 * SWITCH : 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int edge = path.getSegmentEdge(i);
+            if (edge < 0) {
+                continue;
+            }
+            boolean riding = modal.isRiding() && i >= modal.getMountIndex() && i < modal.getDismountIndex();
+            assertTrue(!riding || isPrimary(edge), "riding on " + graph.getEdgeRoadType(edge));
+            double length = DistanceUtil.calculateDistance(path.getLatitude(i), path.getLongitude(i),
+                path.getLatitude(i + 1), path.getLongitude(i + 1));
+            cost += (riding ? ride[edge] : walk[edge]) * length / graph.getEdgeLength(edge);
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,61 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingMetricsTest {
+    private static final int SIZE = 15;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.9, 61), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+
+    // 每次搜索结束时立即计入，不依赖同一线程上的下一次搜索；双向搜索两侧各计一次
+    @Test
+    void searchIsCountedWhenItFinishes() {
+        Random random = new Random(1);
+        GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+        GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+
+        long searches = counter("offgo_routing_searches_total");
+        long settled = counter("offgo_routing_settled_nodes_total");
+        AStarRouter.route(graph, TravelMetric.DISTANCE, from, to);
+        assertEquals(searches + 1, counter("offgo_routing_searches_total"));
+        assertTrue(counter("offgo_routing_settled_nodes_total") > settled);
+
+        BidirectionalRouter.route(graph, TravelMetric.DISTANCE, from, to);
+        assertEquals(searches + 3, counter("offgo_routing_searches_total"));
+
+        ContractionHierarchy.build(graph, graph.getEdgeWeights(TravelMetric.DISTANCE));
+        assertEquals(searches + 3, counter("offgo_routing_searches_total"), "preprocessing is not counted");
+    }
+
+    // 规划耗时在调用方记录：成功与失败的请求都计入，交通方式按用时度量归一
+    @Test
+    void timePlanRecordsEveryCall() {
+        String series = "offgo_route_plan_seconds_count{planner=\"timePlanTest\",mode=\"walking\"}";
+        assertEquals("ok", RoutingMetrics.timePlan("timePlanTest", "walking", () -> "ok"));
+        assertEquals(1, counter(series));
+        assertThrows(IllegalStateException.class, () -> RoutingMetrics.timePlan("timePlanTest", "unknown", () -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals(2, counter(series));
+    }
+
+    private static long counter(String name) {
+        StringBuilder out = new StringBuilder();
+        RoutingMetrics.writeTo(out);
+        for (String line : out.toString().split("\n")) {
+            if (line.startsWith(name + " ")) {
+                return Long.parseLong(line.substring(name.length() + 1).trim());
+            }
+        }
+        throw new AssertionError("missing " + name);
+    }
+}
@@ -0,0 +1,135 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.RoadGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 线段索引与逐条扫描全部线段的结果比较，距离按索引使用的等距圆柱投影计算。
+ */
+class SegmentIndexTest {
+    private static final int SIZE = 30;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6371000;
+
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(SIZE, 0.8, 81), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+
+    @Test
+    void nearestMatchesBruteForce() {
+        Random random = new Random(1);
+        for (int k = 0; k < 300; k++) {
+            double[] point = randomPoint(random);
+            GraphLocation location = index.nearest(graph, point[0], point[1]);
+            List<Double> expected = bruteForce(graph, point, null, Double.POSITIVE_INFINITY);
+            assertEquals(expected.get(0), planarDistance(graph, point, location), 1e-6, "query " + k);
+        }
+    }
+
+    // 按类型、距离上限取前 k 个，与扫描后排序截取的结果逐个比较
+    @Test
+    void typedNearestMatchesBruteForce() {
+        Random random = new Random(2);
+        String[] roadTypes = {"primary", "secondary", "footway", "residential"};
+        for (int k = 0; k < 200; k++) {
+            double[] point = randomPoint(random);
+            String roadType = roadTypes[k % roadTypes.length];
+            double maxDistance = k % 3 == 0 ? Double.POSITIVE_INFINITY : 50 + random.nextInt(300);
+            int count = 1 + random.nextInt(8);
+            assertTypedNearest(graph, index, point, roadType, maxDistance, count, "query " + k);
+        }
+    }
+
+    // 道路类型超过 63 种时，多出的类型共用一位，叶子上按名称核对
+    @Test
+    void manyRoadTypesShareTheLastBit() {
+        List<MapRoad> roads = TestGraphs.grid(SIZE, 0.8, 82);
+        for (int r = 0; r < roads.size(); r++) {
+            roads.get(r).setRoadType("type" + r % 100);
+        }
+        RoadGraph typed = RoadGraph.build(roads, 1);
+        SegmentIndex typedIndex = SegmentIndex.build(typed);
+        Random random = new Random(3);
+        for (int k = 0; k < 200; k++) {
+            double[] point = randomPoint(random);
+            assertTypedNearest(typed, typedIndex, point, "type" + random.nextInt(100), Double.POSITIVE_INFINITY,
+                3, "query " + k);
+        }
+        assertTrue(typedIndex.nearest(typed, 40, 116.3, 3, "missing", Double.POSITIVE_INFINITY).isEmpty());
+    }
+
+    // 道路类型变化的快照不能沿用按类型剪枝的索引
+    @Test
+    void roadTypeChangeRequiresRebuild() {
+        List<MapRoad> roads = TestGraphs.grid(SIZE, 0.8, 81);
+        roads.get(0).setRoadType("primary".equals(roads.get(0).getRoadType()) ? "footway" : "primary");
+        assertNull(graph.withRoadAttributes(roads, 2));
+    }
+
+    private static void assertTypedNearest(RoadGraph graph, SegmentIndex index, double[] point, String roadType,
+                                           double maxDistance, int count, String message) {
+        List<GraphLocation> result = index.nearest(graph, point[0], point[1], count, roadType, maxDistance);
+        List<Double> expected = bruteForce(graph, point, roadType, maxDistance);
+        assertEquals(Math.min(count, expected.size()), result.size(), message);
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(roadType, graph.getEdgeRoadType(result.get(i).getEdge()), message);
+            assertEquals(expected.get(i), planarDistance(graph, point, result.get(i)), 1e-6, message + " #" + i);
+        }
+    }
+
+    private static double[] randomPoint(Random random) {
+        double span = (SIZE + 1) * TestGraphs.STEP;
+        return new double[]{TestGraphs.ORIGIN_LATITUDE - TestGraphs.STEP + random.nextDouble() * span,
+            TestGraphs.ORIGIN_LONGITUDE - TestGraphs.STEP + random.nextDouble() * span};
+    }
+
+    // 每条无向边一个线段，返回升序排列的平面距离
+    private static List<Double> bruteForce(RoadGraph graph, double[] point, String roadType, double maxDistance) {
+        double lonScale = lonScale(graph);
+        List<Double> distances = new ArrayList<>();
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                int v = graph.getEdgeTarget(e);
+                if (v <= u || roadType != null && !roadType.equals(graph.getEdgeRoadType(e))) {
+                    continue;
+                }
+                double distance = segmentDistance(point[1] * lonScale, point[0] * METERS_PER_DEGREE,
+                    graph.getLongitude(u) * lonScale, graph.getLatitude(u) * METERS_PER_DEGREE,
+                    graph.getLongitude(v) * lonScale, graph.getLatitude(v) * METERS_PER_DEGREE);
+                if (distance <= maxDistance) {
+                    distances.add(distance);
+                }
+            }
+        }
+        distances.sort(null);
+        return distances;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)));
+        return Math.hypot(ax + t * dx - px, ay + t * dy - py);
+    }
+
+    private static double planarDistance(RoadGraph graph, double[] point, GraphLocation location) {
+        double lonScale = lonScale(graph);
+        return Math.hypot((location.getSnappedLongitude() - point[1]) * lonScale,
+            (location.getSnappedLatitude() - point[0]) * METERS_PER_DEGREE);
+    }
+
+    private static double lonScale(RoadGraph graph) {
+        double centerLat = 0;
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            centerLat += graph.getLatitude(v);
+        }
+        return METERS_PER_DEGREE * Math.cos(Math.toRadians(centerLat / graph.getNodeCount()));
+    }
+}
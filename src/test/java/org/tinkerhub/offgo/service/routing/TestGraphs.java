@@ -0,0 +1,205 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.Polyline;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 路由测试用的合成路网与参考实现。
+ * 路网是带随机抖动的方格，每个街段是一条独立的道路，按概率删去一部分形成绕行与死胡同；
+ * 方格之外另有一个与主网不连通的小方块，用于不可达的情形。
+ */
+public final class TestGraphs {
+    static final double ORIGIN_LATITUDE = 40.0;
+    static final double ORIGIN_LONGITUDE = 116.3;
+    static final double STEP = 0.001;
+    // 孤立小方块的左下角，离主网足够远
+    static final double ISLAND_LATITUDE = 40.5;
+
+    private static final String[] ROAD_TYPES = {"primary", "secondary", "footway", "residential"};
+
+    private TestGraphs() {
+    }
+
+    /**
+     * size x size 的方格路网，每个街段以 keep 的概率保留，另加一个 2 x 2 的孤立方块。
+     */
+    public static List<MapRoad> grid(int size, double keep, long seed) {
+        Random random = new Random(seed);
+        double[][] latitudes = new double[size][size];
+        double[][] longitudes = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                latitudes[i][j] = ORIGIN_LATITUDE + i * STEP + (random.nextDouble() - 0.5) * STEP * 0.4;
+                longitudes[i][j] = ORIGIN_LONGITUDE + j * STEP + (random.nextDouble() - 0.5) * STEP * 0.4;
+            }
+        }
+        List<MapRoad> roads = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (j + 1 < size && random.nextDouble() < keep) {
+                    roads.add(road(roads.size() + 1, random, latitudes[i][j], longitudes[i][j],
+                        latitudes[i][j + 1], longitudes[i][j + 1]));
+                }
+                if (i + 1 < size && random.nextDouble() < keep) {
+                    roads.add(road(roads.size() + 1, random, latitudes[i][j], longitudes[i][j],
+                        latitudes[i + 1][j], longitudes[i + 1][j]));
+                }
+            }
+        }
+        double[] islandLatitudes = {ISLAND_LATITUDE, ISLAND_LATITUDE, ISLAND_LATITUDE + STEP, ISLAND_LATITUDE + STEP};
+        double[] islandLongitudes = {ORIGIN_LONGITUDE, ORIGIN_LONGITUDE + STEP, ORIGIN_LONGITUDE + STEP, ORIGIN_LONGITUDE};
+        for (int k = 0; k < 4; k++) {
+            int next = (k + 1) % 4;
+            roads.add(road(roads.size() + 1, random, islandLatitudes[k], islandLongitudes[k],
+                islandLatitudes[next], islandLongitudes[next]));
+        }
+        return roads;
+    }
+
+    private static MapRoad road(long id, Random random, double lat1, double lon1, double lat2, double lon2) {
+        MapRoad road = new MapRoad();
+        road.setId(id);
+        road.setRoadType(ROAD_TYPES[random.nextInt(ROAD_TYPES.length)]);
+        road.setCrowdLevel(0.1 + 0.9 * random.nextDouble());
+        road.setGeometry(Polyline.of(new double[]{lat1, lat2}, new double[]{lon1, lon2}));
+        return road;
+    }
+
+    // 主网范围内的随机坐标，经线段索引吸附
+    public static GraphLocation randomLocation(RoadGraph graph, SegmentIndex index, int size, Random random) {
+        double span = (size - 1) * STEP;
+        return index.nearest(graph, ORIGIN_LATITUDE + random.nextDouble() * span,
+            ORIGIN_LONGITUDE + random.nextDouble() * span);
+    }
+
+    // 恰好位于节点上的吸附位置（投影落在边的端点）
+    public static GraphLocation atNode(RoadGraph graph, int node) {
+        int edge = graph.edgeBegin(node);
+        double latitude = graph.getLatitude(node);
+        double longitude = graph.getLongitude(node);
+        return new GraphLocation(latitude, longitude, latitude, longitude,
+            edge, node, graph.getEdgeTarget(edge), 0, 0);
+    }
+
+    // 边上 fraction 处的吸附位置
+    public static GraphLocation onEdge(RoadGraph graph, int edge, double fraction) {
+        int from = graph.getEdgeSource(edge);
+        int to = graph.getEdgeTarget(edge);
+        double latitude = graph.getLatitude(from) + (graph.getLatitude(to) - graph.getLatitude(from)) * fraction;
+        double longitude = graph.getLongitude(from) + (graph.getLongitude(to) - graph.getLongitude(from)) * fraction;
+        return new GraphLocation(latitude, longitude, latitude, longitude, edge, from, to, fraction, 0);
+    }
+
+    // 孤立方块中的一个节点
+    public static int islandNode(RoadGraph graph) {
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            if (graph.getLatitude(v) >= ISLAND_LATITUDE) {
+                return v;
+            }
+        }
+        throw new IllegalStateException("Graph has no island");
+    }
+
+    /**
+     * 参考实现：java.util.PriorityQueue 上的朴素 Dijkstra，不使用被测代码的工作区与堆。
+     * @return 两个吸附位置之间的最短代价（不含接驳段），不可达为正无穷
+     */
+    public static double dijkstra(RoadGraph graph, double[] weights, GraphLocation from, GraphLocation to) {
+        double[] distances = distancesFrom(graph, weights, from);
+        double best = Math.min(distances[to.getFromNode()] + to.costToFrom(weights),
+            distances[to.getToNode()] + to.costToTo(weights));
+        if (from.isOnSameSegment(to)) {
+            best = Math.min(best, from.costAlongSegmentTo(to, weights));
+        }
+        return best;
+    }
+
+    // 从吸附位置到每个节点的最短代价，不可达为正无穷
+    public static double[] distancesFrom(RoadGraph graph, double[] weights, GraphLocation from) {
+        double[] distances = new double[graph.getNodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        relax(distances, queue, from.getFromNode(), from.costToFrom(weights));
+        relax(distances, queue, from.getToNode(), from.costToTo(weights));
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int u = (int) entry[1];
+            if (entry[0] > distances[u]) {
+                continue;
+            }
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                relax(distances, queue, graph.getEdgeTarget(e), entry[0] + weights[e]);
+            }
+        }
+        return distances;
+    }
+
+    private static void relax(double[] distances, PriorityQueue<double[]> queue, int node, double distance) {
+        if (distance < distances[node]) {
+            distances[node] = distance;
+            queue.add(new double[]{distance, node});
+        }
+    }
+
+    /**
+     * 检查路径代价与参考值一致，且路径几何按所记录的边重新累计后得到同样的代价。
+     */
+    public static void assertPath(RoadGraph graph, double[] weights, double expected, GraphPath path,
+                                  String message) {
+        if (expected == Double.POSITIVE_INFINITY) {
+            assertNull(path, message + ": expected no path");
+            return;
+        }
+        assertNotNull(path, message + ": expected a path");
+        assertEquals(expected, path.getCost(), 1e-6 * Math.max(1, expected), message);
+        assertEquals(expected, geometryCost(graph, weights, path), 1e-3 * Math.max(1, expected),
+            message + ": geometry");
+    }
+
+    // 按几何长度占边长的比例累计各段所在边的权重；接驳段不计
+    static double geometryCost(RoadGraph graph, double[] weights, GraphPath path) {
+        double cost = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int edge = path.getSegmentEdge(i);
+            if (edge < 0) {
+                continue;
+            }
+            assertTrue(onEdge(graph, edge, path.getLatitude(i), path.getLongitude(i))
+                && onEdge(graph, edge, path.getLatitude(i + 1), path.getLongitude(i + 1)),
+                "segment " + i + " does not lie on edge " + edge);
+            double length = DistanceUtil.calculateDistance(path.getLatitude(i), path.getLongitude(i),
+                path.getLatitude(i + 1), path.getLongitude(i + 1));
+            cost += weights[edge] * length / graph.getEdgeLength(edge);
+        }
+        return cost;
+    }
+
+    // 点是否位于边所在的线段上（经纬度平面内共线且在两端点之间）
+    private static boolean onEdge(RoadGraph graph, int edge, double latitude, double longitude) {
+        int from = graph.getEdgeSource(edge);
+        int to = graph.getEdgeTarget(edge);
+        double ax = graph.getLatitude(from);
+        double ay = graph.getLongitude(from);
+        double bx = graph.getLatitude(to) - ax;
+        double by = graph.getLongitude(to) - ay;
+        double px = latitude - ax;
+        double py = longitude - ay;
+        double lengthSquared = bx * bx + by * by;
+        double t = (px * bx + py * by) / lengthSquared;
+        double cross = Math.abs(px * by - py * bx) / Math.sqrt(lengthSquared);
+        return t >= -1e-9 && t <= 1 + 1e-9 && cross <= 1e-9;
+    }
+}
@@ -0,0 +1,173 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.entity.MapRoad;
+import org.tinkerhub.offgo.model.CrowdProfile;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.service.LandmarkManager;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TimeDependentRouterTest {
+    private static final int SIZE = 25;
+    private static final TravelMetric[] TIME_METRICS =
+        {TravelMetric.WALKING, TravelMetric.BICYCLE, TravelMetric.ELECTRIC};
+
+    private final RoadGraph graph = RoadGraph.build(withProfiles(TestGraphs.grid(SIZE, 0.8, 15), new Random(5)), 1);
+    private final SegmentIndex index = SegmentIndex.build(graph);
+
+    // 每条道路一条随机的全天拥挤度曲线
+    private static List<MapRoad> withProfiles(List<MapRoad> roads, Random random) {
+        for (MapRoad road : roads) {
+            double[] levels = new double[CrowdProfile.SLOTS];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = random.nextDouble();
+            }
+            road.setCrowdProfile(CrowdProfile.of(levels));
+        }
+        return roads;
+    }
+
+    /**
+     * 与朴素的时间依赖 Dijkstra 比较，估价分别为零、直线距离与 ALT 距离下界除以最大速度；
+     * 并按路径逐段模拟行程时钟，累计用时与路径代价一致。
+     */
+    @Test
+    void matchesTimeDependentDijkstra() {
+        LandmarkManager landmarks = new LandmarkManager(graph);
+        Random random = new Random(1);
+        for (TravelMetric metric : TIME_METRICS) {
+            for (int k = 0; k < 100; k++) {
+                GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(graph, index, SIZE, random);
+                double departure = random.nextInt(CrowdProfile.DAY_SECONDS);
+                String message = metric + " #" + k + " at " + departure;
+                double expected = dijkstra(graph, metric, from, to, departure);
+                Heuristic distance = landmarks.heuristicTo(graph, to, TravelMetric.DISTANCE);
+                double maxSpeed = metric.getMaxSpeed();
+                Heuristic[] heuristics = {Heuristic.ZERO, AStarRouter.straightLine(graph, metric, to),
+                    node -> distance.estimate(node) / maxSpeed};
+                for (Heuristic heuristic : heuristics) {
+                    GraphPath path = TimeDependentRouter.route(graph, metric, from, to, departure, heuristic);
+                    assertNotNull(path, message);
+                    assertEquals(expected, path.getCost(), 1e-6 * Math.max(1, expected), message);
+                    assertEquals(expected, simulate(graph, metric, path, departure), 1e-3 * Math.max(1, expected),
+                        message + ": simulated clock");
+                }
+            }
+        }
+    }
+
+    // 没有拥挤度曲线时按快照拥挤度计算，与静态权重上的最短路一致，与出发时刻无关
+    @Test
+    void withoutProfilesMatchesStaticWeights() {
+        RoadGraph flat = RoadGraph.build(TestGraphs.grid(SIZE, 0.8, 16), 1);
+        SegmentIndex flatIndex = SegmentIndex.build(flat);
+        Random random = new Random(2);
+        for (TravelMetric metric : TIME_METRICS) {
+            double[] weights = flat.getEdgeWeights(metric);
+            for (int k = 0; k < 50; k++) {
+                GraphLocation from = TestGraphs.randomLocation(flat, flatIndex, SIZE, random);
+                GraphLocation to = TestGraphs.randomLocation(flat, flatIndex, SIZE, random);
+                TestGraphs.assertPath(flat, weights, TestGraphs.dijkstra(flat, weights, from, to),
+                    TimeDependentRouter.route(flat, metric, from, to, random.nextInt(CrowdProfile.DAY_SECONDS),
+                        Heuristic.ZERO), metric + " #" + k);
+            }
+        }
+    }
+
+    @Test
+    void sameSegmentIsReachedDirectly() {
+        for (int edge = 0; edge < graph.getEdgeCount(); edge += 37) {
+            GraphLocation from = TestGraphs.onEdge(graph, edge, 0.2);
+            GraphLocation to = TestGraphs.onEdge(graph, edge, 0.7);
+            double departure = edge * 97 % CrowdProfile.DAY_SECONDS;
+            GraphPath path = TimeDependentRouter.route(graph, TravelMetric.BICYCLE, from, to, departure,
+                Heuristic.ZERO);
+            assertEquals(dijkstra(graph, TravelMetric.BICYCLE, from, to, departure), path.getCost(),
+                1e-6 * Math.max(1, path.getCost()), "edge " + edge);
+        }
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() {
+        GraphLocation island = TestGraphs.atNode(graph, TestGraphs.islandNode(graph));
+        Random random = new Random(3);
+        for (int k = 0; k < 10; k++) {
+            GraphLocation from = TestGraphs.randomLocation(graph, index, SIZE, random);
+            assertNull(TimeDependentRouter.route(graph, TravelMetric.BICYCLE, from, island, 8 * 3600,
+                Heuristic.ZERO));
+        }
+    }
+
+    /**
+     * 参考实现：按最早到达时刻做标签设定的 Dijkstra，边的用时取进入该边时刻的值。
+     */
+    private static double dijkstra(RoadGraph graph, TravelMetric metric, GraphLocation from, GraphLocation to,
+                                   double departure) {
+        double[] lengths = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        double[] elapsed = new double[graph.getNodeCount()];
+        Arrays.fill(elapsed, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        relax(elapsed, queue, from.getFromNode(),
+            metric.travelTime(graph, from.getEdge(), from.costToFrom(lengths), departure));
+        relax(elapsed, queue, from.getToNode(),
+            metric.travelTime(graph, from.getEdge(), from.costToTo(lengths), departure));
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int u = (int) entry[1];
+            if (entry[0] > elapsed[u]) {
+                continue;
+            }
+            for (int e = graph.edgeBegin(u); e < graph.edgeEnd(u); e++) {
+                relax(elapsed, queue, graph.getEdgeTarget(e),
+                    entry[0] + metric.travelTime(graph, e, lengths[e], departure + entry[0]));
+            }
+        }
+        double best = Double.POSITIVE_INFINITY;
+        int[] ends = {to.getFromNode(), to.getToNode()};
+        double[] remaining = {to.costToFrom(lengths), to.costToTo(lengths)};
+        for (int i = 0; i < 2; i++) {
+            if (elapsed[ends[i]] < Double.POSITIVE_INFINITY) {
+                best = Math.min(best, elapsed[ends[i]]
+                    + metric.travelTime(graph, to.getEdge(), remaining[i], departure + elapsed[ends[i]]));
+            }
+        }
+        if (from.isOnSameSegment(to)) {
+            best = Math.min(best,
+                metric.travelTime(graph, from.getEdge(), from.costAlongSegmentTo(to, lengths), departure));
+        }
+        return best;
+    }
+
+    private static void relax(double[] elapsed, PriorityQueue<double[]> queue, int node, double time) {
+        if (time < elapsed[node]) {
+            elapsed[node] = time;
+            queue.add(new double[]{time, node});
+        }
+    }
+
+    // 沿路径几何逐段推进时钟，接驳段不计
+    private static double simulate(RoadGraph graph, TravelMetric metric, GraphPath path, double departure) {
+        double clock = departure;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int edge = path.getSegmentEdge(i);
+            if (edge < 0) {
+                continue;
+            }
+            double length = DistanceUtil.calculateDistance(path.getLatitude(i), path.getLongitude(i),
+                path.getLatitude(i + 1), path.getLongitude(i + 1));
+            clock += metric.travelTime(graph, edge, length, clock);
+        }
+        return clock - departure;
+    }
+}
@@ -0,0 +1,281 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 途经点规划与穷举所有顺序的结果比较。
+ * 代价矩阵按若干种点集生成：均匀随机、成簇、共线、全部等距，以及一个远离其余点的离群点。
+ */
+class TourPlannerTest {
+    private static final long BUDGET_NANOS = 50_000_000L;
+    private static final int MAX_STOPS = 8;
+
+    private record Case(String name, double[][] cost) {
+    }
+
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        Random random = new Random(7);
+        for (int stops = 0; stops <= MAX_STOPS; stops++) {
+            int points = stops + 1;
+            double[][] uniform = new double[points][2];
+            double[][] clustered = new double[points][2];
+            double[][] line = new double[points][2];
+            double[][] outlier = new double[points][2];
+            for (int i = 0; i < points; i++) {
+                uniform[i] = new double[]{random.nextDouble() * 1000, random.nextDouble() * 1000};
+                int cluster = random.nextInt(3);
+                clustered[i] = new double[]{cluster * 800 + random.nextDouble() * 50,
+                    (cluster % 2) * 600 + random.nextDouble() * 50};
+                line[i] = new double[]{random.nextInt(1000), 0};
+                outlier[i] = i == points / 2
+                    ? new double[]{5000, 5000}
+                    : new double[]{random.nextDouble() * 100, random.nextDouble() * 100};
+            }
+            cases.add(new Case("uniform/" + stops, euclidean(uniform)));
+            cases.add(new Case("clustered/" + stops, euclidean(clustered)));
+            cases.add(new Case("line/" + stops, euclidean(line)));
+            cases.add(new Case("outlier/" + stops, euclidean(outlier)));
+            double[][] equal = new double[points][points];
+            for (int i = 0; i < points; i++) {
+                Arrays.fill(equal[i], 100);
+                equal[i][i] = 0;
+            }
+            cases.add(new Case("equal/" + stops, equal));
+        }
+        return cases;
+    }
+
+    private static double[][] euclidean(double[][] points) {
+        double[][] cost = new double[points.length][points.length];
+        for (int i = 0; i < points.length; i++) {
+            for (int j = 0; j < points.length; j++) {
+                cost[i][j] = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+            }
+        }
+        return cost;
+    }
+
+    @Test
+    void planMatchesBruteForce() {
+        for (Case c : cases()) {
+            for (boolean roundTrip : new boolean[]{false, true}) {
+                String message = c.name() + (roundTrip ? " round trip" : " open");
+                int[] order = TourPlanner.plan(c.cost(), roundTrip, BUDGET_NANOS);
+                assertPermutation(order, c.cost().length - 1, message);
+                assertEquals(bruteForce(c.cost(), roundTrip), TourPlanner.tourCost(c.cost(), order, roundTrip),
+                    1e-9, message);
+            }
+        }
+    }
+
+    /**
+     * 2-opt 与 Or-opt 交替改进：结果不差于初始顺序、不优于最优解，
+     * 且不存在任何可改进的片段翻转或长度 1~3 的片段移动。
+     */
+    @Test
+    void localSearchReachesLocalOptimum() {
+        Random random = new Random(8);
+        for (Case c : cases()) {
+            int stops = c.cost().length - 1;
+            for (boolean roundTrip : new boolean[]{false, true}) {
+                double optimum = bruteForce(c.cost(), roundTrip);
+                for (int trial = 0; trial < 5; trial++) {
+                    String message = c.name() + (roundTrip ? " round trip" : " open") + " start " + trial;
+                    int[] start = startOrder(stops, trial, random);
+                    int[] order = TourPlanner.improve(c.cost(), start.clone(), roundTrip, Long.MAX_VALUE);
+                    assertPermutation(order, stops, message);
+                    double total = TourPlanner.tourCost(c.cost(), order, roundTrip);
+                    assertTrue(total <= TourPlanner.tourCost(c.cost(), start, roundTrip) + 1e-9, message);
+                    assertTrue(total >= optimum - 1e-9, message);
+                    assertNoImprovingMove(c.cost(), order, roundTrip, message);
+                }
+            }
+        }
+    }
+
+    // 以顺序 1..n 为初始上界，不限时间与状态数时得到最优解
+    @Test
+    void branchAndBoundMatchesBruteForce() {
+        List<Case> cases = new ArrayList<>(cases());
+        Random random = new Random(9);
+        for (int k = 0; k < 4; k++) {
+            double[][] points = new double[10][2];
+            for (double[] point : points) {
+                point[0] = random.nextDouble() * 1000;
+                point[1] = random.nextDouble() * 1000;
+            }
+            cases.add(new Case("uniform/9#" + k, euclidean(points)));
+        }
+        for (Case c : cases) {
+            int stops = c.cost().length - 1;
+            if (stops < 2) continue;
+            for (boolean roundTrip : new boolean[]{false, true}) {
+                String message = c.name() + (roundTrip ? " round trip" : " open");
+                int[] order = TourPlanner.branchAndBound(c.cost(), roundTrip, startOrder(stops, 0, random),
+                    Long.MAX_VALUE, Integer.MAX_VALUE);
+                assertPermutation(order, stops, message);
+                assertEquals(bruteForce(c.cost(), roundTrip), TourPlanner.tourCost(c.cost(), order, roundTrip),
+                    1e-9, message);
+            }
+        }
+    }
+
+    // 状态数达到上限时返回此前找到的最好顺序，而不是初始上界
+    @Test
+    void branchAndBoundKeepsToursFoundBeforeCutoff() {
+        Random random = new Random(10);
+        double[][] points = new double[10][2];
+        for (double[] point : points) {
+            point[0] = random.nextDouble() * 1000;
+            point[1] = random.nextDouble() * 1000;
+        }
+        double[][] cost = euclidean(points);
+        int[] worst = worstOrder(cost);
+        double start = TourPlanner.tourCost(cost, worst, false);
+        double previous = start;
+        for (int limit : new int[]{50, 200, 1000, 5000, Integer.MAX_VALUE}) {
+            int[] order = TourPlanner.branchAndBound(cost, false, worst.clone(), Long.MAX_VALUE, limit);
+            assertPermutation(order, 9, "limit " + limit);
+            double total = TourPlanner.tourCost(cost, order, false);
+            assertTrue(total < start, "limit " + limit + " returned the initial order");
+            assertTrue(total <= previous + 1e-9, "limit " + limit);
+            previous = total;
+        }
+        assertEquals(bruteForce(cost, false), previous, 1e-9);
+    }
+
+    // 穷举得到的最差顺序
+    private static int[] worstOrder(double[][] cost) {
+        int stops = cost.length - 1;
+        int[] order = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            order[i] = i + 1;
+        }
+        int[] worst = order.clone();
+        double[] worstCost = {Double.NEGATIVE_INFINITY};
+        permuteWorst(cost, order, 0, worst, worstCost);
+        return worst;
+    }
+
+    private static void permuteWorst(double[][] cost, int[] order, int fixed, int[] worst, double[] worstCost) {
+        if (fixed == order.length) {
+            double total = TourPlanner.tourCost(cost, order, false);
+            if (total > worstCost[0]) {
+                worstCost[0] = total;
+                System.arraycopy(order, 0, worst, 0, order.length);
+            }
+            return;
+        }
+        for (int i = fixed; i < order.length; i++) {
+            int tmp = order[fixed];
+            order[fixed] = order[i];
+            order[i] = tmp;
+            permuteWorst(cost, order, fixed + 1, worst, worstCost);
+            order[i] = order[fixed];
+            order[fixed] = tmp;
+        }
+    }
+
+    @Test
+    void trivialInputs() {
+        assertArrayEquals(new int[0], TourPlanner.plan(new double[1][1], true, BUDGET_NANOS));
+        assertArrayEquals(new int[]{1}, TourPlanner.plan(new double[][]{{0, 5}, {5, 0}}, false, BUDGET_NANOS));
+    }
+
+    // 依次为顺序、逆序与随机打乱
+    private static int[] startOrder(int stops, int trial, Random random) {
+        int[] order = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            order[i] = trial == 1 ? stops - i : i + 1;
+        }
+        if (trial >= 2) {
+            for (int i = stops - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+        }
+        return order;
+    }
+
+    private static void assertNoImprovingMove(double[][] cost, int[] order, boolean roundTrip, String message) {
+        double total = TourPlanner.tourCost(cost, order, roundTrip);
+        int n = order.length;
+        for (int i = 0; i < n; i++) {
+            for (int k = i + 1; k < n; k++) {
+                int[] reversed = order.clone();
+                for (int a = i, b = k; a < b; a++, b--) {
+                    int tmp = reversed[a];
+                    reversed[a] = reversed[b];
+                    reversed[b] = tmp;
+                }
+                assertTrue(TourPlanner.tourCost(cost, reversed, roundTrip) >= total - 1e-6,
+                    message + ": reversing " + i + ".." + k + " improves " + Arrays.toString(order));
+            }
+        }
+        for (int length = 1; length <= 3; length++) {
+            for (int i = 0; i + length <= n; i++) {
+                List<Integer> rest = new ArrayList<>();
+                for (int j = 0; j < n; j++) {
+                    if (j < i || j >= i + length) rest.add(order[j]);
+                }
+                for (int at = 0; at <= rest.size(); at++) {
+                    List<Integer> moved = new ArrayList<>(rest);
+                    for (int j = 0; j < length; j++) {
+                        moved.add(at + j, order[i + j]);
+                    }
+                    int[] candidate = moved.stream().mapToInt(Integer::intValue).toArray();
+                    assertTrue(TourPlanner.tourCost(cost, candidate, roundTrip) >= total - 1e-6,
+                        message + ": moving " + i + "+" + length + " improves " + Arrays.toString(order));
+                }
+            }
+        }
+    }
+
+    private static void assertPermutation(int[] order, int stops, String message) {
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        int[] expected = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            expected[i] = i + 1;
+        }
+        assertArrayEquals(expected, sorted, message);
+    }
+
+    // 穷举途经点的全部排列
+    static double bruteForce(double[][] cost, boolean roundTrip) {
+        int stops = cost.length - 1;
+        int[] order = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            order[i] = i + 1;
+        }
+        return permute(cost, order, 0, roundTrip);
+    }
+
+    private static double permute(double[][] cost, int[] order, int fixed, boolean roundTrip) {
+        if (fixed == order.length) {
+            return TourPlanner.tourCost(cost, order, roundTrip);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = fixed; i < order.length; i++) {
+            int tmp = order[fixed];
+            order[fixed] = order[i];
+            order[i] = tmp;
+            best = Math.min(best, permute(cost, order, fixed + 1, roundTrip));
+            order[i] = order[fixed];
+            order[fixed] = tmp;
+        }
+        return best;
+    }
+}
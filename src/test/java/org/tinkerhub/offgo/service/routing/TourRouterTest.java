@@ -0,0 +1,62 @@
+package org.tinkerhub.offgo.service.routing;
+
+import org.junit.jupiter.api.Test;
+import org.tinkerhub.offgo.model.RoadGraph;
+import org.tinkerhub.offgo.model.TravelMetric;
+import org.tinkerhub.offgo.util.DistanceUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TourRouterTest {
+    private final RoadGraph graph = RoadGraph.build(TestGraphs.grid(10, 0.9, 31), 1);
+
+    // 不可达的位置对按直线距离计价，时间度量下换算为步行用时
+    @Test
+    void unreachablePairsFallBackToStraightLine() {
+        GraphLocation[] locations = {TestGraphs.atNode(graph, 0),
+            TestGraphs.atNode(graph, TestGraphs.islandNode(graph))};
+        double[] values = {0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 0};
+        double straight = DistanceUtil.calculateDistance(locations[0].getLatitude(), locations[0].getLongitude(),
+            locations[1].getLatitude(), locations[1].getLongitude());
+        assertEquals(straight, TourRouter.costMatrix(locations, values, TravelMetric.DISTANCE)[0][1], 1e-9);
+        assertEquals(straight / TravelMetric.WALKING_SPEED,
+            TourRouter.costMatrix(locations, values, TravelMetric.WALKING)[1][0], 1e-9);
+        assertEquals(0, TourRouter.costMatrix(locations, values, TravelMetric.WALKING)[1][1], 0);
+    }
+
+    // 按顺序逐段搜索，elapsed 为此前各段代价之和，环路回到起点
+    @Test
+    void stitchesLegsInVisitingOrder() {
+        GraphLocation[] locations = new GraphLocation[4];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = TestGraphs.atNode(graph, i * 7);
+        }
+        List<GraphLocation> sequence = TourRouter.sequence(locations, new int[]{2, 3, 1}, true);
+        assertEquals(List.of(locations[0], locations[2], locations[3], locations[1], locations[0]), sequence);
+        assertEquals(List.of(locations[0], locations[1]),
+            TourRouter.sequence(locations, new int[]{1}, false));
+
+        double[] weights = graph.getEdgeWeights(TravelMetric.DISTANCE);
+        List<Double> elapsed = new ArrayList<>();
+        GraphPath path = TourRouter.stitch(sequence, (from, to, before, builder) -> {
+            elapsed.add(before);
+            double cost = TestGraphs.dijkstra(graph, weights, from, to);
+            builder.add(from.getLatitude(), from.getLongitude(), -1);
+            return cost;
+        });
+        assertEquals(4, elapsed.size());
+        assertEquals(0, elapsed.get(0), 0);
+        double total = 0;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(total, elapsed.get(i), 1e-9);
+            total += TestGraphs.dijkstra(graph, weights, sequence.get(i), sequence.get(i + 1));
+        }
+        assertEquals(total, path.getCost(), 1e-9);
+        assertEquals(4, path.size());
+        assertTrue(total > 0);
+    }
+}
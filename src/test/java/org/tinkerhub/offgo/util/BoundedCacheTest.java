@@ -0,0 +1,161 @@
+package org.tinkerhub.offgo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    /**
+     * 容量 100、每个条目权重 1：窗口 1，保护段上限 79。
+     * 新条目进窗口，被挤出后进试用段，在试用段再次命中晋升到保护段；
+     * 保护段超限时最久未用的条目降回试用段。
+     */
+    @Test
+    void entriesMoveFromWindowThroughProbationToProtected() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, value -> 1);
+        cache.put(0, "v0");
+        assertEquals(WINDOW, cache.regionOf(0));
+        cache.put(1, "v1");
+        assertEquals(WINDOW, cache.regionOf(1));
+        assertEquals(PROBATION, cache.regionOf(0));
+        cache.get(0);
+        assertEquals(PROTECTED, cache.regionOf(0));
+
+        for (int key = 2; key <= 81; key++) {
+            cache.put(key, "v" + key);
+            cache.get(key - 1);
+        }
+        // 0 最久未用，第 80 个晋升的条目把它挤回试用段
+        assertEquals(PROBATION, cache.regionOf(0));
+        assertEquals(PROTECTED, cache.regionOf(80));
+        assertEquals(WINDOW, cache.regionOf(81));
+        assertEquals(82, cache.size());
+        assertEquals(0L, cache.stats().get("evictionCount"));
+    }
+
+    /**
+     * 访问频率高的条目不会被只访问一次的新条目挤出：
+     * 容量已满时，被挤出窗口的新条目与试用段最久未用的热条目比较频率，频率低者被淘汰。
+     */
+    @Test
+    void admissionKeepsFrequentEntries() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, value -> 1);
+        for (int key = 0; key < 100; key++) {
+            cache.put(key, "hot");
+        }
+        for (int round = 0; round < 4; round++) {
+            for (int key = 0; key < 100; key++) {
+                cache.get(key);
+            }
+        }
+        for (int key = 1000; key < 1500; key++) {
+            cache.put(key, "cold");
+        }
+        int hot = 0;
+        for (int key = 0; key < 100; key++) {
+            hot += cache.regionOf(key) >= 0 ? 1 : 0;
+        }
+        int cold = 0;
+        for (int key = 1000; key < 1499; key++) {
+            cold += cache.regionOf(key) >= 0 ? 1 : 0;
+        }
+        // 频率估计有哈希冲突，允许个别误判
+        assertTrue(hot >= 90, "only " + hot + " frequent entries survived");
+        assertTrue(cold <= 5, cold + " one-hit entries were admitted");
+        assertEquals(WINDOW, cache.regionOf(1499));
+    }
+
+    // 表宽随条目数翻倍后，已有的频率估计不丢失
+    @Test
+    void sketchKeepsCountsWhenItGrows() {
+        BoundedCache.FrequencySketch sketch = new BoundedCache.FrequencySketch();
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 3; i++) {
+            sketch.increment("warm");
+        }
+        sketch.ensureCapacity(1000);
+        assertEquals(15, sketch.frequency("hot"));
+        assertTrue(sketch.frequency("warm") >= 3);
+        sketch.ensureCapacity(100_000);
+        assertEquals(15, sketch.frequency("hot"));
+    }
+
+    // 任何时刻总权重不超过上限；超过总容量的单个条目不缓存，更新为更大的值时触发淘汰
+    @Test
+    void weightNeverExceedsMaximum() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(1000, String::length);
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                cache.get(key);
+            } else {
+                cache.put(key, "x".repeat(1 + random.nextInt(60)));
+            }
+            assertTrue(cache.weightedSize() <= 1000, "weighted size " + cache.weightedSize());
+        }
+        cache.put(-1, "x".repeat(1001));
+        assertEquals(-1, cache.regionOf(-1));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.weightedSize());
+        for (int key = 0; key < 10; key++) {
+            cache.put(key, "x".repeat(100));
+        }
+        assertEquals(1000, cache.weightedSize());
+        cache.put(0, "x".repeat(300));
+        assertTrue(cache.weightedSize() <= 1000);
+        assertTrue(cache.size() < 10);
+    }
+
+    @Test
+    void entriesExpireAfterWrite() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, value -> 1, 30_000_000L);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        Thread.sleep(60);
+        cache.put("b", "3");
+        assertNull(cache.get("a"));
+        assertEquals(-1, cache.regionOf("a"));
+        // 重新写入刷新写入时间
+        assertEquals("3", cache.get("b"));
+        Map<String, Object> stats = cache.stats();
+        assertEquals(1L, stats.get("expirationCount"));
+        assertEquals(2L, stats.get("hitCount"));
+        assertEquals(1L, stats.get("missCount"));
+    }
+
+    @Test
+    void statsCountHitsMissesAndEvictions() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(5, value -> 1);
+        for (int key = 0; key < 8; key++) {
+            cache.put(key, "v");
+        }
+        int hits = 0;
+        for (int key = 0; key < 8; key++) {
+            hits += cache.get(key) != null ? 1 : 0;
+        }
+        assertNull(cache.get(100));
+        cache.invalidate(7);
+        Map<String, Object> stats = cache.stats();
+        assertEquals((long) hits, stats.get("hitCount"));
+        assertEquals((long) 9 - hits, stats.get("missCount"));
+        assertEquals(hits / 9.0, (double) stats.get("hitRate"), 1e-12);
+        assertEquals(3L, stats.get("evictionCount"));
+        assertEquals(cache.size(), stats.get("size"));
+        assertEquals(5L, stats.get("maximumWeight"));
+        assertEquals(5, hits);
+    }
+}
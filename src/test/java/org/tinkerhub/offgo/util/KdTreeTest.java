@@ -0,0 +1,117 @@
+package org.tinkerhub.offgo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 半径查询与逐点计算 Haversine 距离的结果比较。
+ */
+class KdTreeTest {
+
+    @Test
+    void withinMatchesBruteForce() {
+        Random random = new Random(1);
+        double[][] points = randomPoints(random, 2000, 40.0, 116.3, 0.05);
+        assertMatchesBruteForce(points, random, 40.0, 116.3, 0.05, 3000, 500);
+    }
+
+    // 大量重复坐标与重复的单一维度，快速选择中等于枢轴的键落在两侧都不能丢点
+    @Test
+    void duplicateCoordinatesArePartitioned() {
+        Random random = new Random(2);
+        int n = 1500;
+        double[][] points = new double[2][n];
+        for (int i = 0; i < n; i++) {
+            points[0][i] = 40.0 + random.nextInt(5) * 0.001;
+            points[1][i] = i % 3 == 0 ? 116.3 : 116.3 + random.nextInt(4) * 0.001;
+        }
+        assertMatchesBruteForce(points, random, 40.002, 116.302, 0.004, 400, 300);
+        KdTree tree = KdTree.build(points[0], points[1]);
+        int[] all = tree.within(40.002, 116.302, 10_000);
+        Arrays.sort(all);
+        assertEquals(n, all.length);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, all[i]);
+        }
+    }
+
+    /**
+     * 点集跨越多个纬度时，远离中心纬度处按中心纬度投影的经度距离偏大；
+     * 平面剪枝须留足余量，不能漏掉球面距离在半径内的点。
+     */
+    @Test
+    void projectionMarginCoversWideLatitudeSpan() {
+        Random random = new Random(3);
+        double[][] points = randomPoints(random, 3000, 45.0, 10.0, 6);
+        assertMatchesBruteForce(points, random, 45.0, 10.0, 6, 150_000, 400);
+        // 沿纬线分布的点，查询点在点集最北端
+        int n = 400;
+        double[][] row = new double[2][n];
+        for (int i = 0; i < n; i++) {
+            row[0][i] = i < n / 2 ? 38.0 : 52.0;
+            row[1][i] = 10.0 + i % (n / 2) * 0.01;
+        }
+        KdTree tree = KdTree.build(row[0], row[1]);
+        for (int k = 0; k < 100; k++) {
+            double longitude = 10.0 + random.nextDouble() * 2;
+            double radius = 1000 + random.nextDouble() * 50_000;
+            assertArrayEquals(bruteForce(row, 52.0, longitude, radius), sorted(tree.within(52.0, longitude, radius)),
+                "query " + k);
+        }
+    }
+
+    @Test
+    void emptyAndSinglePointTrees() {
+        KdTree empty = KdTree.build(new double[0], new double[0]);
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.within(40, 116, 1000).length);
+        KdTree single = KdTree.build(new double[]{40}, new double[]{116});
+        assertArrayEquals(new int[]{0}, single.within(40.001, 116, 200));
+        assertEquals(0, single.within(40.01, 116, 200).length);
+    }
+
+    private static void assertMatchesBruteForce(double[][] points, Random random, double centerLat, double centerLon,
+                                                double span, double maxRadius, int queries) {
+        KdTree tree = KdTree.build(points[0], points[1]);
+        assertEquals(points[0].length, tree.size());
+        for (int k = 0; k < queries; k++) {
+            double latitude = centerLat + (random.nextDouble() - 0.5) * 2.4 * span;
+            double longitude = centerLon + (random.nextDouble() - 0.5) * 2.4 * span;
+            double radius = random.nextDouble() * maxRadius;
+            assertArrayEquals(bruteForce(points, latitude, longitude, radius),
+                sorted(tree.within(latitude, longitude, radius)), "query " + k);
+        }
+    }
+
+    private static double[][] randomPoints(Random random, int n, double centerLat, double centerLon, double span) {
+        double[][] points = new double[2][n];
+        for (int i = 0; i < n; i++) {
+            points[0][i] = centerLat + (random.nextDouble() - 0.5) * 2 * span;
+            points[1][i] = centerLon + (random.nextDouble() - 0.5) * 2 * span;
+        }
+        return points;
+    }
+
+    private static int[] bruteForce(double[][] points, double latitude, double longitude, double radius) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < points[0].length; i++) {
+            if (DistanceUtil.calculateDistance(latitude, longitude, points[0][i], points[1][i]) <= radius) {
+                result.add(i);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}